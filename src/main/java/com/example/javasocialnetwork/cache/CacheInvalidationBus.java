@@ -0,0 +1,148 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares this instance's cache invalidations with its peers and applies theirs.
+ *
+ * <p>Local invalidations are applied at once and collected into a pending batch; duplicate keys,
+ * prefixes and tags are merged, and keys covered by a pending prefix are dropped. The batch is
+ * published every {@code cache.bus.flush-interval} or as soon as it reaches
+ * {@code cache.bus.max-batch-size}, so a burst of writes costs a few messages, not one per write.
+ */
+public class CacheInvalidationBus implements InvalidationListener, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final String origin = UUID.randomUUID().toString();
+    private final CacheService cacheService;
+    private final CacheInvalidationTransport transport;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final LongAdder publishedBatches = new LongAdder();
+    private final LongAdder receivedBatches = new LongAdder();
+    private final List<Consumer<InvalidationBatch>> remoteListeners = new CopyOnWriteArrayList<>();
+    // Всё pending* меняется только под this
+    private Set<String> pendingKeys = new LinkedHashSet<>();
+    private Set<String> pendingPrefixes = new LinkedHashSet<>();
+    private Set<String> pendingTags = new LinkedHashSet<>();
+
+    public CacheInvalidationBus(CacheService cacheService, CacheInvalidationTransport transport,
+                                CacheProperties.Bus properties) {
+        this.cacheService = cacheService;
+        this.transport = transport;
+        this.maxBatchSize = properties.getMaxBatchSize();
+        transport.subscribe(this::receive);
+        cacheService.setInvalidationListener(this);
+        long interval = properties.getFlushInterval().toMillis();
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void keyInvalidated(String key) {
+        enqueue(() -> pendingKeys.add(key));
+    }
+
+    @Override
+    public void prefixInvalidated(String prefix) {
+        enqueue(() -> pendingPrefixes.add(prefix));
+    }
+
+    @Override
+    public void tagsInvalidated(String... tags) {
+        enqueue(() -> pendingTags.addAll(List.of(tags)));
+    }
+
+    /**
+     * Registers a consumer for batches received from peers, called after they are applied to
+     * the local cache. Used for caches outside {@link CacheService}, e.g. Hibernate's.
+     */
+    public void addRemoteListener(Consumer<InvalidationBatch> listener) {
+        remoteListeners.add(listener);
+    }
+
+    public void flush() {
+        InvalidationBatch batch;
+        synchronized (this) {
+            pendingKeys.removeIf(key -> pendingPrefixes.stream().anyMatch(key::startsWith));
+            batch = new InvalidationBatch(origin, pendingKeys, pendingPrefixes, pendingTags);
+            if (batch.isEmpty()) {
+                return;
+            }
+            pendingKeys = new LinkedHashSet<>();
+            pendingPrefixes = new LinkedHashSet<>();
+            pendingTags = new LinkedHashSet<>();
+        }
+        transport.publish(batch);
+        publishedBatches.increment();
+    }
+
+    public long publishedBatches() {
+        return publishedBatches.sum();
+    }
+
+    public long receivedBatches() {
+        return receivedBatches.sum();
+    }
+
+    @Override
+    public void close() {
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        cacheService.setInvalidationListener(InvalidationListener.NONE);
+        transport.close();
+    }
+
+    private void enqueue(Runnable change) {
+        boolean full;
+        synchronized (this) {
+            change.run();
+            full = pendingKeys.size() + pendingPrefixes.size() + pendingTags.size() >= maxBatchSize;
+        }
+        if (full) {
+            flushQuietly();
+        }
+    }
+
+    private void receive(InvalidationBatch batch) {
+        if (origin.equals(batch.origin())) {
+            return;
+        }
+        receivedBatches.increment();
+        cacheService.apply(batch);
+        for (Consumer<InvalidationBatch> listener : remoteListeners) {
+            try {
+                listener.accept(batch);
+            } catch (RuntimeException e) {
+                LOGGER.warn("[CACHE] Remote invalidation listener failed", e);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Пиры увидят устаревшие записи не дольше их TTL
+            LOGGER.warn("[CACHE] Failed to publish cache invalidations", e);
+        }
+    }
+}
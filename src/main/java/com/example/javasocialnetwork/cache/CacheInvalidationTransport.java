@@ -0,0 +1,17 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidation batches between application instances. A transport may deliver a batch
+ * more than once and back to its publisher; applying an invalidation twice is harmless.
+ */
+public interface CacheInvalidationTransport extends AutoCloseable {
+    void publish(InvalidationBatch batch);
+
+    void subscribe(Consumer<InvalidationBatch> subscriber);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.Optional;
+
+public enum CacheNamespace {
+    USER("user_"),
+    USER_POSTS("user_posts"),
+    GROUP("group_"),
+    USERS_BY_POST_CONTENT("users_by_post_content_"),
+    USER_JSON("user_json_"),
+    GROUP_JSON("group_json_");
+
+    private final String prefix;
+
+    CacheNamespace(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    // Побеждает самый длинный префикс: "user_posts1" относится к USER_POSTS, а не к USER
+    public static Optional<CacheNamespace> of(String key) {
+        CacheNamespace match = null;
+        for (CacheNamespace namespace : values()) {
+            if (key.startsWith(namespace.prefix)
+                    && (match == null || namespace.prefix.length() > match.prefix.length())) {
+                match = namespace;
+            }
+        }
+        return Optional.ofNullable(match);
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.javasocialnetwork.cache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Cache settings, e.g. {@code cache.ttl.user.soft=5m}, {@code cache.ttl.user-posts.hard=30m} or
+ * {@code cache.eviction=lru}.
+ * The cache is bounded by the estimated heap size of its entries ({@code cache.max-weight=32MB});
+ * if {@code max-weight} is set to 0 it falls back to {@code max-size} entries.
+ * After the soft TTL an entry is still served but reloaded in the background; after the hard
+ * TTL it is dropped.
+ * With {@code cache.off-heap.enabled=true} only {@code off-heap.near-cache-size} entries stay
+ * on heap and the rest are kept serialized in direct memory.
+ */
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+
+    private int maxSize = 100;
+    private DataSize maxWeight = DataSize.ofMegabytes(32);
+    private int concurrencyLevel = 16;
+    private EvictionStrategy eviction = EvictionStrategy.W_TINY_LFU;
+    private Duration loadTimeout = Duration.ofSeconds(5);
+    private Duration negativeTtl = Duration.ofSeconds(30);
+    private int refreshThreads = 2;
+    private int refreshQueueCapacity = 100;
+    private Ttl defaultTtl = new Ttl(DEFAULT_TTL, DEFAULT_TTL);
+    private Map<CacheNamespace, Ttl> ttl = new EnumMap<>(CacheNamespace.class);
+    private Json json = new Json();
+    private Snapshot snapshot = new Snapshot();
+    private OffHeap offHeap = new OffHeap();
+    private Bus bus = new Bus();
+    private WarmUp warmUp = new WarmUp();
+    private Jpa jpa = new Jpa();
+
+    public CacheProperties() {
+        ttl.put(CacheNamespace.USER, new Ttl(Duration.ofMinutes(5), DEFAULT_TTL));
+        ttl.put(CacheNamespace.USER_POSTS, new Ttl(Duration.ofMinutes(5), DEFAULT_TTL));
+        ttl.put(CacheNamespace.GROUP, new Ttl(Duration.ofMinutes(5), DEFAULT_TTL));
+        ttl.put(CacheNamespace.USER_JSON, new Ttl(Duration.ofMinutes(5), DEFAULT_TTL));
+        ttl.put(CacheNamespace.GROUP_JSON, new Ttl(Duration.ofMinutes(5), DEFAULT_TTL));
+        ttl.put(CacheNamespace.USERS_BY_POST_CONTENT, new Ttl(Duration.ofMinutes(10), DEFAULT_TTL));
+    }
+
+    public Ttl ttlFor(String key) {
+        return CacheNamespace.of(key)
+                .map(ttl::get)
+                .orElse(defaultTtl);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public DataSize getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(DataSize maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public boolean isWeighted() {
+        return maxWeight != null && maxWeight.toBytes() > 0;
+    }
+
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    public void setConcurrencyLevel(int concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+    }
+
+    public EvictionStrategy getEviction() {
+        return eviction;
+    }
+
+    public void setEviction(EvictionStrategy eviction) {
+        this.eviction = eviction;
+    }
+
+    public Duration getLoadTimeout() {
+        return loadTimeout;
+    }
+
+    public void setLoadTimeout(Duration loadTimeout) {
+        this.loadTimeout = loadTimeout;
+    }
+
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    public void setNegativeTtl(Duration negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+
+    public int getRefreshThreads() {
+        return refreshThreads;
+    }
+
+    public void setRefreshThreads(int refreshThreads) {
+        this.refreshThreads = refreshThreads;
+    }
+
+    public int getRefreshQueueCapacity() {
+        return refreshQueueCapacity;
+    }
+
+    public void setRefreshQueueCapacity(int refreshQueueCapacity) {
+        this.refreshQueueCapacity = refreshQueueCapacity;
+    }
+
+    public Ttl getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    public void setDefaultTtl(Ttl defaultTtl) {
+        this.defaultTtl = defaultTtl;
+    }
+
+    public Map<CacheNamespace, Ttl> getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Map<CacheNamespace, Ttl> ttl) {
+        this.ttl = ttl;
+    }
+
+    public Json getJson() {
+        return json;
+    }
+
+    public void setJson(Json json) {
+        this.json = json;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public OffHeap getOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(OffHeap offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public Bus getBus() {
+        return bus;
+    }
+
+    public void setBus(Bus bus) {
+        this.bus = bus;
+    }
+
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public Jpa getJpa() {
+        return jpa;
+    }
+
+    public void setJpa(Jpa jpa) {
+        this.jpa = jpa;
+    }
+
+    /**
+     * Hibernate second-level and query cache regions, see {@code HibernateCacheConfig}. Entity
+     * and collection regions hold up to {@code max-entries} each, query results up to
+     * {@code query-max-entries}; both expire after {@code ttl}.
+     */
+    public static class Jpa {
+        private int maxEntries = 10_000;
+        private int queryMaxEntries = 1_000;
+        private Duration ttl = DEFAULT_TTL;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getQueryMaxEntries() {
+            return queryMaxEntries;
+        }
+
+        public void setQueryMaxEntries(int queryMaxEntries) {
+            this.queryMaxEntries = queryMaxEntries;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Preloading of the most visited users and groups at startup and, if {@code after-clear}
+     * is set, after the cache is cleared. Runs in the background and stops once
+     * {@code time-budget} is spent.
+     */
+    public static class WarmUp {
+        private boolean enabled = true;
+        private boolean afterClear = true;
+        private int topN = 500;
+        private int batchSize = 100;
+        private Duration timeBudget = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isAfterClear() {
+            return afterClear;
+        }
+
+        public void setAfterClear(boolean afterClear) {
+            this.afterClear = afterClear;
+        }
+
+        public int getTopN() {
+            return topN;
+        }
+
+        public void setTopN(int topN) {
+            this.topN = topN;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getTimeBudget() {
+            return timeBudget;
+        }
+
+        public void setTimeBudget(Duration timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+    }
+
+    /**
+     * Invalidation exchange between instances, see {@link CacheInvalidationBus}. The default
+     * {@code postgres} transport uses an outbox table in the application database;
+     * {@code in-process} is for a single instance.
+     */
+    public static class Bus {
+        private Transport transport = Transport.POSTGRES;
+        private Duration flushInterval = Duration.ofMillis(100);
+        private int maxBatchSize = 500;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private Duration retention = Duration.ofMinutes(10);
+
+        public Transport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public enum Transport {
+            IN_PROCESS,
+            POSTGRES
+        }
+    }
+
+    /**
+     * Second cache tier in direct memory for user and group entries evicted from the heap.
+     * Memory is taken in {@code block-size} chunks, so the block size trades per-entry waste
+     * for the number of block references kept on heap.
+     */
+    public static class OffHeap {
+        private boolean enabled;
+        private int nearCacheSize = 2_000;
+        private DataSize capacity = DataSize.ofMegabytes(256);
+        private DataSize blockSize = DataSize.ofBytes(256);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getNearCacheSize() {
+            return nearCacheSize;
+        }
+
+        public void setNearCacheSize(int nearCacheSize) {
+            this.nearCacheSize = nearCacheSize;
+        }
+
+        public DataSize getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(DataSize capacity) {
+            this.capacity = capacity;
+        }
+
+        public DataSize getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(DataSize blockSize) {
+            this.blockSize = blockSize;
+        }
+    }
+
+    // Снимок горячих записей для быстрого старта, см. CacheSnapshotService.
+    // Включается явно и только с собственным путём: общий tmpdir делили бы разные экземпляры
+    public static class Snapshot {
+        private boolean enabled;
+        private Path path;
+        private Duration interval = Duration.ofMinutes(5);
+        private int maxEntries = 5_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public void setPath(Path path) {
+            this.path = path;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * Caching of pre-encoded JSON responses for single users and groups. Payloads of at least
+     * {@code compress-min-size} are stored gzip-compressed.
+     */
+    public static class Json {
+        private boolean enabled;
+        private boolean compress = true;
+        private DataSize compressMinSize = DataSize.ofKilobytes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isCompress() {
+            return compress;
+        }
+
+        public void setCompress(boolean compress) {
+            this.compress = compress;
+        }
+
+        public DataSize getCompressMinSize() {
+            return compressMinSize;
+        }
+
+        public void setCompressMinSize(DataSize compressMinSize) {
+            this.compressMinSize = compressMinSize;
+        }
+    }
+
+    public static class Ttl {
+        private Duration soft;
+        private Duration hard;
+
+        public Ttl() {
+            this(DEFAULT_TTL, DEFAULT_TTL);
+        }
+
+        public Ttl(Duration soft, Duration hard) {
+            this.soft = soft;
+            this.hard = hard;
+        }
+
+        public Duration getSoft() {
+            return soft;
+        }
+
+        public void setSoft(Duration soft) {
+            this.soft = soft;
+        }
+
+        public Duration getHard() {
+            return hard;
+        }
+
+        public void setHard(Duration hard) {
+            this.hard = hard;
+        }
+    }
+}
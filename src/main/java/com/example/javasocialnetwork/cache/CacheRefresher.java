@@ -0,0 +1,10 @@
+package com.example.javasocialnetwork.cache;
+
+@FunctionalInterface
+public interface CacheRefresher {
+    /**
+     * Schedules a background refresh. Returns {@code false} if it was rejected, e.g. because
+     * the refresh queue is full; the entry then stays stale and is retried on a later read.
+     */
+    boolean submit(Runnable refresh);
+}
@@ -1,94 +1,623 @@
 package com.example.javasocialnetwork.cache;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import com.example.javasocialnetwork.exception.CacheLoadTimeoutException;
+import com.example.javasocialnetwork.exception.TaskInterruptedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import lombok.Getter;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 @Component
 public class CacheService {
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheService.class);
-    private static final int MAX_CACHE_SIZE = 100;
-
-    private final Map<String, CacheEntry> cache = new LinkedHashMap<>() {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
-            boolean shouldRemove = size() > MAX_CACHE_SIZE;
-            if (shouldRemove) {
-                LOGGER.info("[CACHE] Removing eldest entry: {}", eldest.getKey());
+    private static final long REFRESH_RETRY_DELAY = TimeUnit.SECONDS.toMillis(30);
+
+    private final CacheProperties properties;
+    private final CacheRefresher refresher;
+    private final LongSupplier clock;
+    private final SegmentedCache<String, CacheEntry> cache;
+    // null, если второй уровень выключен
+    private final OffHeapStore<CacheEntry> offHeap;
+    private final CacheValueCodec codec;
+    // Вытесненные из кучи записи ждут сериализации вне блокировки сегмента
+    private final ConcurrentLinkedQueue<Demotion> demotions = new ConcurrentLinkedQueue<>();
+    private volatile InvalidationListener invalidationListener = InvalidationListener.NONE;
+    private final CacheTagIndex tagIndex = new CacheTagIndex();
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    // Растёт при каждой инвалидации; загрузка, пересёкшаяся с ней, не кладёт результат в кеш
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+    private final CacheStatistics statistics = new CacheStatistics();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder timedOutWaits = new LongAdder();
+    private final LongAdder rejectedRefreshes = new LongAdder();
+
+    @Autowired
+    public CacheService(CacheProperties properties, CacheRefresher refresher, ObjectMapper objectMapper) {
+        this(properties, refresher, new CacheValueCodec(objectMapper), System::currentTimeMillis);
+    }
+
+    CacheService(int maxSize, int concurrencyLevel, long ttlMillis, LongSupplier clock) {
+        this(uniformProperties(maxSize, concurrencyLevel, Duration.ofMillis(ttlMillis)), runInline(), clock);
+    }
+
+    CacheService(CacheProperties properties, CacheRefresher refresher, LongSupplier clock) {
+        this(properties, refresher, new CacheValueCodec(new ObjectMapper()), clock);
+    }
+
+    CacheService(CacheProperties properties, CacheRefresher refresher, CacheValueCodec codec, LongSupplier clock) {
+        this.properties = properties;
+        this.refresher = refresher;
+        this.codec = codec;
+        this.clock = clock;
+        CacheProperties.OffHeap offHeapProperties = properties.getOffHeap();
+        if (offHeapProperties.isEnabled()) {
+            // В куче остаются только самые горячие записи, их число важнее их веса
+            this.cache = new SegmentedCache<>(offHeapProperties.getNearCacheSize(), properties.getConcurrencyLevel(),
+                    properties.getDefaultTtl().getHard().toMillis(), clock, properties.getEviction(),
+                    Weigher.singleton(), this::onHeapRemoval);
+            this.offHeap = new OffHeapStore<>(offHeapProperties.getCapacity().toBytes(),
+                    (int) offHeapProperties.getBlockSize().toBytes(), properties.getConcurrencyLevel(),
+                    properties.getEviction(), clock, this::onRemoval);
+        } else {
+            this.cache = new SegmentedCache<>(
+                    properties.isWeighted() ? properties.getMaxWeight().toBytes() : properties.getMaxSize(),
+                    properties.getConcurrencyLevel(),
+                    properties.getDefaultTtl().getHard().toMillis(), clock, properties.getEviction(),
+                    properties.isWeighted() ? weighByValue(new CacheWeigher()) : Weigher.singleton(),
+                    this::onRemoval);
+            this.offHeap = null;
+        }
+    }
+
+    public void put(String key, Object value) {
+        put(key, value, Set.of());
+    }
+
+    public void put(String key, Object value, Collection<String> tags) {
+        store(key, value, tags, null);
+    }
+
+    public Optional<Object> get(String key) {
+        CacheEntry entry = lookup(key);
+        if (entry == null || entry.absent) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.value);
+    }
+
+    public <T> T getOrLoad(String key, Supplier<T> loader) {
+        return getOrLoad(key, loader, value -> Set.of());
+    }
+
+    public <T> T getOrLoad(String key, Supplier<T> loader,
+                           Function<? super T, ? extends Collection<String>> tagger) {
+        return getOrLoad(key, loader, tagger, null, properties.getLoadTimeout());
+    }
+
+    /**
+     * Like {@link #getOrLoad(String, Supplier, Function)}, but if the loader throws an exception of
+     * {@code absence.exceptionType()} the absence is remembered for {@code cache.negative-ttl}
+     * and the same exception is rethrown without calling the loader. The negative entry is
+     * tagged with {@code absence.tags()}, so creating the entity must invalidate one of them.
+     */
+    public <T> T getOrLoad(String key, Supplier<T> loader,
+                           Function<? super T, ? extends Collection<String>> tagger, Absence absence) {
+        return getOrLoad(key, loader, tagger, absence, properties.getLoadTimeout());
+    }
+
+    public <T> T getOrLoad(String key, Supplier<T> loader,
+                           Function<? super T, ? extends Collection<String>> tagger, Duration timeout) {
+        return getOrLoad(key, loader, tagger, null, timeout);
+    }
+
+    /**
+     * Returns the cached value or loads it, allowing only one loader per key at a time.
+     * Concurrent callers for the same key wait up to {@code timeout} for that loader's result
+     * (or exception) instead of hitting the database themselves. The loader is kept with the
+     * entry so that it can be refreshed in the background once the namespace's soft TTL passes.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getOrLoad(String key, Supplier<T> loader,
+                            Function<? super T, ? extends Collection<String>> tagger, Absence absence,
+                            Duration timeout) {
+        CacheEntry cached = lookup(key);
+        if (cached != null) {
+            return (T) unwrap(key, cached);
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            return (T) await(key, inFlight, timeout);
+        }
+
+        try {
+            // Предыдущая загрузка могла завершиться между проверкой кеша и putIfAbsent
+            cached = cache.get(key);
+            if (cached != null) {
+                T value = (T) unwrap(key, cached);
+                load.complete(value);
+                return value;
+            }
+            long epoch = invalidationEpoch.get();
+            long startedAt = System.nanoTime();
+            T value;
+            try {
+                value = loader.get();
+            } catch (RuntimeException e) {
+                if (absence != null && absence.exceptionType().isInstance(e) && invalidationEpoch.get() == epoch) {
+                    storeAbsent(key, e, absence.tags());
+                }
+                throw e;
+            } finally {
+                statistics.recordLoad(key, System.nanoTime() - startedAt);
+            }
+            if (invalidationEpoch.get() == epoch) {
+                store(key, value, tagger.apply(value),
+                        new Loader(loader, (Function<Object, ? extends Collection<String>>) tagger));
             }
-            return shouldRemove;
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            statistics.recordFailedLoad(key);
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
         }
-    };
+    }
 
-    private static final long TTL = TimeUnit.MINUTES.toMillis(15);
+    /**
+     * Stores a value read ahead of demand, e.g. during warm-up, as if {@code loader} had just
+     * returned it. Skipped if the key is already cached or an invalidation happened since
+     * {@code epoch} (see {@link #invalidationEpoch()}), i.e. while the value was being read.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> boolean preload(String key, T value, Supplier<T> loader,
+                               Function<? super T, ? extends Collection<String>> tagger, long epoch) {
+        if (invalidationEpoch.get() != epoch || isCached(key)) {
+            return false;
+        }
+        store(key, value, tagger.apply(value),
+                new Loader(loader, (Function<Object, ? extends Collection<String>>) tagger));
+        return true;
+    }
 
-    private static class CacheEntry {
-        @Getter
-        private final Object value;
-        private final long createdAt;
+    // Полная очистка, как и остальные инвалидации, уходит на другие экземпляры
+    public void clear() {
+        evictByPrefix("");
+    }
 
-        public CacheEntry(Object value) {
-            this.value = value;
-            this.createdAt = System.currentTimeMillis();
+    public LoadStats getLoadStats() {
+        return new LoadStats(statistics.loads(), coalescedLoads.sum(), statistics.failedLoads(),
+                timedOutWaits.sum(), statistics.refreshes(), statistics.failedRefreshes(), rejectedRefreshes.sum(),
+                statistics.negativeHits());
+    }
+
+    public CacheStats getStats() {
+        CacheStats.OffHeapStats offHeapStats = offHeap == null
+                ? new CacheStats.OffHeapStats(false, 0, 0, 0)
+                : new CacheStats.OffHeapStats(true, offHeap.size(), offHeap.usedBytes(), offHeap.capacityBytes());
+        long collections = 0;
+        long collectionTime = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, collector.getCollectionCount());
+            collectionTime += Math.max(0, collector.getCollectionTime());
         }
+        return new CacheStats(cache.size(), cache.weight(), offHeapStats,
+                new CacheStats.GcStats(collections, collectionTime), getLoadStats(), statistics.snapshot());
+    }
+
+    public void invalidateTags(String... tags) {
+        invalidateTagsLocally(tags);
+        invalidationListener.tagsInvalidated(tags);
+    }
+
+    public void evictByPrefix(String prefix) {
+        evictByPrefixLocally(prefix);
+        invalidationListener.prefixInvalidated(prefix);
+    }
+
+    public void evict(String key) {
+        evictLocally(key);
+        invalidationListener.keyInvalidated(key);
+    }
+
+    // Инвалидации, пришедшие от других экземпляров, дальше не публикуются
+    void apply(InvalidationBatch batch) {
+        batch.keys().forEach(this::evictLocally);
+        batch.prefixes().forEach(this::evictByPrefixLocally);
+        if (!batch.tags().isEmpty()) {
+            invalidateTagsLocally(batch.tags().toArray(String[]::new));
+        }
+    }
+
+    void setInvalidationListener(InvalidationListener invalidationListener) {
+        this.invalidationListener = invalidationListener;
+    }
 
-        public boolean isExpired() {
-            return System.currentTimeMillis() - createdAt > TTL;
+    public int size() {
+        return cache.size() + (offHeap == null ? 0 : offHeap.size());
+    }
+
+    /**
+     * Collects up to {@code limit} live, positive entries whose keys match {@code keyFilter},
+     * most frequently read first.
+     */
+    public List<CacheSnapshotEntry> snapshot(Predicate<String> keyFilter, int limit) {
+        List<CacheSnapshotEntry> entries = new ArrayList<>();
+        cache.forEach((key, entry, remainingTtlMillis, frequency) -> {
+            if (!entry.absent && keyFilter.test(key)) {
+                entries.add(new CacheSnapshotEntry(key, entry.value, entry.tags, remainingTtlMillis, frequency));
+            }
+        });
+        entries.sort(Comparator.comparingInt(CacheSnapshotEntry::frequency).reversed());
+        return entries.size() > limit ? List.copyOf(entries.subList(0, limit)) : entries;
+    }
+
+    public long invalidationEpoch() {
+        return invalidationEpoch.get();
+    }
+
+    /**
+     * Puts snapshot entries back unless an invalidation happened since {@code epoch}, i.e. while
+     * the entries were being validated. Restored entries have no loader, so they are not
+     * refreshed ahead and simply expire after their remaining TTL. Returns the number restored.
+     */
+    public int restore(Collection<CacheSnapshotEntry> entries, long epoch) {
+        int restored = 0;
+        for (CacheSnapshotEntry snapshotEntry : entries) {
+            if (invalidationEpoch.get() != epoch) {
+                break;
+            }
+            if (snapshotEntry.remainingTtlMillis() <= 0 || isCached(snapshotEntry.key())) {
+                continue;
+            }
+            CacheEntry entry = new CacheEntry(snapshotEntry.key(), snapshotEntry.value(),
+                    Set.copyOf(snapshotEntry.tags()), null, Long.MAX_VALUE, false,
+                    clock.getAsLong() + snapshotEntry.remainingTtlMillis());
+            tagIndex.register(entry.registration, entry.tags);
+            CacheEntry previous = cache.restore(snapshotEntry.key(), entry,
+                    snapshotEntry.remainingTtlMillis(), snapshotEntry.frequency());
+            if (previous != null) {
+                unregisterReplaced(previous, entry);
+            }
+            demoteEvicted();
+            restored++;
         }
+        return restored;
+    }
+
+    // Оценка занятой памяти в байтах либо число записей, если вес не ограничен
+    long weight() {
+        return cache.weight();
+    }
+
+    int tagCount() {
+        return tagIndex.tagCount();
     }
 
-    public void enforceSizeLimit() {
-        while (cache.size() > MAX_CACHE_SIZE) {
-            String eldestKey = cache.keySet().iterator().next();
-            cache.remove(eldestKey);
-            LOGGER.info("[CACHE] Removed eldest entry due to size limit: {}", eldestKey);
+    private void invalidateTagsLocally(String... tags) {
+        invalidationEpoch.incrementAndGet();
+        for (String tag : tags) {
+            for (String key : tagIndex.keysFor(tag)) {
+                removeFromBothTiers(key);
+            }
         }
     }
 
-    public void put(String key, Object value) {
-        cache.put(key, new CacheEntry(value));
-        enforceSizeLimit();
-        LOGGER.info("[CACHE] Data added to cache with key: {}", key);
+    private void evictByPrefixLocally(String prefix) {
+        invalidationEpoch.incrementAndGet();
+        cache.removeIf(key -> key.startsWith(prefix));
+        if (offHeap != null) {
+            offHeap.removeIf(key -> key.startsWith(prefix));
+        }
     }
 
-    public Optional<Object> get(String key) {
+    private void evictLocally(String key) {
+        invalidationEpoch.incrementAndGet();
+        removeFromBothTiers(key);
+    }
+
+    // Ключ может оказаться в обоих уровнях (put поверх вытесненной записи), иначе устаревшая копия
+    // из второго уровня вернулась бы в кучу при следующем чтении
+    private void removeFromBothTiers(String key) {
+        cache.remove(key);
+        if (offHeap != null) {
+            offHeap.remove(key);
+        }
+    }
+
+    // Вытесненная во второй уровень запись тоже считается закешированной: вторая копия в куче
+    // рядом с ней пережила бы инвалидацию только кучи
+    private boolean isCached(String key) {
+        return cache.get(key) != null || (offHeap != null && offHeap.contains(key));
+    }
+
+    private CacheEntry lookup(String key) {
         CacheEntry entry = cache.get(key);
+        if (entry == null && offHeap != null) {
+            entry = promote(key);
+        }
         if (entry == null) {
-            LOGGER.info("[CACHE] Data not found in cache for key: {}", key);
-            return Optional.empty();
+            statistics.recordMiss(key);
+            return null;
         }
-        if (entry.isExpired()) {
-            LOGGER.info("[CACHE] Data expired in cache for key: {}", key);
-            cache.remove(key);
-            return Optional.empty();
+        statistics.recordHit(key);
+        scheduleRefreshIfStale(key, entry);
+        return entry;
+    }
+
+    private void store(String key, Object value, Collection<String> tags, Loader loader) {
+        CacheProperties.Ttl ttl = properties.ttlFor(key);
+        long refreshAt = loader == null ? Long.MAX_VALUE : clock.getAsLong() + ttl.getSoft().toMillis();
+        insert(key, new CacheEntry(key, value, Set.copyOf(tags), loader, refreshAt, false,
+                clock.getAsLong() + ttl.getHard().toMillis()), ttl.getHard().toMillis());
+    }
+
+    private void storeAbsent(String key, RuntimeException notFound, Collection<String> tags) {
+        long ttlMillis = properties.getNegativeTtl().toMillis();
+        insert(key, new CacheEntry(key, notFound, Set.copyOf(tags), null, Long.MAX_VALUE, true,
+                clock.getAsLong() + ttlMillis), ttlMillis);
+    }
+
+    private void insert(String key, CacheEntry entry, long ttlMillis) {
+        tagIndex.register(entry.registration, entry.tags);
+        CacheEntry previous = cache.put(key, entry, ttlMillis);
+        if (previous != null) {
+            unregisterReplaced(previous, entry);
         }
-        LOGGER.info("[CACHE] Data retrieved from cache for key: {}", key);
-        return Optional.of(entry.getValue());
+        demoteEvicted();
     }
 
-    public void evictByPrefix(String prefix) {
-        cache.keySet().removeIf(key -> {
-            if (key.startsWith(prefix)) {
-                LOGGER.info("[CACHE] Data evicted from cache for key: {}", key);
-                return true;
+    // Запись, перенесённая между уровнями, сохраняет регистрацию и остаётся в индексе
+    private void unregisterReplaced(CacheEntry previous, CacheEntry entry) {
+        if (previous.registration != entry.registration) {
+            tagIndex.unregister(previous.registration, previous.tags);
+        }
+    }
+
+    // Снимается только регистрация удалённой записи: более новая запись того же ключа остаётся в индексе
+    private void onRemoval(String key, CacheEntry removed, RemovalCause cause) {
+        tagIndex.unregister(removed.registration, removed.tags);
+        statistics.recordRemoval(key, cause);
+    }
+
+    // Вытесненная по размеру запись пользователя или группы уходит во второй уровень
+    private void onHeapRemoval(String key, CacheEntry removed, RemovalCause cause) {
+        if (cause == RemovalCause.SIZE && !removed.absent
+                && CacheValueCodec.kindOf(removed.value) != CacheValueCodec.UNSUPPORTED_KIND) {
+            demotions.add(new Demotion(key, removed, invalidationEpoch.get()));
+        } else {
+            onRemoval(key, removed, cause);
+        }
+    }
+
+    private void demoteEvicted() {
+        Demotion demotion;
+        while ((demotion = demotions.poll()) != null) {
+            demote(demotion.key(), demotion.entry(), demotion.epoch());
+        }
+    }
+
+    private void demote(String key, CacheEntry entry, long epoch) {
+        if (entry.expiresAt <= clock.getAsLong()) {
+            onRemoval(key, entry, RemovalCause.EXPIRED);
+            return;
+        }
+        byte[] bytes;
+        try {
+            bytes = codec.encode(entry.value);
+        } catch (IOException e) {
+            LOGGER.warn("[CACHE] Failed to serialize entry for key: {}", key, e);
+            onRemoval(key, entry, RemovalCause.SIZE);
+            return;
+        }
+        if (!offHeap.fits(bytes.length)) {
+            onRemoval(key, entry, RemovalCause.OVERSIZED);
+            return;
+        }
+        if (invalidationEpoch.get() != epoch) {
+            // Запись могла устареть, пока ждала в очереди
+            onRemoval(key, entry, RemovalCause.EXPLICIT);
+            return;
+        }
+        CacheEntry withoutValue = entry.withValue(null);
+        CacheEntry previous = offHeap.put(key, CacheValueCodec.kindOf(entry.value), bytes, withoutValue,
+                entry.expiresAt);
+        if (previous != null) {
+            unregisterReplaced(previous, withoutValue);
+        }
+    }
+
+    // Возвращает запись из второго уровня в кучу с тем же сроком жизни и загрузчиком
+    private CacheEntry promote(String key) {
+        long epoch = invalidationEpoch.get();
+        OffHeapStore.Entry<CacheEntry> stored = offHeap.take(key);
+        if (stored == null) {
+            return null;
+        }
+        CacheEntry metadata = stored.metadata();
+        CacheEntry entry;
+        try {
+            entry = metadata.withValue(codec.decode(stored.kind(), stored.value(), metadata.tags));
+        } catch (IOException e) {
+            LOGGER.warn("[CACHE] Failed to deserialize entry for key: {}", key, e);
+            onRemoval(key, metadata, RemovalCause.EXPLICIT);
+            return null;
+        }
+        statistics.recordOffHeapHit(key);
+        long remainingTtl = entry.expiresAt - clock.getAsLong();
+        if (remainingTtl > 0 && invalidationEpoch.get() == epoch) {
+            insert(key, entry, remainingTtl);
+        } else {
+            onRemoval(key, entry, RemovalCause.EXPLICIT);
+        }
+        return entry;
+    }
+
+    // Отсутствие сущности отдаётся тем же исключением, что бросил загрузчик
+    private Object unwrap(String key, CacheEntry entry) {
+        if (entry.absent) {
+            statistics.recordNegativeHit(key);
+            throw (RuntimeException) entry.value;
+        }
+        return entry.value;
+    }
+
+    private void scheduleRefreshIfStale(String key, CacheEntry entry) {
+        if (entry.loader == null || clock.getAsLong() < entry.refreshAt
+                || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        if (!refresher.submit(() -> refresh(key, entry))) {
+            rejectedRefreshes.increment();
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void refresh(String key, CacheEntry entry) {
+        long epoch = invalidationEpoch.get();
+        try {
+            Object value = entry.loader.supplier().get();
+            statistics.recordRefresh(key);
+            if (invalidationEpoch.get() == epoch) {
+                store(key, value, entry.loader.tagger().apply(value), entry.loader);
             }
-            return false;
-        });
+        } catch (RuntimeException e) {
+            // Старое значение остаётся до жёсткого TTL, следующая попытка — после паузы
+            statistics.recordFailedRefresh(key);
+            entry.refreshAt = clock.getAsLong() + REFRESH_RETRY_DELAY;
+            LOGGER.warn("[CACHE] Background refresh failed for key: {}", key, e);
+        } finally {
+            entry.refreshing.set(false);
+        }
     }
 
-    public void evict(String key) {
-        CacheEntry removedEntry = cache.remove(key);
-        if (removedEntry != null) {
-            LOGGER.info("[CACHE] Data evicted from cache for key: {}", key);
+    private Object await(String key, CompletableFuture<Object> load, Duration timeout) {
+        try {
+            return load.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOutWaits.increment();
+            throw new CacheLoadTimeoutException("Timed out waiting for cache load")
+                    .addDetail("key", key)
+                    .addDetail("timeoutMs", timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskInterruptedException("Interrupted while waiting for cache load", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Cache load failed", e.getCause());
+        }
+    }
+
+    private static CacheProperties uniformProperties(int maxSize, int concurrencyLevel, Duration ttl) {
+        CacheProperties properties = new CacheProperties();
+        properties.setMaxSize(maxSize);
+        properties.setConcurrencyLevel(concurrencyLevel);
+        properties.setMaxWeight(DataSize.ofBytes(0));
+        properties.setDefaultTtl(new CacheProperties.Ttl(ttl, ttl));
+        for (CacheNamespace namespace : CacheNamespace.values()) {
+            properties.getTtl().put(namespace, new CacheProperties.Ttl(ttl, ttl));
+        }
+        return properties;
+    }
+
+    private static Weigher<String, CacheEntry> weighByValue(Weigher<String, Object> weigher) {
+        return (key, entry) -> weigher.weigh(key, entry.value);
+    }
+
+    private static CacheRefresher runInline() {
+        return refresh -> {
+            refresh.run();
+            return true;
+        };
+    }
+
+    private static final class CacheEntry {
+        private final CacheTagIndex.Registration registration;
+        private final Object value;
+        private final Set<String> tags;
+        private final Loader loader;
+        private final boolean absent;
+        private final long expiresAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long refreshAt;
+
+        CacheEntry(String key, Object value, Set<String> tags, Loader loader, long refreshAt, boolean absent,
+                   long expiresAt) {
+            this(new CacheTagIndex.Registration(key), value, tags, loader, refreshAt, absent, expiresAt);
+        }
+
+        private CacheEntry(CacheTagIndex.Registration registration, Object value, Set<String> tags, Loader loader,
+                           long refreshAt, boolean absent, long expiresAt) {
+            this.registration = registration;
+            this.value = value;
+            this.tags = tags;
+            this.loader = loader;
+            this.refreshAt = refreshAt;
+            this.absent = absent;
+            this.expiresAt = expiresAt;
+        }
+
+        CacheEntry withValue(Object newValue) {
+            // Та же запись в другом уровне: регистрация в индексе тегов общая
+            return new CacheEntry(registration, newValue, tags, loader, refreshAt, absent, expiresAt);
+        }
+    }
+
+    private record Demotion(String key, CacheEntry entry, long epoch) {
+    }
+
+    private record Loader(Supplier<?> supplier, Function<Object, ? extends Collection<String>> tagger) {
+    }
+
+    /**
+     * Which loader exception means "the entity does not exist" and which tags invalidate
+     * the remembered absence.
+     */
+    public record Absence(Class<? extends RuntimeException> exceptionType, Set<String> tags) {
+        public static Absence of(Class<? extends RuntimeException> exceptionType, String... tags) {
+            return new Absence(exceptionType, Set.of(tags));
         }
     }
 
-    public void invalidateUserCache() {
-        evictByPrefix("users_by_post_content_");
+    /**
+     * {@code negativeHits} is the number of lookups answered from a cached absence, i.e. database
+     * queries saved.
+     */
+    public record LoadStats(long loads, long coalescedLoads, long failedLoads, long timedOutWaits,
+                            long refreshes, long failedRefreshes, long rejectedRefreshes, long negativeHits) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.Set;
+
+/**
+ * A live cache entry as written to or read from the snapshot file. {@code frequency} is the
+ * eviction policy's estimate of how often the key was read recently.
+ */
+public record CacheSnapshotEntry(String key, Object value, Set<String> tags, long remainingTtlMillis,
+                                 int frequency) {
+}
@@ -0,0 +1,116 @@
+package com.example.javasocialnetwork.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot format:
+ * <pre>
+ * int magic, int format version, long written-at millis, int record count, then per record:
+ *   key, byte kind, long remaining TTL millis, int frequency,
+ *   int tag count, (tag, long fingerprint) * count, int value length, value bytes
+ * </pre>
+ * Strings are an int length followed by UTF-8 bytes. The file is written to a temporary file and
+ * moved into place, and read through a read-only memory mapping.
+ */
+final class CacheSnapshotFile {
+    private static final int MAGIC = 0x4A534E43;
+    private static final int FORMAT_VERSION = 1;
+
+    private CacheSnapshotFile() {
+    }
+
+    record Record(String key, byte kind, long remainingTtlMillis, int frequency,
+                  Map<String, Long> fingerprints, byte[] value) {
+    }
+
+    record Snapshot(long writtenAtMillis, List<Record> records) {
+    }
+
+    static void write(Path path, long writtenAtMillis, List<Record> records) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(writtenAtMillis);
+                out.writeInt(records.size());
+                for (Record record : records) {
+                    writeString(out, record.key());
+                    out.writeByte(record.kind());
+                    out.writeLong(record.remainingTtlMillis());
+                    out.writeInt(record.frequency());
+                    out.writeInt(record.fingerprints().size());
+                    for (Map.Entry<String, Long> fingerprint : record.fingerprints().entrySet()) {
+                        writeString(out, fingerprint.getKey());
+                        out.writeLong(fingerprint.getValue());
+                    }
+                    out.writeInt(record.value().length);
+                    out.write(record.value());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported cache snapshot format: " + path);
+            }
+            long writtenAt = buffer.getLong();
+            int count = buffer.getInt();
+            List<Record> records = new ArrayList<>(Math.min(count, 1 << 16));
+            for (int i = 0; i < count; i++) {
+                String key = readString(buffer);
+                byte kind = buffer.get();
+                long remainingTtl = buffer.getLong();
+                int frequency = buffer.getInt();
+                int tagCount = buffer.getInt();
+                Map<String, Long> fingerprints = new LinkedHashMap<>();
+                for (int t = 0; t < tagCount; t++) {
+                    fingerprints.put(readString(buffer), buffer.getLong());
+                }
+                byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                records.add(new Record(key, kind, remainingTtl, frequency, fingerprints, value));
+            }
+            return new Snapshot(writtenAt, records);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Truncated cache snapshot: " + path, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
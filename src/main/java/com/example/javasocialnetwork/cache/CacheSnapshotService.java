@@ -0,0 +1,160 @@
+package com.example.javasocialnetwork.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * With {@code cache.snapshot.enabled=true}, writes the hottest user and group entries to
+ * {@code cache.snapshot.path} periodically and on shutdown, and loads them back on startup. Each entry is stored with the fingerprints of the
+ * rows behind its tags (see {@link SourceFingerprints}); entries whose rows changed while the
+ * application was down are discarded.
+ */
+@Service
+public class CacheSnapshotService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheSnapshotService.class);
+    private static final Set<CacheNamespace> SNAPSHOT_NAMESPACES = Set.of(
+            CacheNamespace.USER, CacheNamespace.GROUP, CacheNamespace.USER_JSON, CacheNamespace.GROUP_JSON);
+
+    private final CacheService cacheService;
+    private final SourceFingerprints sourceFingerprints;
+    private final CacheValueCodec codec;
+    private final CacheProperties.Snapshot properties;
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    public CacheSnapshotService(CacheService cacheService,
+                                SourceFingerprints sourceFingerprints,
+                                ObjectMapper objectMapper,
+                                CacheProperties cacheProperties) {
+        this.cacheService = cacheService;
+        this.sourceFingerprints = sourceFingerprints;
+        this.codec = new CacheValueCodec(objectMapper);
+        this.properties = cacheProperties.getSnapshot();
+        if (properties.isEnabled() && properties.getPath() == null) {
+            throw new IllegalStateException("cache.snapshot.path must be set when cache.snapshot.enabled=true");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        restoreQuietly();
+        long interval = properties.getInterval().toMillis();
+        snapshotExecutor.scheduleAtFixedRate(this::writeQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        snapshotExecutor.shutdown();
+        try {
+            if (!snapshotExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                snapshotExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            snapshotExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (properties.isEnabled()) {
+            writeQuietly();
+        }
+    }
+
+    public synchronized int writeSnapshot() throws IOException {
+        List<CacheSnapshotEntry> entries = cacheService.snapshot(
+                key -> CacheNamespace.of(key).filter(SNAPSHOT_NAMESPACES::contains).isPresent(),
+                properties.getMaxEntries());
+        Set<String> tags = new HashSet<>();
+        entries.forEach(entry -> tags.addAll(entry.tags()));
+        Map<String, Long> fingerprints = sourceFingerprints.read(tags);
+
+        List<CacheSnapshotFile.Record> records = new ArrayList<>(entries.size());
+        for (CacheSnapshotEntry entry : entries) {
+            Map<String, Long> entryFingerprints = new LinkedHashMap<>();
+            for (String tag : entry.tags()) {
+                Long fingerprint = fingerprints.get(tag);
+                if (fingerprint == null) {
+                    // Строка уже удалена, запись не переживёт проверку при загрузке
+                    entryFingerprints = null;
+                    break;
+                }
+                entryFingerprints.put(tag, fingerprint);
+            }
+            byte kind = CacheValueCodec.kindOf(entry.value());
+            if (entryFingerprints != null && kind != CacheValueCodec.UNSUPPORTED_KIND) {
+                records.add(new CacheSnapshotFile.Record(entry.key(), kind, entry.remainingTtlMillis(),
+                        entry.frequency(), entryFingerprints, codec.encode(entry.value())));
+            }
+        }
+        CacheSnapshotFile.write(properties.getPath(), System.currentTimeMillis(), records);
+        LOGGER.info("[CACHE] Snapshot with {} entries written to {}", records.size(), properties.getPath());
+        return records.size();
+    }
+
+    public synchronized int restoreSnapshot() throws IOException {
+        Path path = properties.getPath();
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long epoch = cacheService.invalidationEpoch();
+        CacheSnapshotFile.Snapshot snapshot = CacheSnapshotFile.read(path);
+        long downtime = Math.max(0, System.currentTimeMillis() - snapshot.writtenAtMillis());
+        Set<String> tags = new HashSet<>();
+        snapshot.records().forEach(snapshotRecord -> tags.addAll(snapshotRecord.fingerprints().keySet()));
+        Map<String, Long> fingerprints = sourceFingerprints.read(tags);
+
+        List<CacheSnapshotEntry> entries = new ArrayList<>();
+        int expired = 0;
+        int stale = 0;
+        for (CacheSnapshotFile.Record snapshotRecord : snapshot.records()) {
+            long remainingTtl = snapshotRecord.remainingTtlMillis() - downtime;
+            if (remainingTtl <= 0) {
+                expired++;
+            } else if (!SourceFingerprints.matches(snapshotRecord.fingerprints(), fingerprints)) {
+                stale++;
+            } else {
+                Set<String> entryTags = Set.copyOf(snapshotRecord.fingerprints().keySet());
+                entries.add(new CacheSnapshotEntry(snapshotRecord.key(),
+                        codec.decode(snapshotRecord.kind(), snapshotRecord.value(), entryTags),
+                        entryTags, remainingTtl, snapshotRecord.frequency()));
+            }
+        }
+        int restored = cacheService.restore(entries, epoch);
+        LOGGER.info("[CACHE] Restored {} entries from snapshot, {} expired, {} changed in database",
+                restored, expired, stale);
+        return restored;
+    }
+
+    private void writeQuietly() {
+        try {
+            writeSnapshot();
+        } catch (Exception e) {
+            LOGGER.warn("[CACHE] Failed to write cache snapshot", e);
+        }
+    }
+
+    private void restoreQuietly() {
+        try {
+            restoreSnapshot();
+        } catch (Exception e) {
+            LOGGER.warn("[CACHE] Failed to restore cache snapshot, starting cold", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Lock-free per-namespace counters. Keys outside every {@link CacheNamespace} are counted
+ * under {@link #OTHER}.
+ */
+final class CacheStatistics {
+    static final String OTHER = "other";
+
+    private final Counters[] counters = new Counters[CacheNamespace.values().length + 1];
+
+    CacheStatistics() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new Counters();
+        }
+    }
+
+    void recordHit(String key) {
+        countersFor(key).hits.increment();
+    }
+
+    void recordMiss(String key) {
+        countersFor(key).misses.increment();
+    }
+
+    void recordOffHeapHit(String key) {
+        countersFor(key).offHeapHits.increment();
+    }
+
+    void recordNegativeHit(String key) {
+        countersFor(key).negativeHits.increment();
+    }
+
+    void recordLoad(String key, long nanos) {
+        Counters namespace = countersFor(key);
+        namespace.loads.increment();
+        namespace.loadTimeNanos.add(nanos);
+    }
+
+    void recordFailedLoad(String key) {
+        countersFor(key).failedLoads.increment();
+    }
+
+    void recordRefresh(String key) {
+        countersFor(key).refreshes.increment();
+    }
+
+    void recordFailedRefresh(String key) {
+        countersFor(key).failedRefreshes.increment();
+    }
+
+    void recordRemoval(String key, RemovalCause cause) {
+        countersFor(key).removals[cause.ordinal()].increment();
+    }
+
+    long loads() {
+        return sum(counters -> counters.loads);
+    }
+
+    long failedLoads() {
+        return sum(counters -> counters.failedLoads);
+    }
+
+    long refreshes() {
+        return sum(counters -> counters.refreshes);
+    }
+
+    long failedRefreshes() {
+        return sum(counters -> counters.failedRefreshes);
+    }
+
+    long negativeHits() {
+        return sum(counters -> counters.negativeHits);
+    }
+
+    Map<String, CacheStats.NamespaceStats> snapshot() {
+        Map<String, CacheStats.NamespaceStats> namespaces = new LinkedHashMap<>();
+        for (CacheNamespace namespace : CacheNamespace.values()) {
+            namespaces.put(namespace.getPrefix(), counters[namespace.ordinal()].snapshot());
+        }
+        namespaces.put(OTHER, counters[counters.length - 1].snapshot());
+        return namespaces;
+    }
+
+    private Counters countersFor(String key) {
+        return CacheNamespace.of(key)
+                .map(namespace -> counters[namespace.ordinal()])
+                .orElse(counters[counters.length - 1]);
+    }
+
+    private long sum(Function<Counters, LongAdder> counter) {
+        long sum = 0;
+        for (Counters namespace : counters) {
+            sum += counter.apply(namespace).sum();
+        }
+        return sum;
+    }
+
+    private static final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder offHeapHits = new LongAdder();
+        private final LongAdder negativeHits = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+        private final LongAdder failedLoads = new LongAdder();
+        private final LongAdder loadTimeNanos = new LongAdder();
+        private final LongAdder refreshes = new LongAdder();
+        private final LongAdder failedRefreshes = new LongAdder();
+        private final LongAdder[] removals = new LongAdder[RemovalCause.values().length];
+
+        Counters() {
+            for (int i = 0; i < removals.length; i++) {
+                removals[i] = new LongAdder();
+            }
+        }
+
+        CacheStats.NamespaceStats snapshot() {
+            Map<RemovalCause, Long> evictions = new EnumMap<>(RemovalCause.class);
+            for (RemovalCause cause : RemovalCause.values()) {
+                if (cause != RemovalCause.EXPLICIT) {
+                    evictions.put(cause, removals[cause.ordinal()].sum());
+                }
+            }
+            long hitCount = hits.sum();
+            long requests = hitCount + misses.sum();
+            long loadCount = loads.sum();
+            return new CacheStats.NamespaceStats(hitCount, requests - hitCount,
+                    requests == 0 ? 0 : (double) hitCount / requests, offHeapHits.sum(), negativeHits.sum(),
+                    loadCount, failedLoads.sum(),
+                    loadCount == 0 ? 0 : loadTimeNanos.sum() / (double) TimeUnit.MILLISECONDS.toNanos(1) / loadCount,
+                    refreshes.sum(), failedRefreshes.sum(), evictions,
+                    removals[RemovalCause.EXPLICIT.ordinal()].sum());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.Map;
+
+/**
+ * Point-in-time cache report. {@code size} and {@code weight} cover the heap tier only; the
+ * weight is in bytes for a weight-bounded cache and the number of entries otherwise.
+ * {@code namespaces} is keyed by key prefix. {@code gc} sums all collectors of the JVM, to compare runs with and without the
+ * off-heap tier.
+ */
+public record CacheStats(int size, long weight, OffHeapStats offHeap, GcStats gc, CacheService.LoadStats loads,
+                         Map<String, NamespaceStats> namespaces) {
+
+    public record OffHeapStats(boolean enabled, int size, long usedBytes, long capacityBytes) {
+    }
+
+    public record GcStats(long collections, long collectionTimeMillis) {
+    }
+
+    /**
+     * {@code evictions} are removals made by the cache itself; {@code invalidations} are
+     * entries dropped by explicit invalidation. {@code offHeapHits} are the hits served from the
+     * off-heap tier.
+     */
+    public record NamespaceStats(long hits, long misses, double hitRate, long offHeapHits, long negativeHits,
+                                 long loads, long failedLoads, double averageLoadMillis,
+                                 long refreshes, long failedRefreshes,
+                                 Map<RemovalCause, Long> evictions, long invalidations) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index tag → cache keys. Tags are tracked per stored entry rather than per key:
+ * every entry carries its own {@link Registration}, registered before the entry is stored and
+ * unregistered when that entry leaves the cache. Removing an old entry of a key (expiry, a
+ * dropped demotion) therefore never unregisters a newer entry of the same key, so an
+ * invalidation racing with a put can at worst evict an entry too early, never leave it
+ * unreachable by its tags.
+ */
+class CacheTagIndex {
+    private final ConcurrentHashMap<String, Set<Registration>> registrationsByTag = new ConcurrentHashMap<>();
+
+    void register(Registration registration, Collection<String> tags) {
+        for (String tag : tags) {
+            registrationsByTag.compute(tag, (t, registrations) -> {
+                Set<Registration> result = registrations != null ? registrations : ConcurrentHashMap.newKeySet();
+                result.add(registration);
+                return result;
+            });
+        }
+    }
+
+    void unregister(Registration registration, Collection<String> tags) {
+        for (String tag : tags) {
+            registrationsByTag.computeIfPresent(tag, (t, registrations) -> {
+                registrations.remove(registration);
+                return registrations.isEmpty() ? null : registrations;
+            });
+        }
+    }
+
+    List<String> keysFor(String tag) {
+        Set<Registration> registrations = registrationsByTag.get(tag);
+        return registrations == null
+                ? List.of()
+                : registrations.stream().map(Registration::key).distinct().toList();
+    }
+
+    int tagCount() {
+        return registrationsByTag.size();
+    }
+
+    /**
+     * Identity of one stored entry of {@code key}; compared by reference, so two entries of the
+     * same key never share a registration.
+     */
+    static final class Registration {
+        private final String key;
+
+        Registration(String key) {
+            this.key = key;
+        }
+
+        String key() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.javasocialnetwork.cache;
+
+import com.example.javasocialnetwork.dto.GroupDto;
+import com.example.javasocialnetwork.dto.GroupWithUsersDto;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public final class CacheTags {
+    public static final String POST_CONTENT_SEARCH = "search:post-content";
+    public static final String USER_PREFIX = "user:";
+    public static final String POSTS_PREFIX = "posts:";
+    public static final String GROUP_PREFIX = "group:";
+
+    private CacheTags() {
+    }
+
+    // Профиль пользователя: имя и членство в группах
+    public static String user(Long userId) {
+        return USER_PREFIX + userId;
+    }
+
+    // Посты пользователя
+    public static String userPosts(Long userId) {
+        return POSTS_PREFIX + userId;
+    }
+
+    public static String group(Long groupId) {
+        return GROUP_PREFIX + groupId;
+    }
+
+    public static Set<String> forUser(UserWithPostsAndGroupsDto dto) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(user(dto.getId()));
+        tags.add(userPosts(dto.getId()));
+        for (GroupDto group : dto.getGroups()) {
+            tags.add(group(group.getId()));
+        }
+        return tags;
+    }
+
+    public static Set<String> forGroup(GroupWithUsersDto dto) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(group(dto.getId()));
+        for (UserDto user : dto.getUsers()) {
+            tags.add(user(user.getId()));
+        }
+        return tags;
+    }
+
+    public static Set<String> forPostContentSearch(Collection<UserWithPostsAndGroupsDto> users) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(POST_CONTENT_SEARCH);
+        users.forEach(user -> tags.addAll(forUser(user)));
+        return tags;
+    }
+
+    public static List<String> forUserPosts(Long userId) {
+        return List.of(userPosts(userId));
+    }
+
+    // Идентификатор сущности из тега вида "user:42", если тег с этим префиксом
+    public static Optional<Long> idOf(String tag, String prefix) {
+        if (!tag.startsWith(prefix)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(tag.substring(prefix.length())));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
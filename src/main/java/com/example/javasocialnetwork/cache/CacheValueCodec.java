@@ -0,0 +1,70 @@
+package com.example.javasocialnetwork.cache;
+
+import com.example.javasocialnetwork.dto.GroupWithUsersDto;
+import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Binary form of the cache values that can leave the heap: user and group DTOs as JSON and
+ * {@link JsonPayload}s as their raw body. The kind is stored next to the bytes by the caller.
+ */
+final class CacheValueCodec {
+    static final byte UNSUPPORTED_KIND = 0;
+    static final byte USER_KIND = 1;
+    static final byte GROUP_KIND = 2;
+    static final byte JSON_PAYLOAD_KIND = 3;
+
+    private final ObjectMapper objectMapper;
+
+    CacheValueCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    static byte kindOf(Object value) {
+        if (value instanceof UserWithPostsAndGroupsDto) {
+            return USER_KIND;
+        }
+        if (value instanceof GroupWithUsersDto) {
+            return GROUP_KIND;
+        }
+        if (value instanceof JsonPayload) {
+            return JSON_PAYLOAD_KIND;
+        }
+        return UNSUPPORTED_KIND;
+    }
+
+    byte[] encode(Object value) throws IOException {
+        if (value instanceof JsonPayload payload) {
+            byte[] etag = payload.etag().getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(1 + Integer.BYTES + etag.length + payload.body().length)
+                    .put((byte) (payload.gzipped() ? 1 : 0))
+                    .putInt(etag.length)
+                    .put(etag)
+                    .put(payload.body())
+                    .array();
+        }
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    // Теги JsonPayload не сериализуются, их хранит владелец записи
+    Object decode(byte kind, byte[] value, Set<String> tags) throws IOException {
+        return switch (kind) {
+            case USER_KIND -> objectMapper.readValue(value, UserWithPostsAndGroupsDto.class);
+            case GROUP_KIND -> objectMapper.readValue(value, GroupWithUsersDto.class);
+            case JSON_PAYLOAD_KIND -> {
+                ByteBuffer buffer = ByteBuffer.wrap(value);
+                boolean gzipped = buffer.get() == 1;
+                byte[] etag = new byte[buffer.getInt()];
+                buffer.get(etag);
+                byte[] body = new byte[buffer.remaining()];
+                buffer.get(body);
+                yield new JsonPayload(body, gzipped, new String(etag, StandardCharsets.UTF_8), tags);
+            }
+            default -> throw new IOException("Unknown cache value kind: " + kind);
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.javasocialnetwork.cache;
+
+import com.example.javasocialnetwork.dto.GroupDto;
+import com.example.javasocialnetwork.dto.GroupWithUsersDto;
+import com.example.javasocialnetwork.dto.PostDto;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
+import com.example.javasocialnetwork.entity.Post;
+import java.util.Collection;
+
+/**
+ * Approximate heap size in bytes of the values kept in {@link CacheService}, assuming compressed
+ * oops: 16-byte object headers, 4-byte references and strings of about one byte per character.
+ * Unknown value types get {@link #UNKNOWN_VALUE_WEIGHT}.
+ */
+public final class CacheWeigher implements Weigher<String, Object> {
+    static final long UNKNOWN_VALUE_WEIGHT = 1024;
+    // Закешированное отсутствие: исключение со стеком
+    static final long ABSENCE_WEIGHT = 512;
+
+    private static final long OBJECT_HEADER = 16;
+    private static final long REFERENCE = 4;
+    private static final long BOXED_LONG = 16;
+    // Накладные расходы самой записи: узел сегмента, CacheEntry, теги
+    private static final long ENTRY_OVERHEAD = 128;
+
+    @Override
+    public long weigh(String key, Object value) {
+        return ENTRY_OVERHEAD + string(key) + weightOf(value);
+    }
+
+    public static long weightOf(Object value) {
+        if (value instanceof UserWithPostsAndGroupsDto user) {
+            return user(user);
+        }
+        if (value instanceof GroupWithUsersDto group) {
+            return group(group);
+        }
+        if (value instanceof Post post) {
+            return post(post);
+        }
+        if (value instanceof PostDto post) {
+            return OBJECT_HEADER + 2 * REFERENCE + BOXED_LONG + string(post.getContent());
+        }
+        if (value instanceof UserDto user) {
+            return OBJECT_HEADER + 2 * REFERENCE + BOXED_LONG + string(user.getUsername());
+        }
+        if (value instanceof GroupDto group) {
+            return OBJECT_HEADER + 2 * REFERENCE + BOXED_LONG + string(group.getName());
+        }
+        if (value instanceof JsonPayload payload) {
+            return OBJECT_HEADER + 4 * REFERENCE + OBJECT_HEADER + payload.body().length
+                    + string(payload.etag()) + list(payload.tags());
+        }
+        if (value instanceof RuntimeException) {
+            return ABSENCE_WEIGHT;
+        }
+        if (value instanceof String string) {
+            return string(string);
+        }
+        if (value instanceof Collection<?> collection) {
+            long weight = list(collection);
+            for (Object element : collection) {
+                weight += weightOf(element);
+            }
+            return weight;
+        }
+        return UNKNOWN_VALUE_WEIGHT;
+    }
+
+    private static long user(UserWithPostsAndGroupsDto user) {
+        long weight = OBJECT_HEADER + 4 * REFERENCE + BOXED_LONG + string(user.getUsername());
+        if (user.getPosts() != null) {
+            weight += weightOf(user.getPosts());
+        }
+        if (user.getGroups() != null) {
+            weight += weightOf(user.getGroups());
+        }
+        return weight;
+    }
+
+    private static long group(GroupWithUsersDto group) {
+        long weight = OBJECT_HEADER + 3 * REFERENCE + BOXED_LONG + string(group.getName());
+        if (group.getUsers() != null) {
+            weight += weightOf(group.getUsers());
+        }
+        return weight;
+    }
+
+    // Сущность держит ссылку на пользователя, но он учитывается в другой записи
+    private static long post(Post post) {
+        return OBJECT_HEADER + 3 * REFERENCE + BOXED_LONG + string(post.getContent());
+    }
+
+    private static long list(Collection<?> collection) {
+        return OBJECT_HEADER + OBJECT_HEADER + (long) collection.size() * REFERENCE;
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : OBJECT_HEADER + OBJECT_HEADER + value.length();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.javasocialnetwork.cache;
+
+/**
+ * Decides which key of a cache segment leaves first when the segment is over capacity.
+ * All methods are called under the segment lock; {@link #recordAccess} only when the lock
+ * was free, so access history may be lossy under contention.
+ */
+interface EvictionPolicy<K> {
+
+    void recordInsert(K key, long weight);
+
+    void recordAccess(K key);
+
+    void recordRemoval(K key);
+
+    // Оценка частоты обращений для снимка кеша; политики без истории возвращают 0
+    default int frequency(K key) {
+        return 0;
+    }
+
+    /**
+     * Picks a key to evict and forgets it. May be the key that was just inserted if the policy
+     * decides not to admit it.
+     */
+    K evict();
+}
@@ -0,0 +1,18 @@
+package com.example.javasocialnetwork.cache;
+
+public enum EvictionStrategy {
+    LRU {
+        @Override
+        <K> EvictionPolicy<K> create(long capacity) {
+            return new LruPolicy<>();
+        }
+    },
+    W_TINY_LFU {
+        @Override
+        <K> EvictionPolicy<K> create(long capacity) {
+            return new WindowTinyLfuPolicy<>(capacity);
+        }
+    };
+
+    abstract <K> EvictionPolicy<K> create(long capacity);
+}
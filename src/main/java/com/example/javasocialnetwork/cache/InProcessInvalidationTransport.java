@@ -0,0 +1,23 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers batches synchronously to every subscriber in the same JVM. Enough for a single
+ * instance and for tests that run several caches side by side.
+ */
+public class InProcessInvalidationTransport implements CacheInvalidationTransport {
+    private final List<Consumer<InvalidationBatch>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationBatch batch) {
+        subscribers.forEach(subscriber -> subscriber.accept(batch));
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationBatch> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.javasocialnetwork.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Set;
+
+/**
+ * Invalidations made by one instance within one flush interval. {@code origin} identifies the
+ * publishing instance, which skips its own batches.
+ */
+public record InvalidationBatch(String origin, Set<String> keys, Set<String> prefixes, Set<String> tags) {
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return keys.isEmpty() && prefixes.isEmpty() && tags.isEmpty();
+    }
+
+    public int size() {
+        return keys.size() + prefixes.size() + tags.size();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.javasocialnetwork.cache;
+
+// Получает каждую локальную инвалидацию CacheService, см. CacheInvalidationBus
+interface InvalidationListener {
+    InvalidationListener NONE = new InvalidationListener() {
+    };
+
+    default void keyInvalidated(String key) {
+    }
+
+    default void prefixInvalidated(String prefix) {
+    }
+
+    default void tagsInvalidated(String... tags) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.javasocialnetwork.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Pre-encoded UTF-8 JSON response kept in the cache instead of the DTO graph. {@code etag} is a
+ * strong validator computed from the uncompressed JSON; the gzip variant gets its own tag.
+ * {@code tags} are the cache tags of the source DTO, so the payload is invalidated with it.
+ */
+public record JsonPayload(byte[] body, boolean gzipped, String etag, Set<String> tags) {
+
+    public String etagFor(boolean gzipAccepted) {
+        return gzipped && gzipAccepted ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+    }
+
+    public byte[] bodyFor(boolean gzipAccepted) {
+        if (!gzipped || gzipAccepted) {
+            return body;
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cached JSON payload is corrupted", e);
+        }
+    }
+}
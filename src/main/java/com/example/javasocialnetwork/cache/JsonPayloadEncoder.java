@@ -0,0 +1,59 @@
+package com.example.javasocialnetwork.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.stereotype.Component;
+
+@Component
+public class JsonPayloadEncoder {
+    private final ObjectMapper objectMapper;
+    private final CacheProperties properties;
+
+    public JsonPayloadEncoder(ObjectMapper objectMapper, CacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public JsonPayload encode(Object value, Collection<String> tags) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + value.getClass().getSimpleName(), e);
+        }
+        String etag = etag(json);
+        CacheProperties.Json settings = properties.getJson();
+        if (settings.isCompress() && json.length >= settings.getCompressMinSize().toBytes()) {
+            return new JsonPayload(gzip(json), true, etag, Set.copyOf(tags));
+        }
+        return new JsonPayload(json, false, etag, Set.copyOf(tags));
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+class LruPolicy<K> implements EvictionPolicy<K> {
+    private final LinkedHashSet<K> order = new LinkedHashSet<>();
+
+    @Override
+    public void recordInsert(K key, long weight) {
+        order.remove(key);
+        order.add(key);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        if (order.remove(key)) {
+            order.add(key);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        order.remove(key);
+    }
+
+    @Override
+    public K evict() {
+        Iterator<K> iterator = order.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        K eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+}
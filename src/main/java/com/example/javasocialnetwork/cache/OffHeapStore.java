@@ -0,0 +1,304 @@
+package com.example.javasocialnetwork.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Serialized entries kept in direct memory, outside the garbage-collected heap.
+ *
+ * <p>Like {@link SegmentedCache}, keys are spread over lock-striped segments. Each segment owns
+ * one direct {@link ByteBuffer} cut into fixed-size blocks; an entry occupies as many blocks as
+ * its bytes need, and only the block numbers and the caller's metadata stay on heap. Segments
+ * are bounded by their block count and evict with the same {@link EvictionStrategy} as the heap
+ * tier, an entry's weight being its number of blocks.
+ *
+ * <p>Reading an entry removes it ({@link #take}): the caller moves it back to the heap tier, so
+ * a key lives in one tier at a time. The removal listener is called for entries evicted,
+ * expired or removed, not for taken or replaced ones. It runs under the segment lock and must
+ * not call back into the store.
+ */
+class OffHeapStore<M> {
+    private final Segment<M>[] segments;
+    private final int segmentMask;
+    private final int blockSize;
+    private final int blocksPerSegment;
+    private final LongSupplier clock;
+
+    @SuppressWarnings("unchecked")
+    OffHeapStore(long capacityBytes, int blockSize, int concurrencyLevel, EvictionStrategy evictionStrategy,
+                 LongSupplier clock, RemovalListener<String, M> removalListener) {
+        if (blockSize <= 0 || concurrencyLevel <= 0 || capacityBytes < blockSize) {
+            throw new IllegalArgumentException("Off-heap capacity must hold at least one block");
+        }
+        long totalBlocks = capacityBytes / blockSize;
+        int maxSegments = (int) Math.min(concurrencyLevel, totalBlocks);
+        int segmentCount = Integer.highestOneBit(maxSegments);
+        if (segmentCount < maxSegments) {
+            segmentCount <<= 1;
+        }
+        long segmentBlocks = (totalBlocks + segmentCount - 1) / segmentCount;
+        if (segmentBlocks * blockSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap segment exceeds 2 GB, raise the concurrency level");
+        }
+
+        this.blockSize = blockSize;
+        this.blocksPerSegment = (int) segmentBlocks;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(blocksPerSegment, blockSize,
+                    evictionStrategy.create(blocksPerSegment), removalListener);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.clock = clock;
+    }
+
+    // Запись больше сегмента не помещается никогда
+    boolean fits(int length) {
+        return blocksFor(length) <= blocksPerSegment;
+    }
+
+    /**
+     * Stores the bytes until {@code expiresAt} (clock millis), evicting other entries of the
+     * segment if needed. Returns the metadata of the replaced entry, if any.
+     */
+    M put(String key, byte kind, byte[] value, M metadata, long expiresAt) {
+        if (!fits(value.length)) {
+            throw new IllegalArgumentException("Entry of " + value.length + " bytes does not fit a segment");
+        }
+        return segmentFor(key).put(key, kind, value, metadata, expiresAt, blocksFor(value.length),
+                clock.getAsLong());
+    }
+
+    // Забирает запись из хранилища; просроченная запись удаляется с причиной EXPIRED
+    Entry<M> take(String key) {
+        return segmentFor(key).take(key, clock.getAsLong());
+    }
+
+    // Проверяет наличие живой записи, не забирая её и не трогая политику вытеснения
+    boolean contains(String key) {
+        return segmentFor(key).contains(key, clock.getAsLong());
+    }
+
+    boolean remove(String key) {
+        return segmentFor(key).remove(key);
+    }
+
+    int removeIf(Predicate<String> keyPredicate) {
+        int removed = 0;
+        for (Segment<M> segment : segments) {
+            removed += segment.removeIf(keyPredicate);
+        }
+        return removed;
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<M> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    long usedBytes() {
+        long usedBlocks = 0;
+        for (Segment<M> segment : segments) {
+            usedBlocks += blocksPerSegment - segment.freeCount;
+        }
+        return usedBlocks * blockSize;
+    }
+
+    long capacityBytes() {
+        return (long) blocksPerSegment * segments.length * blockSize;
+    }
+
+    private int blocksFor(int length) {
+        return Math.max(1, (length + blockSize - 1) / blockSize);
+    }
+
+    private Segment<M> segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    record Entry<M>(byte kind, byte[] value, M metadata, long expiresAt) {
+    }
+
+    private record Slot<M>(byte kind, int length, int[] blocks, M metadata, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private static final class Segment<M> {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Всё ниже читается и меняется только под lock, кроме счётчиков для статистики
+        private final ByteBuffer buffer;
+        private final int blockSize;
+        private final Map<String, Slot<M>> slots = new HashMap<>();
+        private final int[] freeBlocks;
+        private final EvictionPolicy<String> policy;
+        private final RemovalListener<String, M> removalListener;
+        private long nextSweepAt;
+        private volatile int freeCount;
+        private volatile int size;
+
+        Segment(int blockCount, int blockSize, EvictionPolicy<String> policy,
+                RemovalListener<String, M> removalListener) {
+            this.buffer = ByteBuffer.allocateDirect(blockCount * blockSize);
+            this.blockSize = blockSize;
+            this.policy = policy;
+            this.removalListener = removalListener;
+            this.freeBlocks = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                freeBlocks[i] = blockCount - 1 - i;
+            }
+            this.freeCount = blockCount;
+        }
+
+        M put(String key, byte kind, byte[] value, M metadata, long expiresAt, int blocksNeeded, long now) {
+            lock.lock();
+            try {
+                Slot<M> previous = slots.remove(key);
+                if (previous != null) {
+                    release(previous);
+                    policy.recordRemoval(key);
+                }
+                if (now >= nextSweepAt) {
+                    sweepExpired(now);
+                    // Полный обход не чаще раза в секунду
+                    nextSweepAt = now + 1_000;
+                }
+                // Политика видит новую запись до вытеснения, W-TinyLFU может отклонить её саму
+                policy.recordInsert(key, blocksNeeded);
+                while (freeCount < blocksNeeded) {
+                    String victim = policy.evict();
+                    if (victim == null || victim.equals(key)) {
+                        policy.recordRemoval(key);
+                        removalListener.onRemoval(key, metadata, RemovalCause.SIZE);
+                        return previous == null ? null : previous.metadata();
+                    }
+                    Slot<M> evicted = slots.remove(victim);
+                    if (evicted != null) {
+                        release(evicted);
+                        removalListener.onRemoval(victim, evicted.metadata(), RemovalCause.SIZE);
+                    }
+                }
+
+                int[] blocks = new int[blocksNeeded];
+                for (int i = 0; i < blocksNeeded; i++) {
+                    blocks[i] = freeBlocks[--freeCount];
+                    int offset = i * blockSize;
+                    buffer.put(blocks[i] * blockSize, value, offset, Math.min(blockSize, value.length - offset));
+                }
+                slots.put(key, new Slot<>(kind, value.length, blocks, metadata, expiresAt));
+                size = slots.size();
+                return previous == null ? null : previous.metadata();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Entry<M> take(String key, long now) {
+            lock.lock();
+            try {
+                Slot<M> slot = slots.remove(key);
+                if (slot == null) {
+                    return null;
+                }
+                byte[] value = null;
+                if (!slot.isExpired(now)) {
+                    value = new byte[slot.length()];
+                    for (int i = 0; i < slot.blocks().length; i++) {
+                        int offset = i * blockSize;
+                        buffer.get(slot.blocks()[i] * blockSize, value, offset,
+                                Math.min(blockSize, value.length - offset));
+                    }
+                }
+                release(slot);
+                policy.recordRemoval(key);
+                if (value == null) {
+                    removalListener.onRemoval(key, slot.metadata(), RemovalCause.EXPIRED);
+                    return null;
+                }
+                return new Entry<>(slot.kind(), value, slot.metadata(), slot.expiresAt());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean contains(String key, long now) {
+            lock.lock();
+            try {
+                Slot<M> slot = slots.get(key);
+                return slot != null && !slot.isExpired(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean remove(String key) {
+            lock.lock();
+            try {
+                Slot<M> slot = slots.remove(key);
+                if (slot == null) {
+                    return false;
+                }
+                release(slot);
+                policy.recordRemoval(key);
+                removalListener.onRemoval(key, slot.metadata(), RemovalCause.EXPLICIT);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int removeIf(Predicate<String> keyPredicate) {
+            lock.lock();
+            try {
+                List<String> matched = new ArrayList<>();
+                for (String key : slots.keySet()) {
+                    if (keyPredicate.test(key)) {
+                        matched.add(key);
+                    }
+                }
+                for (String key : matched) {
+                    Slot<M> slot = slots.remove(key);
+                    release(slot);
+                    policy.recordRemoval(key);
+                    removalListener.onRemoval(key, slot.metadata(), RemovalCause.EXPLICIT);
+                }
+                return matched.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void sweepExpired(long now) {
+            Iterator<Map.Entry<String, Slot<M>>> iterator = slots.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Slot<M>> entry = iterator.next();
+                if (entry.getValue().isExpired(now)) {
+                    iterator.remove();
+                    release(entry.getValue());
+                    policy.recordRemoval(entry.getKey());
+                    removalListener.onRemoval(entry.getKey(), entry.getValue().metadata(), RemovalCause.EXPIRED);
+                }
+            }
+        }
+
+        private void release(Slot<M> slot) {
+            for (int block : slot.blocks()) {
+                freeBlocks[freeCount++] = block;
+            }
+            size = slots.size();
+        }
+    }
+}
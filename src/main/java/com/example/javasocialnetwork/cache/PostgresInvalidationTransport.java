@@ -0,0 +1,132 @@
+package com.example.javasocialnetwork.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Outbox table in the shared PostgreSQL database: {@link #publish} inserts a row, and every
+ * instance polls for rows newer than the previous poll.
+ *
+ * <p>Rows are selected by {@code created_at}, re-reading a short window before the last seen
+ * row, because a row can commit after a newer one and must not be skipped. Rows already
+ * delivered are remembered by id for the length of that window. Rows older than
+ * {@code cache.bus.retention} are deleted.
+ */
+public class PostgresInvalidationTransport implements CacheInvalidationTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostgresInvalidationTransport.class);
+    private static final Duration COMMIT_LAG = Duration.ofSeconds(5);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final List<Consumer<InvalidationBatch>> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService pollExecutor = Executors.newSingleThreadScheduledExecutor();
+    // Используются только потоком опроса
+    private final Map<Long, Timestamp> deliveredIds = new HashMap<>();
+    private Timestamp lastSeen;
+
+    public PostgresInvalidationTransport(NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                         CacheProperties.Bus properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.retention = properties.getRetention();
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE IF NOT EXISTS cache_invalidation_outbox (
+                    id BIGSERIAL PRIMARY KEY,
+                    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+                    payload TEXT NOT NULL
+                )""");
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE INDEX IF NOT EXISTS cache_invalidation_outbox_created_at
+                    ON cache_invalidation_outbox (created_at)""");
+        // Пропущенное до старта уже не в кеше этого экземпляра
+        this.lastSeen = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT now()", Timestamp.class);
+
+        long pollInterval = properties.getPollInterval().toMillis();
+        pollExecutor.scheduleWithFixedDelay(this::pollQuietly, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        long cleanupInterval = retention.toMillis();
+        pollExecutor.scheduleWithFixedDelay(this::cleanupQuietly, cleanupInterval, cleanupInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(InvalidationBatch batch) {
+        try {
+            jdbcTemplate.update("INSERT INTO cache_invalidation_outbox (payload) VALUES (:payload)",
+                    Map.of("payload", objectMapper.writeValueAsString(batch)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize invalidation batch", e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationBatch> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void close() {
+        pollExecutor.shutdownNow();
+    }
+
+    void poll() {
+        Timestamp since = new Timestamp(lastSeen.getTime() - COMMIT_LAG.toMillis());
+        jdbcTemplate.query(
+                "SELECT id, created_at, payload FROM cache_invalidation_outbox "
+                        + "WHERE created_at >= :since ORDER BY created_at, id",
+                Map.of("since", since),
+                rs -> {
+                    long id = rs.getLong(1);
+                    Timestamp createdAt = rs.getTimestamp(2);
+                    if (deliveredIds.putIfAbsent(id, createdAt) != null) {
+                        return;
+                    }
+                    if (createdAt.after(lastSeen)) {
+                        lastSeen = createdAt;
+                    }
+                    deliver(id, rs.getString(3));
+                });
+        deliveredIds.values().removeIf(createdAt -> createdAt.before(since));
+    }
+
+    private void deliver(long id, String payload) {
+        InvalidationBatch batch;
+        try {
+            batch = objectMapper.readValue(payload, InvalidationBatch.class);
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("[CACHE] Skipping unreadable invalidation batch {}", id, e);
+            return;
+        }
+        subscribers.forEach(subscriber -> subscriber.accept(batch));
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (Exception e) {
+            LOGGER.warn("[CACHE] Failed to poll cache invalidations", e);
+        }
+    }
+
+    private void cleanupQuietly() {
+        try {
+            jdbcTemplate.update("DELETE FROM cache_invalidation_outbox WHERE created_at < :before",
+                    Map.of("before", new Timestamp(System.currentTimeMillis() - retention.toMillis())));
+        } catch (Exception e) {
+            LOGGER.warn("[CACHE] Failed to clean up cache invalidation outbox", e);
+        }
+    }
+}
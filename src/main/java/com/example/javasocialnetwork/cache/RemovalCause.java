@@ -0,0 +1,11 @@
+package com.example.javasocialnetwork.cache;
+
+public enum RemovalCause {
+    // Вытеснена политикой при переполнении сегмента
+    SIZE,
+    EXPIRED,
+    // Запись тяжелее всего сегмента
+    OVERSIZED,
+    // Инвалидация или явное удаление
+    EXPLICIT
+}
@@ -0,0 +1,6 @@
+package com.example.javasocialnetwork.cache;
+
+@FunctionalInterface
+interface RemovalListener<K, V> {
+    void onRemoval(K key, V value, RemovalCause cause);
+}
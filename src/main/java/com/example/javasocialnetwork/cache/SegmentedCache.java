@@ -0,0 +1,328 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Lock-striped cache storage.
+ *
+ * <p>Keys are spread over independent segments. Reads go straight to the segment's
+ * {@link ConcurrentHashMap} and never block; accesses are reported to the segment's
+ * {@link EvictionPolicy} only if the segment lock is free at that moment. Writes, evictions and
+ * expiry sweeps lock a single segment, never the whole cache.
+ *
+ * <p>Segments are bounded by the total weight of their entries. An entry heavier than a whole
+ * segment is not stored at all.
+ *
+ * <p>The removal listener is called for every entry that leaves the cache (eviction, expiry,
+ * explicit removal or rejection as oversized) but not for values replaced by {@link #put},
+ * which returns them instead.
+ * It runs under the segment lock and must not call back into the cache.
+ */
+class SegmentedCache<K, V> {
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Weigher<? super K, ? super V> weigher;
+
+    SegmentedCache(int maxSize, int concurrencyLevel, long ttlMillis, LongSupplier clock) {
+        this(maxSize, concurrencyLevel, ttlMillis, clock, EvictionStrategy.LRU, (key, value, cause) -> { });
+    }
+
+    SegmentedCache(int maxSize, int concurrencyLevel, long ttlMillis, LongSupplier clock,
+                   EvictionStrategy evictionStrategy, RemovalListener<K, V> removalListener) {
+        this(maxSize, concurrencyLevel, ttlMillis, clock, evictionStrategy, Weigher.singleton(), removalListener);
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of its entries; with {@link Weigher#singleton()}
+     * the weight is the number of entries.
+     */
+    @SuppressWarnings("unchecked")
+    SegmentedCache(long maxWeight, int concurrencyLevel, long ttlMillis, LongSupplier clock,
+                   EvictionStrategy evictionStrategy, Weigher<? super K, ? super V> weigher,
+                   RemovalListener<K, V> removalListener) {
+        if (maxWeight <= 0 || concurrencyLevel <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Cache size, concurrency level and TTL must be positive");
+        }
+        int maxSegments = (int) Math.min(concurrencyLevel, maxWeight);
+        int segmentCount = Integer.highestOneBit(maxSegments);
+        if (segmentCount < maxSegments) {
+            segmentCount <<= 1;
+        }
+        long segmentCapacity = (maxWeight + segmentCount - 1) / segmentCount;
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity, ttlMillis,
+                    evictionStrategy.create(segmentCapacity), removalListener);
+        }
+        this.weigher = weigher;
+        this.segmentMask = segmentCount - 1;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        Node<K, V> node = segment.map.get(key);
+        if (node == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (node.isExpired(now)) {
+            segment.remove(key, node, RemovalCause.EXPIRED);
+            return null;
+        }
+        segment.recordAccess(key);
+        return node.value;
+    }
+
+    V put(K key, V value) {
+        return put(key, value, ttlMillis);
+    }
+
+    V put(K key, V value, long entryTtlMillis) {
+        long now = clock.getAsLong();
+        long weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative: " + weight);
+        }
+        Node<K, V> previous = segmentFor(key).put(new Node<>(key, value, weight, now + entryTtlMillis), now);
+        return previous == null ? null : previous.value;
+    }
+
+    /**
+     * Stores a value restored from a snapshot and replays its access frequency into the
+     * eviction policy.
+     */
+    V restore(K key, V value, long entryTtlMillis, int frequency) {
+        V previous = put(key, value, entryTtlMillis);
+        segmentFor(key).recordAccesses(key, frequency);
+        return previous;
+    }
+
+    // Обходит живые записи сегмент за сегментом, каждый под своей блокировкой
+    void forEach(EntryVisitor<K, V> visitor) {
+        long now = clock.getAsLong();
+        for (Segment<K, V> segment : segments) {
+            segment.forEach(visitor, now);
+        }
+    }
+
+    boolean remove(K key) {
+        return segmentFor(key).remove(key, null, RemovalCause.EXPLICIT);
+    }
+
+    int removeIf(Predicate<K> keyPredicate) {
+        int removed = 0;
+        for (Segment<K, V> segment : segments) {
+            removed += segment.removeIf(keyPredicate);
+        }
+        return removed;
+    }
+
+    void clear() {
+        removeIf(key -> true);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.map.size();
+        }
+        return size;
+    }
+
+    long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            weight += segment.weight;
+        }
+        return weight;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    @FunctionalInterface
+    interface EntryVisitor<K, V> {
+        void visit(K key, V value, long remainingTtlMillis, int frequency);
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final long weight;
+        private final long expiresAt;
+
+        Node(K key, V value, long weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        // Читается и меняется только под lock
+        private final EvictionPolicy<K> policy;
+        private final long capacity;
+        private final long sweepIntervalMillis;
+        private final RemovalListener<K, V> removalListener;
+        private long nextSweepAt;
+        // Меняется под lock, читается без него только для статистики
+        private volatile long weight;
+
+        Segment(long capacity, long ttlMillis, EvictionPolicy<K> policy, RemovalListener<K, V> removalListener) {
+            this.capacity = capacity;
+            this.policy = policy;
+            this.sweepIntervalMillis = Math.max(1, ttlMillis / 4);
+            this.removalListener = removalListener;
+        }
+
+        void recordAccess(K key) {
+            if (lock.tryLock()) {
+                try {
+                    policy.recordAccess(key);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void recordAccesses(K key, int count) {
+            lock.lock();
+            try {
+                if (map.containsKey(key)) {
+                    for (int i = 0; i < count; i++) {
+                        policy.recordAccess(key);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void forEach(EntryVisitor<K, V> visitor, long now) {
+            lock.lock();
+            try {
+                for (Node<K, V> node : map.values()) {
+                    if (!node.isExpired(now)) {
+                        visitor.visit(node.key, node.value, node.expiresAt - now, policy.frequency(node.key));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Node<K, V> put(Node<K, V> node, long now) {
+            lock.lock();
+            try {
+                if (node.weight > capacity) {
+                    // Запись тяжелее всего сегмента не кешируется, старое значение тоже уходит
+                    remove(node.key, null, RemovalCause.OVERSIZED);
+                    removalListener.onRemoval(node.key, node.value, RemovalCause.OVERSIZED);
+                    return null;
+                }
+                Node<K, V> previous = map.put(node.key, node);
+                weight += node.weight - (previous == null ? 0 : previous.weight);
+                policy.recordInsert(node.key, node.weight);
+                if (now >= nextSweepAt) {
+                    sweepExpired(now);
+                    nextSweepAt = now + sweepIntervalMillis;
+                }
+                evictOverflow();
+                return previous;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean remove(K key, Node<K, V> expected, RemovalCause cause) {
+            lock.lock();
+            try {
+                Node<K, V> current = map.get(key);
+                if (current == null || (expected != null && current != expected)) {
+                    return false;
+                }
+                map.remove(key);
+                weight -= current.weight;
+                policy.recordRemoval(key);
+                removalListener.onRemoval(key, current.value, cause);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int removeIf(Predicate<K> keyPredicate) {
+            lock.lock();
+            try {
+                List<K> matched = new ArrayList<>();
+                for (K key : map.keySet()) {
+                    if (keyPredicate.test(key)) {
+                        matched.add(key);
+                    }
+                }
+                for (K key : matched) {
+                    Node<K, V> removed = map.remove(key);
+                    weight -= removed.weight;
+                    policy.recordRemoval(key);
+                    removalListener.onRemoval(key, removed.value, RemovalCause.EXPLICIT);
+                }
+                return matched.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void sweepExpired(long now) {
+            Iterator<Map.Entry<K, Node<K, V>>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Node<K, V>> entry = iterator.next();
+                if (entry.getValue().isExpired(now)) {
+                    iterator.remove();
+                    weight -= entry.getValue().weight;
+                    policy.recordRemoval(entry.getKey());
+                    removalListener.onRemoval(entry.getKey(), entry.getValue().value, RemovalCause.EXPIRED);
+                }
+            }
+        }
+
+        private void evictOverflow() {
+            while (weight > capacity) {
+                K victim = policy.evict();
+                if (victim == null) {
+                    return;
+                }
+                Node<K, V> evicted = map.remove(victim);
+                if (evicted != null) {
+                    weight -= evicted.weight;
+                    removalListener.onRemoval(victim, evicted.value, RemovalCause.SIZE);
+                }
+            }
+        }
+    }
+}
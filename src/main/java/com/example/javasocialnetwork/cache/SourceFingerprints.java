@@ -0,0 +1,101 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads a fingerprint of the rows behind each cache tag, so a snapshot entry can be checked
+ * against the database after a restart:
+ * <ul>
+ *     <li>{@code user:{id}} — the user's change counter, group count and sum of group ids;</li>
+ *     <li>{@code posts:{id}} — count, max id, sum of ids and change counters of the user's posts;</li>
+ *     <li>{@code group:{id}} — the group's change counter, member count and sum of member ids.</li>
+ * </ul>
+ * The change counter is the plain {@code version} column bumped on every update, not a JPA
+ * {@code @Version}, so writes are never rejected by optimistic locking.
+ * Tags of deleted rows and of other kinds are absent from the result.
+ */
+@Component
+public class SourceFingerprints {
+    private static final int CHUNK_SIZE = 1_000;
+    private static final String IDS = "ids";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public SourceFingerprints(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<String, Long> read(Collection<String> tags) {
+        List<Long> userIds = new ArrayList<>();
+        List<Long> postOwnerIds = new ArrayList<>();
+        List<Long> groupIds = new ArrayList<>();
+        for (String tag : tags) {
+            CacheTags.idOf(tag, CacheTags.USER_PREFIX).ifPresent(userIds::add);
+            CacheTags.idOf(tag, CacheTags.POSTS_PREFIX).ifPresent(postOwnerIds::add);
+            CacheTags.idOf(tag, CacheTags.GROUP_PREFIX).ifPresent(groupIds::add);
+        }
+
+        Map<String, Long> fingerprints = new HashMap<>();
+        // Членство не меняет строку users, поэтому группы пользователя учитываются отдельно
+        forEachChunk(userIds, ids -> jdbcTemplate.query(
+                "SELECT u.id, u.version, COUNT(ug.group_id), COALESCE(SUM(ug.group_id), 0) FROM users u "
+                        + "LEFT JOIN user_groups ug ON ug.user_id = u.id "
+                        + "WHERE u.id IN (:ids) GROUP BY u.id, u.version",
+                Map.of(IDS, ids),
+                rs -> {
+                    fingerprints.put(CacheTags.user(rs.getLong(1)),
+                            hash(rs.getLong(2), rs.getLong(3), rs.getLong(4), 0));
+                }));
+        forEachChunk(postOwnerIds, ids -> {
+            // Пользователь без постов тоже валиден: отпечаток пустого списка
+            ids.forEach(id -> fingerprints.put(CacheTags.userPosts(id), hash(0, 0, 0, 0)));
+            jdbcTemplate.query(
+                    "SELECT user_id, COUNT(*), MAX(id), SUM(id), SUM(version) FROM posts "
+                            + "WHERE user_id IN (:ids) GROUP BY user_id",
+                    Map.of(IDS, ids),
+                    rs -> {
+                        fingerprints.put(CacheTags.userPosts(rs.getLong(1)),
+                                hash(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+                    });
+        });
+        // groups — ключевое слово в H2; в кавычках имя одинаково разрешается и там, и в PostgreSQL
+        forEachChunk(groupIds, ids -> jdbcTemplate.query(
+                "SELECT g.id, g.version, COUNT(ug.user_id), COALESCE(SUM(ug.user_id), 0) FROM \"groups\" g "
+                        + "LEFT JOIN user_groups ug ON ug.group_id = g.id "
+                        + "WHERE g.id IN (:ids) GROUP BY g.id, g.version",
+                Map.of(IDS, ids),
+                rs -> {
+                    fingerprints.put(CacheTags.group(rs.getLong(1)),
+                            hash(rs.getLong(2), rs.getLong(3), rs.getLong(4), 0));
+                }));
+        return fingerprints;
+    }
+
+    // Все теги записи должны совпасть; отсутствующий в базе тег делает запись устаревшей
+    public static boolean matches(Map<String, Long> expected, Map<String, Long> actual) {
+        for (Map.Entry<String, Long> fingerprint : expected.entrySet()) {
+            if (!Objects.equals(fingerprint.getValue(), actual.get(fingerprint.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(long a, long b, long c, long d) {
+        return ((a * 31 + b) * 31 + c) * 31 + d;
+    }
+
+    private static void forEachChunk(List<Long> ids, Consumer<List<Long>> action) {
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            action.accept(ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE)));
+        }
+    }
+}
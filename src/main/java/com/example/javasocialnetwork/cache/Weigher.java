@@ -0,0 +1,15 @@
+package com.example.javasocialnetwork.cache;
+
+/**
+ * Estimates how much of the cache budget an entry takes, e.g. its approximate heap size in bytes.
+ * Called once when the entry is stored; the result must not be negative.
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    long weigh(K key, V value);
+
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
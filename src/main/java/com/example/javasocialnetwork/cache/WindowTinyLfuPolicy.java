@@ -0,0 +1,144 @@
+package com.example.javasocialnetwork.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Window TinyLFU: new keys enter a small LRU window (about 1% of the capacity); keys pushed out
+ * of the window compete with the eldest key of the main region and are admitted only if the
+ * frequency sketch has seen them more often. The main region is a segmented LRU: keys read again
+ * while on probation move to the protected part (80% of the main region).
+ *
+ * <p>A burst of keys that are read once, like a scan of distinct search terms, is absorbed by
+ * the window and does not displace frequently read entries. Capacities are in weight units.
+ */
+class WindowTinyLfuPolicy<K> implements EvictionPolicy<K> {
+    // Скетч рассчитан на число записей, а не на вес, поэтому его размер ограничен
+    private static final int MAX_SKETCH_ENTRIES = 1 << 14;
+
+    private final FrequencySketch<K> sketch;
+    private final long capacity;
+    private final long windowCapacity;
+    private final long protectedCapacity;
+    private final Region<K> window = new Region<>();
+    private final Region<K> probation = new Region<>();
+    private final Region<K> protectedKeys = new Region<>();
+    private final Map<K, Region<K>> regions = new HashMap<>();
+    private long weight;
+
+    WindowTinyLfuPolicy(long capacity) {
+        this.sketch = new FrequencySketch<>((int) Math.min(capacity, MAX_SKETCH_ENTRIES));
+        this.capacity = capacity;
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.protectedCapacity = (capacity - windowCapacity) * 8 / 10;
+    }
+
+    @Override
+    public void recordInsert(K key, long keyWeight) {
+        sketch.increment(key);
+        Region<K> region = regions.get(key);
+        if (region != null) {
+            // Перезапись существующего ключа считается обращением
+            weight -= region.remove(key);
+            weight += keyWeight;
+            region.add(key, keyWeight);
+            touch(key, region);
+            return;
+        }
+        window.add(key, keyWeight);
+        regions.put(key, window);
+        weight += keyWeight;
+        // Пока кеш не заполнен, вытесненные из окна ключи уходят в основную область без отбора
+        while (window.weight > windowCapacity && window.size() > 1 && weight <= capacity) {
+            move(window.eldest(), probation);
+        }
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        sketch.increment(key);
+        Region<K> region = regions.get(key);
+        if (region != null) {
+            touch(key, region);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        Region<K> region = regions.remove(key);
+        if (region != null) {
+            weight -= region.remove(key);
+        }
+    }
+
+    @Override
+    public int frequency(K key) {
+        return sketch.frequency(key);
+    }
+
+    @Override
+    public K evict() {
+        K candidate = window.weight > windowCapacity ? window.eldest() : null;
+        K victim = probation.size() > 0 ? probation.eldest() : protectedKeys.eldest();
+
+        K evicted;
+        if (candidate != null && victim != null && sketch.frequency(candidate) > sketch.frequency(victim)) {
+            evicted = victim;
+            move(candidate, probation);
+        } else if (candidate != null) {
+            evicted = candidate;
+        } else {
+            evicted = victim != null ? victim : window.eldest();
+        }
+        if (evicted != null) {
+            recordRemoval(evicted);
+        }
+        return evicted;
+    }
+
+    private void touch(K key, Region<K> region) {
+        if (region == probation) {
+            move(key, protectedKeys);
+            while (protectedKeys.weight > protectedCapacity && protectedKeys.size() > 1) {
+                move(protectedKeys.eldest(), probation);
+            }
+        } else {
+            region.add(key, region.remove(key));
+        }
+    }
+
+    private void move(K key, Region<K> target) {
+        target.add(key, regions.get(key).remove(key));
+        regions.put(key, target);
+    }
+
+    private static final class Region<K> {
+        private final LinkedHashMap<K, Long> weights = new LinkedHashMap<>();
+        private long weight;
+
+        void add(K key, long keyWeight) {
+            weights.put(key, keyWeight);
+            weight += keyWeight;
+        }
+
+        long remove(K key) {
+            Long removed = weights.remove(key);
+            if (removed == null) {
+                return 0;
+            }
+            weight -= removed;
+            return removed;
+        }
+
+        K eldest() {
+            Iterator<K> iterator = weights.keySet().iterator();
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        int size() {
+            return weights.size();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.javasocialnetwork.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Timeout of asynchronous requests. Streamed exports write their body after the handler returns
+ * and can take far longer than the servlet container's default of 30 seconds.
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+    private final Duration requestTimeout;
+
+    public AsyncRequestConfig(@Value("${export.request-timeout:PT1H}") Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(requestTimeout.toMillis());
+    }
+}
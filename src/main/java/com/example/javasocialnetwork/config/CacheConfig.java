@@ -0,0 +1,44 @@
+package com.example.javasocialnetwork.config;
+
+import com.example.javasocialnetwork.cache.BoundedCacheRefresher;
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.cache.CacheInvalidationTransport;
+import com.example.javasocialnetwork.cache.CacheProperties;
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.InProcessInvalidationTransport;
+import com.example.javasocialnetwork.cache.PostgresInvalidationTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class CacheConfig {
+
+    // Загрузчики обходят ленивые коллекции, поэтому фоновое обновление идёт в транзакции
+    @Bean(destroyMethod = "shutdown")
+    public BoundedCacheRefresher cacheRefresher(CacheProperties properties,
+                                                PlatformTransactionManager transactionManager) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return new BoundedCacheRefresher(
+                properties.getRefreshThreads(),
+                properties.getRefreshQueueCapacity(),
+                refresh -> () -> transactionTemplate.executeWithoutResult(status -> refresh.run()));
+    }
+
+    @Bean(destroyMethod = "close")
+    public CacheInvalidationBus cacheInvalidationBus(CacheService cacheService,
+                                                     CacheProperties properties,
+                                                     NamedParameterJdbcTemplate jdbcTemplate,
+                                                     ObjectMapper objectMapper) {
+        CacheProperties.Bus bus = properties.getBus();
+        CacheInvalidationTransport transport = switch (bus.getTransport()) {
+            case IN_PROCESS -> new InProcessInvalidationTransport();
+            case POSTGRES -> new PostgresInvalidationTransport(jdbcTemplate, objectMapper, bus);
+        };
+        return new CacheInvalidationBus(cacheService, transport, bus);
+    }
+}
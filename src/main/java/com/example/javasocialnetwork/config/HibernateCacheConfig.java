@@ -0,0 +1,90 @@
+package com.example.javasocialnetwork.config;
+
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.cache.CacheProperties;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate second-level and query cache backed by an embedded Ehcache through JCache.
+ *
+ * <p>Every region is created here with its own bound and TTL; a region Hibernate asks for but
+ * this class does not know fails startup instead of silently getting Ehcache defaults. The
+ * {@code @DataJpaTest} slice imports this class too, so tests run with the same regions. The cache lives in this
+ * instance's heap: local writes through JPA keep it current, and batches from peers received by
+ * {@link CacheInvalidationBus} are applied by {@link SecondLevelCacheInvalidator}.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    static final String USER_GROUPS_REGION = User.class.getName() + ".groups";
+    static final String USER_POSTS_REGION = User.class.getName() + ".posts";
+    static final String GROUP_USERS_REGION = Group.class.getName() + ".users";
+
+    private static final List<String> ENTITY_REGIONS = List.of(
+            User.class.getName(), Group.class.getName(), Post.class.getName(),
+            USER_GROUPS_REGION, USER_POSTS_REGION, GROUP_USERS_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(CacheProperties properties) {
+        CacheProperties.Jpa jpa = properties.getJpa();
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        for (String region : ENTITY_REGIONS) {
+            configuration = configuration.withCache(region, region(jpa.getMaxEntries())
+                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(jpa.getTtl())));
+        }
+        configuration = configuration
+                .withCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                        region(jpa.getQueryMaxEntries())
+                                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(jpa.getTtl())))
+                // Метки обновления таблиц не вытесняются и не истекают, иначе кеш запросов отдаст устаревшее
+                .withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(1_000));
+        // Свой URI на каждый контекст: общий менеджер по умолчанию делили бы все контексты в JVM
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:javasocialnetwork:hibernate:" + UUID.randomUUID()),
+                configuration.build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public SecondLevelCacheInvalidator secondLevelCacheInvalidator(
+            EntityManagerFactory entityManagerFactory, ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        SecondLevelCacheInvalidator invalidator = new SecondLevelCacheInvalidator(entityManagerFactory);
+        invalidationBus.ifAvailable(bus -> bus.addRemoteListener(invalidator));
+        return invalidator;
+    }
+
+    private static CacheConfigurationBuilder<Object, Object> region(long maxEntries) {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(maxEntries));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.javasocialnetwork.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Batch fetching of lazy associations. When one lazy collection or proxy of an entity in the
+ * persistence context is touched, Hibernate loads it for up to {@code jpa.batch-fetch-size}
+ * entities of the same type with one {@code IN} query, so walking the associations of N loaded
+ * entities takes N / batch size queries instead of N.
+ *
+ * <p>Read paths that map whole aggregates to DTOs fetch them with entity graphs instead; this is
+ * the fallback for the remaining lazy traversals.
+ */
+@Configuration
+public class JpaFetchConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer batchFetchCustomizer(
+            @Value("${jpa.batch-fetch-size:64}") int batchFetchSize) {
+        return hibernateProperties ->
+                hibernateProperties.put(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, batchFetchSize);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.javasocialnetwork.config;
+
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.cache.InvalidationBatch;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.function.Consumer;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+
+/**
+ * Applies cache invalidations received from other instances to Hibernate's second-level cache.
+ *
+ * <p>Tags name the changed entities: {@code user:42} evicts the user and its collections,
+ * {@code posts:42} the user's post list and all cached posts, {@code group:7} the group and its
+ * members. A cleared cache ({@code ""} prefix) clears every region. Query results are dropped on
+ * any batch, since a peer's write may change what a cached query returns.
+ */
+public class SecondLevelCacheInvalidator implements Consumer<InvalidationBatch> {
+    private final Cache cache;
+
+    public SecondLevelCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @Override
+    public void accept(InvalidationBatch batch) {
+        if (batch.prefixes().contains("")) {
+            cache.evictAllRegions();
+            return;
+        }
+        evictTags(batch.tags());
+    }
+
+    /**
+     * Evicts what the tags name and all query results. Also used for local writes made with
+     * plain JDBC, which Hibernate does not see.
+     */
+    public void evictTags(Collection<String> tags) {
+        for (String tag : tags) {
+            CacheTags.idOf(tag, CacheTags.USER_PREFIX).ifPresent(this::evictUser);
+            CacheTags.idOf(tag, CacheTags.POSTS_PREFIX).ifPresent(this::evictUserPosts);
+            CacheTags.idOf(tag, CacheTags.GROUP_PREFIX).ifPresent(this::evictGroup);
+        }
+        cache.evictQueryRegions();
+    }
+
+    private void evictUser(Long userId) {
+        cache.evictEntityData(User.class, userId);
+        cache.evictCollectionData(HibernateCacheConfig.USER_GROUPS_REGION, userId);
+        cache.evictCollectionData(HibernateCacheConfig.USER_POSTS_REGION, userId);
+    }
+
+    // Ключи постов по тегу неизвестны, поэтому уходит вся область постов
+    private void evictUserPosts(Long userId) {
+        cache.evictCollectionData(HibernateCacheConfig.USER_POSTS_REGION, userId);
+        cache.evictEntityData(Post.class);
+    }
+
+    private void evictGroup(Long groupId) {
+        cache.evictEntityData(Group.class, groupId);
+        cache.evictCollectionData(HibernateCacheConfig.GROUP_USERS_REGION, groupId);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.javasocialnetwork.controller;
+
+import com.example.javasocialnetwork.dto.CompletionDto;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import com.example.javasocialnetwork.search.CompletionType;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Validated
+@RequestMapping("/autocomplete")
+@Tag(name = "Autocomplete Controller", description = "Автодополнение имён пользователей и названий групп")
+public class AutocompleteController {
+    private final AutocompleteIndex autocompleteIndex;
+
+    public AutocompleteController(AutocompleteIndex autocompleteIndex) {
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    @Operation(
+            summary = "Дополнить префикс",
+            description = "Возвращает имена пользователей и названия групп, начинающиеся с префикса, "
+                    + "популярные первыми: пользователи по посещениям профиля, группы по числу участников",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Варианты дополнения"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Невалидные параметры запроса",
+                            content = @Content(
+                                    schema = @Schema(implementation = ErrorResponse.class),
+                                    examples = @ExampleObject(
+                                            value = """
+                        {
+                          "errorCode": "VALIDATION_ERROR",
+                          "message": "Validation failed",
+                          "details": { "limit": "must be less than or equal to 10" }
+                        }
+                        """
+                                    )
+                            )
+                    )
+            }
+    )
+    @GetMapping
+    public ResponseEntity<List<CompletionDto>> complete(
+            @Parameter(description = "Начало имени, без учёта регистра", example = "iv")
+            @RequestParam String prefix,
+            @Parameter(description = "Только пользователи или только группы")
+            @RequestParam(required = false) CompletionType type,
+            @Parameter(description = "Число вариантов", example = "10")
+            @RequestParam(defaultValue = "10") @Min(1) @Max(10) int limit) {
+        return ResponseEntity.ok(autocompleteIndex.complete(prefix, type, limit));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.javasocialnetwork.controller;
+
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheStats;
+import com.example.javasocialnetwork.service.CacheWarmUpService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+    private final CacheService cacheService;
+    private final CacheWarmUpService cacheWarmUpService;
+
+    @Autowired
+    public CacheController(CacheService cacheService, CacheWarmUpService cacheWarmUpService) {
+        this.cacheService = cacheService;
+        this.cacheWarmUpService = cacheWarmUpService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStats> getStats() {
+        return ResponseEntity.ok(cacheService.getStats());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        cacheService.clear();
+        cacheWarmUpService.afterClear();
+        return ResponseEntity.noContent().build();
+    }
+}
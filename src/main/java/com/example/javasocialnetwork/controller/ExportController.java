@@ -0,0 +1,94 @@
+package com.example.javasocialnetwork.controller;
+
+import com.example.javasocialnetwork.service.ExportFormat;
+import com.example.javasocialnetwork.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.OutputStream;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/export")
+@Tag(name = "Export Controller", description = "Потоковая выгрузка данных")
+public class ExportController {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Operation(
+            summary = "Выгрузить пользователей",
+            description = "Отдаёт id и имена всех пользователей по мере чтения из базы, без паролей"
+    )
+    @GetMapping("/users")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(description = "NDJSON или CSV")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(description = "Сжать ответ gzip")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("users", format, gzip, exportService::exportUsers);
+    }
+
+    @Operation(
+            summary = "Выгрузить группы",
+            description = "Отдаёт id, названия и число участников всех групп по мере чтения из базы"
+    )
+    @GetMapping("/groups")
+    public ResponseEntity<StreamingResponseBody> exportGroups(
+            @Parameter(description = "NDJSON или CSV")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(description = "Сжать ответ gzip")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("groups", format, gzip, exportService::exportGroups);
+    }
+
+    @Operation(
+            summary = "Выгрузить посты",
+            description = "Отдаёт id, автора и содержимое всех постов по мере чтения из базы"
+    )
+    @GetMapping("/posts")
+    public ResponseEntity<StreamingResponseBody> exportPosts(
+            @Parameter(description = "NDJSON или CSV")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(description = "Сжать ответ gzip")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("posts", format, gzip, exportService::exportPosts);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> export(String name, ExportFormat format, boolean gzip,
+                                                                BiConsumer<ExportFormat, OutputStream> exporter) {
+        // Тело пишется уже после выхода из метода, в потоке асинхронной обработки запроса
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                exporter.accept(format, out);
+                return;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            exporter.accept(format, compressed);
+            compressed.finish();
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension())
+                .build());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.javasocialnetwork.controller;
 
+import com.example.javasocialnetwork.dto.BatchDto;
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.GroupDeletionDto;
 import com.example.javasocialnetwork.dto.GroupWithUsersDto;
 import com.example.javasocialnetwork.entity.Group;
 import com.example.javasocialnetwork.service.GroupService;
@@ -11,8 +14,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,26 +29,87 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
+@Validated
 @Tag(name = "Group Controller", description = "Управление группами пользователей")
 @RequestMapping("/groups")
 public class GroupController {
     private final GroupService groupService;
+    private final JsonPayloadResponder jsonPayloadResponder;
 
     @Autowired
-    public GroupController(GroupService groupService) {
+    public GroupController(GroupService groupService, JsonPayloadResponder jsonPayloadResponder) {
         this.groupService = groupService;
+        this.jsonPayloadResponder = jsonPayloadResponder;
     }
 
     @GetMapping
-    @Operation(summary = "Получить все группы", description = "Возвращает список всех групп с пользователями")
-    public ResponseEntity<List<GroupWithUsersDto>> getAllGroups() {
-        List<GroupWithUsersDto> groups = groupService.getAllGroups();
-        return ResponseEntity.ok(groups);
+    @Operation(
+            summary = "Получить группы",
+            description = "Возвращает страницу групп с пользователями по возрастанию id. "
+                    + "Следующая страница запрашивается с курсором nextCursor из предыдущего ответа",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница групп"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Невалидный курсор или размер страницы",
+                            content = @Content(
+                                    schema = @Schema(implementation = ErrorResponse.class),
+                                    examples = @ExampleObject(
+                                            value = """
+                        {
+                          "errorCode": "VALIDATION_ERROR",
+                          "message": "Invalid page cursor",
+                          "details": { "cursor": "abc" }
+                        }
+                        """
+                                    )
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<CursorPageDto<GroupWithUsersDto>> getGroups(
+            @Parameter(description = "Курсор nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(groupService.getGroups(cursor, limit));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(
+            summary = "Получить группы по списку id",
+            description = "Возвращает группы в порядке переданных id за один запрос: закешированные берутся "
+                    + "из кеша, остальные читаются из базы одним запросом. Несуществующие id "
+                    + "перечисляются в notFound",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Найденные группы и ненайденные id"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Пустой или слишком длинный список id",
+                            content = @Content(
+                                    schema = @Schema(implementation = ErrorResponse.class),
+                                    examples = @ExampleObject(
+                                            value = """
+                        {
+                          "errorCode": "CONSTRAINT_VIOLATION",
+                          "message": "Validation error",
+                          "details": { "getGroupsByIds.ids": "size must be between 1 and 200" }
+                        }
+                        """
+                                    )
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<BatchDto<GroupWithUsersDto>> getGroupsByIds(
+            @Parameter(description = "Id через запятую, не больше 200", example = "1,2,3")
+            @RequestParam @Size(min = 1, max = 200) List<Long> ids) {
+        return ResponseEntity.ok(groupService.getMany(ids));
     }
 
 
@@ -129,9 +198,13 @@ public class GroupController {
             }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<GroupWithUsersDto> getOneGroupPath(
+    public ResponseEntity<?> getOneGroupPath(
             @Parameter(description = "Уникальный идентификатор группы", example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
+        if (jsonPayloadResponder.isEnabled()) {
+            return jsonPayloadResponder.respond(groupService.getOneJson(id), request);
+        }
         GroupWithUsersDto group = groupService.getOne(id);
         return ResponseEntity.ok(group);
     }
@@ -179,6 +252,51 @@ public class GroupController {
         return ResponseEntity.ok("Group deleted successfully");
     }
 
+    @Operation(
+            summary = "Удалить большую группу в фоне",
+            description = "Запускает удаление группы пачками и сразу возвращает его ход. "
+                    + "Повторный запрос во время удаления возвращает уже идущее удаление",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Удаление запущено"),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Группа не найдена",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    @DeleteMapping(value = "/{id}", params = "background=true")
+    public ResponseEntity<GroupDeletionDto> deleteGroupInBackground(
+            @Parameter(description = "Уникальный идентификатор группы", example = "1")
+            @PathVariable Long id) {
+        return ResponseEntity.accepted().body(groupService.deleteGroupInBackground(id));
+    }
+
+    @Operation(
+            summary = "Ход удаления группы",
+            description = "Возвращает состояние фонового удаления группы: число пачек и удалённых членств",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Состояние удаления"),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Удаление этой группы не запускалось",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping("/{id}/deletion")
+    public ResponseEntity<GroupDeletionDto> getDeletionProgress(
+            @Parameter(description = "Уникальный идентификатор группы", example = "1")
+            @PathVariable Long id) {
+        return ResponseEntity.ok(groupService.getDeletionProgress(id));
+    }
+
     @Operation(
             summary = "Обновить данные группы",
             description = "Изменяет информацию о существующей группе",
@@ -0,0 +1,45 @@
+package com.example.javasocialnetwork.controller;
+
+import com.example.javasocialnetwork.cache.CacheProperties;
+import com.example.javasocialnetwork.cache.JsonPayload;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Writes cached JSON payloads as they are. Answers 304 when {@code If-None-Match} matches the
+ * payload's ETag and passes gzip bodies through when the client accepts them.
+ */
+@Component
+public class JsonPayloadResponder {
+    private final CacheProperties cacheProperties;
+
+    public JsonPayloadResponder(CacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+    }
+
+    // Включается через cache.json.enabled=true
+    public boolean isEnabled() {
+        return cacheProperties.getJson().isEnabled();
+    }
+
+    public ResponseEntity<byte[]> respond(JsonPayload payload, WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzipAccepted = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = payload.etagFor(gzipAccepted);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (payload.gzipped() && gzipAccepted) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(payload.bodyFor(gzipAccepted));
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.javasocialnetwork.controller;
 
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.ImportReportDto;
 import com.example.javasocialnetwork.dto.PostDto;
-import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.dto.PostSearchPageDto;
+import com.example.javasocialnetwork.service.PostImportService;
 import com.example.javasocialnetwork.service.PostService;
-import java.util.List;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,7 +14,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.io.InputStream;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,16 +28,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@Validated
 @RequestMapping("/posts")
 @Tag(name = "Post Controller", description = "Управление постами пользователей")
 public class PostController {
     private final PostService postService;
+    private final PostImportService postImportService;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, PostImportService postImportService) {
         this.postService = postService;
+        this.postImportService = postImportService;
     }
 
     @Operation(
@@ -94,22 +105,53 @@ public class PostController {
         return ResponseEntity.ok("Post add!!!");
     }
 
+    @Operation(
+            summary = "Потоковый импорт постов",
+            description = "Принимает NDJSON: по одному посту на строку, с автором в поле userId. Строки "
+                    + "читаются по мере поступления и сохраняются пачками в отдельных транзакциях. "
+                    + "Невалидные строки и посты несуществующих пользователей попадают в отчёт с номером строки",
+            responses = @ApiResponse(
+                    responseCode = "200",
+                    description = "Итоги импорта",
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = @ExampleObject(
+                                    value = """
+                        {
+                            "chunks": 1,
+                            "read": 3,
+                            "created": 2,
+                            "skipped": 0,
+                            "failed": 1,
+                            "errors": [ { "line": 2, "message": "User not found: 999" } ]
+                        }
+                    """
+                            )
+                    )
+            )
+    )
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReportDto> importPosts(InputStream body) {
+        return ResponseEntity.ok(postImportService.importPosts(body));
+    }
+
     @Operation(
             summary = "Получить посты пользователя",
-            description = "Возвращает все посты указанного пользователя",
+            description = "Возвращает страницу постов указанного пользователя по возрастанию id. "
+                    + "Следующая страница запрашивается с курсором nextCursor из предыдущего ответа",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Посты успешно получены"),
                     @ApiResponse(
                             responseCode = "400",
-                            description = "Невалидные параметры запроса",
+                            description = "Невалидный курсор или размер страницы",
                             content = @Content(
                                     schema = @Schema(implementation = ErrorResponse.class),
                                     examples = @ExampleObject(
                                             value = """
                         {
                           "errorCode": "VALIDATION_ERROR",
-                          "message": "Validation failed",
-                          "details": { "fieldName": "Ошибка валидации" }
+                          "message": "Invalid page cursor",
+                          "details": { "cursor": "abc" }
                         }
                         """
                                     )
@@ -134,10 +176,49 @@ public class PostController {
             }
     )
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Post>> getUserPosts(
+    public ResponseEntity<CursorPageDto<PostDto>> getUserPosts(
             @Parameter(description = "ID пользователя", example = "123")
-            @PathVariable Long userId) {
-        return ResponseEntity.ok(postService.getUserPosts(userId));
+            @PathVariable Long userId,
+            @Parameter(description = "Курсор nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(postService.getUserPosts(userId, cursor, limit));
+    }
+
+    @Operation(
+            summary = "Поиск постов по содержимому",
+            description = "Возвращает посты, содержащие все слова запроса, в порядке релевантности (BM25). "
+                    + "Следующая страница запрашивается с курсором nextCursor из предыдущего ответа",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница результатов"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Невалидный курсор или размер страницы",
+                            content = @Content(
+                                    schema = @Schema(implementation = ErrorResponse.class),
+                                    examples = @ExampleObject(
+                                            value = """
+                        {
+                          "errorCode": "VALIDATION_ERROR",
+                          "message": "Invalid search cursor",
+                          "details": { "cursor": "abc" }
+                        }
+                        """
+                                    )
+                            )
+                    )
+            }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<PostSearchPageDto> searchPosts(
+            @Parameter(description = "Слова для поиска", example = "java")
+            @RequestParam String query,
+            @Parameter(description = "Курсор nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(postService.searchPosts(query, cursor, limit));
     }
 
     @Operation(
@@ -1,8 +1,14 @@
 package com.example.javasocialnetwork.controller;
 
+import com.example.javasocialnetwork.dto.BatchDto;
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.ImportReportDto;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.dto.UserSearchPageDto;
 import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
 import com.example.javasocialnetwork.entity.Group;
 import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.service.UserImportService;
 import com.example.javasocialnetwork.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,15 +18,21 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @Tag(name = "User Controller", description = "Управление пользователями")
@@ -29,24 +41,31 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final JsonPayloadResponder jsonPayloadResponder;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService,
+                          UserImportService userImportService,
+                          JsonPayloadResponder jsonPayloadResponder) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.jsonPayloadResponder = jsonPayloadResponder;
     }
 
     @Operation(
             summary = "Массовое создание пользователей",
-            description = "Создает несколько пользователей за один запрос, пропуская уже существующие",
+            description = "Создает несколько пользователей за один запрос, пропуская уже существующие "
+                    + "и повторяющиеся имена. Пароли сохраняются в виде хеша",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
-                            description = "Пользователи созданы",
+                            description = "Итоги импорта",
                             content = @Content(
                                     mediaType = "application/json",
                                     examples = @ExampleObject(
                                             value = """
-                        "Created 3 users successfully"
+                        { "chunks": 1, "read": 3, "created": 2, "skipped": 1 }
                     """
                                     )
                             )
@@ -72,11 +91,43 @@ public class UserController {
             }
     )
     @PostMapping("/bulk")
-    public ResponseEntity<String> bulkCreateUsers(
+    public ResponseEntity<ImportReportDto> bulkCreateUsers(
             @Valid @RequestBody List<User> users
     ) {
-        int createdCount = userService.bulkCreateUsers(users).size();
-        return ResponseEntity.ok("Created " + createdCount + " users successfully");
+        return ResponseEntity.ok(userImportService.importUsers(users.iterator(), report -> { }));
+    }
+
+    @Operation(
+            summary = "Потоковый импорт пользователей",
+            description = "Принимает NDJSON: по одному пользователю на строку. Строки читаются по мере "
+                    + "поступления и сохраняются пачками в отдельных транзакциях, поэтому размер "
+                    + "загрузки не ограничен памятью. Уже существующие и повторяющиеся имена "
+                    + "пропускаются, невалидные строки попадают в отчёт с номером строки",
+            responses = @ApiResponse(
+                    responseCode = "200",
+                    description = "Итоги импорта",
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = @ExampleObject(
+                                    value = """
+                        {
+                            "chunks": 3,
+                            "read": 2500,
+                            "created": 2450,
+                            "skipped": 50,
+                            "failed": 1,
+                            "errors": [
+                                { "line": 17, "message": "username: Username must contain only letters and numbers" }
+                            ]
+                        }
+                    """
+                            )
+                    )
+            )
+    )
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReportDto> importUsers(InputStream body) {
+        return ResponseEntity.ok(userImportService.importUsers(body));
     }
 
     @Operation(
@@ -188,57 +239,108 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
-    @GetMapping("/search")
+    @GetMapping
     @Operation(
-            summary = "Поиск пользователей по имени",
-            description = "Возвращает информацию о пользователе с постами",
+            summary = "Получить пользователей",
+            description = "Возвращает страницу пользователей по возрастанию id. "
+                    + "Следующая страница запрашивается с курсором nextCursor из предыдущего ответа",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Успешный поиск"),
+                    @ApiResponse(responseCode = "200", description = "Страница пользователей"),
                     @ApiResponse(
                             responseCode = "400",
-                            description = "Невалидные параметры запроса",
+                            description = "Невалидный курсор или размер страницы",
                             content = @Content(
                                     schema = @Schema(implementation = ErrorResponse.class),
                                     examples = @ExampleObject(
                                             value = """
                         {
                           "errorCode": "VALIDATION_ERROR",
-                          "message": "Validation failed",
-                          "details": { "fieldName": "Ошибка валидации" }
+                          "message": "Invalid page cursor",
+                          "details": { "cursor": "abc" }
                         }
                         """
                                     )
                             )
-                    ),
+                    )
+            }
+    )
+    public ResponseEntity<CursorPageDto<UserDto>> getUsers(
+            @Parameter(description = "Курсор nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(userService.getUsers(cursor, limit));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(
+            summary = "Получить пользователей по списку id",
+            description = "Возвращает пользователей в порядке переданных id за один запрос: закешированные берутся "
+                    + "из кеша, остальные читаются из базы одним запросом. Несуществующие id "
+                    + "перечисляются в notFound",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Найденные пользователей и ненайденные id"),
                     @ApiResponse(
-                            responseCode = "404",
-                            description = "Пользователь не найден",
+                            responseCode = "400",
+                            description = "Пустой или слишком длинный список id",
                             content = @Content(
                                     schema = @Schema(implementation = ErrorResponse.class),
                                     examples = @ExampleObject(
                                             value = """
                         {
-                          "errorCode": "USER_NOT_FOUND",
-                          "message": "User not found",
-                          "details": { "userId": 123 }
+                          "errorCode": "CONSTRAINT_VIOLATION",
+                          "message": "Validation error",
+                          "details": { "getUsersByIds.ids": "size must be between 1 and 200" }
                         }
                         """
                                     )
                             )
                     )
             }
+    )
+    public ResponseEntity<BatchDto<UserWithPostsAndGroupsDto>> getUsersByIds(
+            @Parameter(description = "Id через запятую, не больше 200", example = "1,2,3")
+            @RequestParam @Size(min = 1, max = 200) List<Long> ids) {
+        return ResponseEntity.ok(userService.getMany(ids));
+    }
 
+    @GetMapping("/search")
+    @Operation(
+            summary = "Поиск пользователей по имени",
+            description = "Возвращает страницу пользователей, чьё имя содержит строку запроса. "
+                    + "С fuzzy=true находит имена с опечатками: до одной правки для запросов "
+                    + "до 5 символов, до двух для более длинных",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Успешный поиск"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Невалидные параметры запроса",
+                            content = @Content(
+                                    schema = @Schema(implementation = ErrorResponse.class),
+                                    examples = @ExampleObject(
+                                            value = """
+                        {
+                          "errorCode": "VALIDATION_ERROR",
+                          "message": "Validation failed",
+                          "details": { "fieldName": "Ошибка валидации" }
+                        }
+                        """
+                                    )
+                            )
+                    )
+            }
     )
-    public ResponseEntity<List<UserWithPostsAndGroupsDto>> searchUsers(
-            @Parameter(description = "Имя пользователя для поиска", example = "Vanya")
-            @RequestParam String username
+    public ResponseEntity<UserSearchPageDto> searchUsers(
+            @Parameter(description = "Имя пользователя или его часть", example = "Vanya")
+            @RequestParam String username,
+            @Parameter(description = "Допускать опечатки", example = "false")
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @Parameter(description = "Номер страницы, начиная с 0", example = "0")
+            @RequestParam(defaultValue = "0") @Min(0) @Max(1000) int page,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size
     ) {
-        try {
-            List<UserWithPostsAndGroupsDto> users = userService.searchUsersByUsername(username);
-            return ResponseEntity.ok(users);
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok(userService.searchUsers(username, fuzzy, page, size));
     }
 
     @Operation(
@@ -285,10 +387,14 @@ public class UserController {
             }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<UserWithPostsAndGroupsDto> getOneUserPath(
+    public ResponseEntity<?> getOneUserPath(
             @Parameter(description = "Уникальный идентификатор пользователя", example = "1")
-            @PathVariable Long id
+            @PathVariable Long id,
+            WebRequest request
     ) {
+        if (jsonPayloadResponder.isEnabled()) {
+            return jsonPayloadResponder.respond(userService.getOneJson(id), request);
+        }
         UserWithPostsAndGroupsDto user = userService.getOne(id);
         return ResponseEntity.ok(user);
     }
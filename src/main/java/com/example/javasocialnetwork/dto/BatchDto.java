@@ -0,0 +1,44 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Результат выборки по списку id")
+public class BatchDto<T> {
+    @Schema(description = "Найденные элементы в порядке запрошенных id")
+    private List<T> items;
+    @Schema(description = "Id, которых нет", example = "[404]")
+    private List<Long> notFound;
+
+    public BatchDto() {
+    }
+
+    public BatchDto(List<T> items, List<Long> notFound) {
+        this.items = items;
+        this.notFound = notFound;
+    }
+
+    // Раскладывает id в порядке запроса на найденные и ненайденные
+    public static <T> BatchDto<T> of(List<Long> ids, Map<Long, T> found) {
+        return new BatchDto<>(
+                ids.stream().filter(found::containsKey).map(found::get).toList(),
+                ids.stream().filter(id -> !found.containsKey(id)).toList());
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.javasocialnetwork.dto;
+
+import com.example.javasocialnetwork.search.CompletionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Вариант автодополнения")
+public class CompletionDto {
+    @Schema(description = "Пользователь или группа", example = "USER")
+    private CompletionType type;
+    @Schema(description = "ID пользователя или группы", example = "1")
+    private Long id;
+    @Schema(description = "Имя пользователя или название группы", example = "ivan")
+    private String name;
+
+    public CompletionDto() {
+    }
+
+    public CompletionDto(CompletionType type, Long id, String name) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+    }
+
+    public CompletionType getType() {
+        return type;
+    }
+
+    public void setType(CompletionType type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+@Schema(description = "Страница списка, упорядоченного по id")
+public class CursorPageDto<T> {
+    @Schema(description = "Элементы страницы по возрастанию id")
+    private List<T> items;
+    @Schema(description = "Курсор следующей страницы, отсутствует на последней", example = "AAAAAAAAABQ")
+    private String nextCursor;
+
+    public CursorPageDto() {
+    }
+
+    public CursorPageDto(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from rows read with a limit of {@code limit + 1}: the extra row only shows
+     * that there is a next page and is dropped.
+     */
+    public static <E, T> CursorPageDto<T> of(List<E> rows, int limit, ToLongFunction<E> id, Function<E, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? IdCursor.after(id.applyAsLong(page.get(page.size() - 1))).encode() : null;
+        return new CursorPageDto<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Ход удаления группы")
+public class GroupDeletionDto {
+    @Schema(description = "Удаляемая группа", example = "7")
+    private Long groupId;
+    @Schema(description = "Состояние удаления", example = "RUNNING")
+    private Status status;
+    @Schema(description = "Обработано пачек участников", example = "5")
+    private int chunks;
+    @Schema(description = "Удалено членств в группе", example = "50000")
+    private long membershipsRemoved;
+
+    public enum Status {
+        RUNNING, DONE, FAILED
+    }
+
+    public GroupDeletionDto() {
+    }
+
+    public GroupDeletionDto(Long groupId, Status status, int chunks, long membershipsRemoved) {
+        this.groupId = groupId;
+        this.status = status;
+        this.chunks = chunks;
+        this.membershipsRemoved = membershipsRemoved;
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public long getMembershipsRemoved() {
+        return membershipsRemoved;
+    }
+
+    public void setMembershipsRemoved(long membershipsRemoved) {
+        this.membershipsRemoved = membershipsRemoved;
+    }
+}
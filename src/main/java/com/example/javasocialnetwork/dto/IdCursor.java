@@ -0,0 +1,40 @@
+package com.example.javasocialnetwork.dto;
+
+import com.example.javasocialnetwork.exception.ValidationException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by id: the id of the last item returned. Passed to the client
+ * as an opaque URL-safe string; the next page is read with {@code id > afterId}, so it costs the
+ * same at any depth.
+ */
+public record IdCursor(long afterId) {
+    public static final IdCursor FIRST = new IdCursor(0);
+
+    public static IdCursor after(long id) {
+        return new IdCursor(id);
+    }
+
+    // Отсутствующий курсор означает первую страницу
+    public static IdCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return FIRST;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(value);
+            if (bytes.length != Long.BYTES) {
+                throw new IllegalArgumentException("Unexpected cursor length: " + bytes.length);
+            }
+            return new IdCursor(ByteBuffer.wrap(bytes).getLong());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid page cursor")
+                    .addDetail("cursor", value);
+        }
+    }
+
+    public String encode() {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(afterId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Отклонённая строка импорта")
+public class ImportErrorDto {
+    @Schema(description = "Номер строки, начиная с 1", example = "17")
+    private long line;
+    @Schema(description = "Причина", example = "username: Username must be between 3 and 50 characters")
+    private String message;
+
+    public ImportErrorDto() {
+    }
+
+    public ImportErrorDto(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Ход или итог импорта")
+public class ImportReportDto {
+    @Schema(description = "Обработано пачек", example = "3")
+    private int chunks;
+    @Schema(description = "Прочитано записей", example = "2500")
+    private long read;
+    @Schema(description = "Создано записей", example = "2450")
+    private long created;
+    @Schema(description = "Пропущено: уже существуют или повторяются во входных данных", example = "50")
+    private long skipped;
+    @Schema(description = "Отклонено строк: не разобраны или не прошли проверку", example = "2")
+    private long failed;
+    @Schema(description = "Первые ошибки по номерам строк")
+    private List<ImportErrorDto> errors = new ArrayList<>();
+
+    public ImportReportDto() {
+    }
+
+    public ImportReportDto(int chunks, long read, long created, long skipped) {
+        this.chunks = chunks;
+        this.read = read;
+        this.created = created;
+        this.skipped = skipped;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public void setRead(long read) {
+        this.read = read;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<ImportErrorDto> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportErrorDto> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+@Schema(description = "Строка импорта постов")
+public class PostImportDto {
+    @NotNull(message = "User id cannot be null")
+    @Schema(description = "Автор поста", example = "42")
+    private Long userId;
+    @NotBlank(message = "Content cannot be blank")
+    @Size(min = 1, max = 500, message = "Content must be between 1 and 500 characters")
+    @Schema(description = "Содержимое поста", example = "Мой первый пост")
+    private String content;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+@Schema(description = "Страница результатов поиска постов")
+public class PostSearchPageDto {
+    @Schema(description = "Посты в порядке убывания релевантности")
+    private List<PostDto> items;
+    @Schema(description = "Курсор следующей страницы, отсутствует на последней", example = "P_MzMzMzMzAAAAAAAAAAc")
+    private String nextCursor;
+
+    public PostSearchPageDto() {
+    }
+
+    public PostSearchPageDto(List<PostDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PostDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<PostDto> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
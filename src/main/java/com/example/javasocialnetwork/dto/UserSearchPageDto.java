@@ -0,0 +1,58 @@
+package com.example.javasocialnetwork.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+@Schema(description = "Страница результатов поиска пользователей")
+public class UserSearchPageDto {
+    @Schema(description = "Найденные пользователи, лучшие совпадения первыми")
+    private List<UserDto> items;
+    @Schema(description = "Номер страницы, начиная с 0", example = "0")
+    private int page;
+    @Schema(description = "Размер страницы", example = "20")
+    private int size;
+    @Schema(description = "Есть ли следующая страница", example = "false")
+    private boolean hasNext;
+
+    public UserSearchPageDto() {
+    }
+
+    public UserSearchPageDto(List<UserDto> items, int page, int size, boolean hasNext) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    public List<UserDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UserDto> items) {
+        this.items = items;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -2,7 +2,9 @@ package com.example.javasocialnetwork.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -15,8 +17,14 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import java.util.HashSet;
 import java.util.Set;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "groups")
 @Schema(description = "Модель группы пользователей")
 public class Group {
@@ -33,13 +41,26 @@ public class Group {
 
     @ManyToMany(mappedBy = "groups", cascade = { CascadeType.PERSIST, CascadeType.MERGE },
             fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnore
     private Set<User> users = new HashSet<>();
 
+    // Счётчик изменений для сверки снимка кеша. Не @Version: записи не блокируются оптимистично,
+    // а инкремент в самом UPDATE не теряется и при сохранении устаревшей копии.
+    // default 0 нужен для уже существующих строк
+    @Generated(event = EventType.UPDATE, sql = "version + 1")
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @JsonIgnore
+    private long version;
+
     public Group() {
         // constructor
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -5,9 +5,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
-@Table(name = "posts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Страницы постов пользователя читаются по (user_id, id)
+@Table(name = "posts", indexes = @Index(name = "idx_posts_user_id_id", columnList = "user_id, id"))
 @Schema(description = "Модель поста пользователя")
 public class Post {
     @Id
@@ -25,6 +32,14 @@ public class Post {
     @JsonIgnore
     private User user;
 
+    // Счётчик изменений для сверки снимка кеша. Не @Version: записи не блокируются оптимистично,
+    // а инкремент в самом UPDATE не теряется и при сохранении устаревшей копии.
+    // default 0 нужен для уже существующих строк
+    @Generated(event = EventType.UPDATE, sql = "version + 1")
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @JsonIgnore
+    private long version;
+
     public Post() {}
 
     public Post(String content, User user) {
@@ -32,6 +47,10 @@ public class Post {
         this.user = user;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -1,13 +1,20 @@
 package com.example.javasocialnetwork.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import java.util.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "users")
 @Schema(description = "Сущность пользователя системы")
 public class User {
@@ -43,15 +50,30 @@ public class User {
     @JoinTable(
             name = "user_groups",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "group_id")
+            inverseJoinColumns = @JoinColumn(name = "group_id"),
+            // Участники группы ищутся по group_id, первичный ключ начинается с user_id
+            indexes = @Index(name = "idx_user_groups_group_id", columnList = "group_id")
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Schema(hidden = true)
     private Set<Group> groups = new HashSet<>();
 
+    // Счётчик изменений для сверки снимка кеша. Не @Version: записи не блокируются оптимистично,
+    // а инкремент в самом UPDATE не теряется и при сохранении устаревшей копии.
+    // default 0 нужен для уже существующих строк
+    @Generated(event = EventType.UPDATE, sql = "version + 1")
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @JsonIgnore
+    private long version;
+
     public User() {
         // constructor
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -97,6 +119,7 @@ public class User {
     @OneToMany(mappedBy = "user", cascade = { CascadeType.PERSIST, CascadeType.MERGE,
             CascadeType.REMOVE },
             orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Schema(hidden = true)
     private List<Post> posts = new ArrayList<>();
 
@@ -0,0 +1,7 @@
+package com.example.javasocialnetwork.exception;
+
+public class CacheLoadTimeoutException extends ApiException {
+    public CacheLoadTimeoutException(String message) {
+        super("CACHE_LOAD_TIMEOUT", message);
+    }
+}
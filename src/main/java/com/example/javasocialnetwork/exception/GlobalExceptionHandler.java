@@ -54,7 +54,9 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleApiException(ApiException ex) {
         HttpStatus status = switch (ex.getErrorCode()) {
             case "USER_NOT_FOUND", "GROUP_NOT_FOUND", "POST_NOT_FOUND" -> HttpStatus.NOT_FOUND;
-            case "USER_ALREADY_EXISTS", "GROUP_ALREADY_EXISTS" -> HttpStatus.CONFLICT; // 409
+            case "USER_ALREADY_EXISTS", "GROUP_ALREADY_EXISTS", "GROUP_DELETION_IN_PROGRESS" ->
+                    HttpStatus.CONFLICT; // 409
+            case "CACHE_LOAD_TIMEOUT" -> HttpStatus.SERVICE_UNAVAILABLE; // 503
             default -> HttpStatus.BAD_REQUEST;
         };
 
@@ -0,0 +1,7 @@
+package com.example.javasocialnetwork.exception;
+
+public class GroupDeletionInProgressException extends ApiException {
+    public GroupDeletionInProgressException(String message) {
+        super("GROUP_DELETION_IN_PROGRESS", message);
+    }
+}
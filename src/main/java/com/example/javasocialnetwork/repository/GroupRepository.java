@@ -1,15 +1,49 @@
 package com.example.javasocialnetwork.repository;
 
 import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.search.GroupDocument;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface GroupRepository extends JpaRepository<Group, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Group findByName(String name);
 
     @EntityGraph(attributePaths = "users")
     Optional<Group> findWithUsersById(Long id);
+
+    // Сначала страница id, затем группы с участниками: fetch join коллекции нельзя ограничить в SQL
+    @Query("SELECT g.id FROM Group g WHERE g.id > :afterId ORDER BY g.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "users")
+    List<Group> findWithUsersByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("SELECT new com.example.javasocialnetwork.search.GroupDocument(g.id, g.name, SIZE(g.users)) "
+            + "FROM Group g WHERE g.id > :afterId ORDER BY g.id")
+    List<GroupDocument> findDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.javasocialnetwork.search.GroupDocument(g.id, g.name, SIZE(g.users)) "
+            + "FROM Group g WHERE g.id = :id")
+    Optional<GroupDocument> findDocumentById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.javasocialnetwork.search.GroupDocument(g.id, g.name, SIZE(g.users)) "
+            + "FROM Group g ORDER BY g.id")
+    Stream<GroupDocument> streamDocuments();
+
+    @Query("SELECT g.id FROM User u JOIN u.groups g WHERE u.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
 }
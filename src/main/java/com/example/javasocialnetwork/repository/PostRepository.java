@@ -1,11 +1,35 @@
 package com.example.javasocialnetwork.repository;
 
 import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.search.PostDocument;
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
     List<Post> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT p FROM Post p WHERE p.user.id = :userId AND p.id > :afterId ORDER BY p.id")
+    List<Post> findPageByUserId(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.javasocialnetwork.search.PostDocument(p.id, p.user.id, p.content) "
+            + "FROM Post p WHERE p.id > :afterId ORDER BY p.id")
+    List<PostDocument> findDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.javasocialnetwork.search.PostDocument(p.id, p.user.id, p.content) "
+            + "FROM Post p WHERE p.user.id = :userId")
+    List<PostDocument> findDocumentsByUserId(@Param("userId") Long userId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.javasocialnetwork.search.PostDocument(p.id, p.user.id, p.content) "
+            + "FROM Post p ORDER BY p.id")
+    Stream<PostDocument> streamDocuments();
+}
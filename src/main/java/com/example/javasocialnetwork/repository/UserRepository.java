@@ -1,30 +1,54 @@
 package com.example.javasocialnetwork.repository;
 
 import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.search.UsernameDocument;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
-    List<User> findByUsernameContainingIgnoreCase(String username);
+    // Только группы: posts — список без порядка, его join вместе с группами размножил бы посты.
+    // Посты догружаются одним пакетным запросом на всех найденных (default_batch_fetch_size)
+    @EntityGraph(attributePaths = "groups")
+    Optional<User> findWithGroupsById(Long id);
 
-    @EntityGraph(attributePaths = {"posts", "groups"})
-    Optional<User> findWithPostsAndGroupsById(Long id);
+    @EntityGraph(attributePaths = "groups")
+    List<User> findWithGroupsByIdIn(Collection<Long> ids);
 
-    @Query("SELECT DISTINCT u FROM User u JOIN u.posts p WHERE p.content LIKE %:content%")
-    List<User> findAllByPostContent(@Param("content") String content);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    boolean existsByUsername(String username);
 
-    @Query(value = "SELECT DISTINCT u.* FROM users u JOIN posts p " +
-            "ON u.id = p.user_id WHERE p.content LIKE %:content%",
-            nativeQuery = true)
-    List<User> findAllByPostContentNative(@Param("content") String content);
+    @Query("SELECT new com.example.javasocialnetwork.search.UsernameDocument(u.id, u.username) "
+            + "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UsernameDocument> findUsernamesAfter(@Param("afterId") Long afterId, Pageable pageable);
 
-    boolean existsByUsername(String username);
+    @Query("SELECT new com.example.javasocialnetwork.search.UsernameDocument(u.id, u.username) "
+            + "FROM User u WHERE u.username IN :usernames ORDER BY u.id")
+    List<UsernameDocument> findUsernamesIn(@Param("usernames") Collection<String> usernames);
+
+    // Курсор только вперёд: драйвер отдаёт строки порциями, а не всю выборку сразу
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.javasocialnetwork.search.UsernameDocument(u.id, u.username) "
+            + "FROM User u ORDER BY u.id")
+    Stream<UsernameDocument> streamUsernames();
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<User> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,255 @@
+package com.example.javasocialnetwork.search;
+
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.cache.InvalidationBatch;
+import com.example.javasocialnetwork.dto.CompletionDto;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.CompletionTrie.Completion;
+import com.example.javasocialnetwork.stats.VisitCounterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prefix completions for usernames and group names, most popular first. Users are ranked by
+ * visits to their profile page, groups by the number of members.
+ *
+ * <p>Names live in two {@link CompletionTrie}s, so a lookup costs the prefix length whatever the
+ * number of names. The tries are built on startup and kept current by {@code UserService} and
+ * {@code GroupService}; visit counts are re-read every {@value #VISITS_REFRESH_SECONDS} seconds
+ * and users and groups changed by other instances are re-read when their tags arrive over the
+ * {@link CacheInvalidationBus}.
+ */
+@Component
+public class AutocompleteIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AutocompleteIndex.class);
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+    private static final long VISITS_REFRESH_SECONDS = 60;
+    private static final Pattern USER_URI = Pattern.compile("^/users/(\\d+)$");
+
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final VisitCounterService visitCounterService;
+    private final ObjectProvider<CacheInvalidationBus> invalidationBus;
+    private final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Читаются под read lock, меняются и подменяются целиком под write lock
+    private CompletionTrie users = new CompletionTrie();
+    private CompletionTrie groups = new CompletionTrie();
+
+    public AutocompleteIndex(UserRepository userRepository,
+                             GroupRepository groupRepository,
+                             VisitCounterService visitCounterService,
+                             ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
+        this.visitCounterService = visitCounterService;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+        refreshExecutor.scheduleWithFixedDelay(this::refreshVisitsQuietly,
+                VISITS_REFRESH_SECONDS, VISITS_REFRESH_SECONDS, TimeUnit.SECONDS);
+        invalidationBus.ifAvailable(bus -> bus.addRemoteListener(this::applyRemote));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    // Читает всех пользователей и все группы в новые деревья и подменяет ими текущие
+    public void rebuild() {
+        Map<Long, Long> visits = userVisits();
+        CompletionTrie rebuiltUsers = new CompletionTrie();
+        long afterId = 0;
+        List<UsernameDocument> userBatch;
+        do {
+            userBatch = userRepository.findUsernamesAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (UsernameDocument document : userBatch) {
+                rebuiltUsers.put(document.id(), document.username(), visits.getOrDefault(document.id(), 0L));
+                afterId = document.id();
+            }
+        } while (userBatch.size() == REBUILD_BATCH_SIZE);
+
+        CompletionTrie rebuiltGroups = new CompletionTrie();
+        afterId = 0;
+        List<GroupDocument> groupBatch;
+        do {
+            groupBatch = groupRepository.findDocumentsAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (GroupDocument document : groupBatch) {
+                rebuiltGroups.put(document.id(), document.name(), document.members());
+                afterId = document.id();
+            }
+        } while (groupBatch.size() == REBUILD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            users = rebuiltUsers;
+            groups = rebuiltGroups;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("[SEARCH] Indexed {} usernames and {} group names for autocomplete",
+                rebuiltUsers.size(), rebuiltGroups.size());
+    }
+
+    // Добавляет пользователя или меняет его имя; популярность берётся из посещений профиля
+    public void putUser(Long userId, String username) {
+        long visits = visitCounterService.getVisitCount("/users/" + userId);
+        lock.writeLock().lock();
+        try {
+            users.put(userId, username, visits);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(Long userId) {
+        lock.writeLock().lock();
+        try {
+            users.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putGroup(Long groupId, String name, long members) {
+        lock.writeLock().lock();
+        try {
+            groups.put(groupId, name, members);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Переименование сохраняет число участников
+    public void renameGroup(Long groupId, String name) {
+        lock.writeLock().lock();
+        try {
+            Completion group = groups.get(groupId);
+            groups.put(groupId, name, group == null ? 0 : group.score());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Учитывает вступление (+1) или выход (-1) участника
+    public void adjustGroupMembers(Long groupId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Completion group = groups.get(groupId);
+            if (group != null) {
+                groups.updateScore(groupId, Math.max(0, group.score() + delta));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeGroup(Long groupId) {
+        lock.writeLock().lock();
+        try {
+            groups.remove(groupId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} names starting with the prefix, case-insensitive, most
+     * popular first. Without a type users and groups are merged by their popularity.
+     */
+    public List<CompletionDto> complete(String prefix, CompletionType type, int limit) {
+        int size = Math.min(limit, CompletionTrie.MAX_COMPLETIONS);
+        List<Completion> userMatches;
+        List<Completion> groupMatches;
+        lock.readLock().lock();
+        try {
+            userMatches = type == CompletionType.GROUP ? List.of() : users.complete(prefix, size);
+            groupMatches = type == CompletionType.USER ? List.of() : groups.complete(prefix, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<CompletionDto> result = new ArrayList<>(size);
+        int u = 0;
+        int g = 0;
+        while (result.size() < size && (u < userMatches.size() || g < groupMatches.size())) {
+            boolean takeUser = g == groupMatches.size() || (u < userMatches.size()
+                    && CompletionTrie.ORDER.compare(userMatches.get(u), groupMatches.get(g)) <= 0);
+            Completion completion = takeUser ? userMatches.get(u++) : groupMatches.get(g++);
+            result.add(new CompletionDto(takeUser ? CompletionType.USER : CompletionType.GROUP,
+                    completion.id(), completion.name()));
+        }
+        return result;
+    }
+
+    // Переносит накопленные посещения профилей в популярность пользователей
+    public void refreshVisits() {
+        Map<Long, Long> visits = userVisits();
+        lock.writeLock().lock();
+        try {
+            visits.forEach(users::updateScore);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void refreshVisitsQuietly() {
+        try {
+            refreshVisits();
+        } catch (RuntimeException e) {
+            LOGGER.warn("[SEARCH] Failed to refresh autocomplete popularity", e);
+        }
+    }
+
+    private Map<Long, Long> userVisits() {
+        Map<Long, Long> visits = new HashMap<>();
+        visitCounterService.getAllStats().forEach((uri, count) -> {
+            Matcher matcher = USER_URI.matcher(uri);
+            if (matcher.matches()) {
+                visits.put(Long.parseLong(matcher.group(1)), count);
+            }
+        });
+        return visits;
+    }
+
+    private void applyRemote(InvalidationBatch batch) {
+        for (String tag : batch.tags()) {
+            CacheTags.idOf(tag, CacheTags.USER_PREFIX).ifPresent(this::refreshUser);
+            CacheTags.idOf(tag, CacheTags.GROUP_PREFIX).ifPresent(this::refreshGroup);
+        }
+    }
+
+    private void refreshUser(Long userId) {
+        userRepository.findById(userId)
+                .map(User::getUsername)
+                .ifPresentOrElse(username -> putUser(userId, username), () -> removeUser(userId));
+    }
+
+    private void refreshGroup(Long groupId) {
+        groupRepository.findDocumentById(groupId)
+                .ifPresentOrElse(group -> putGroup(groupId, group.name(), group.members()),
+                        () -> removeGroup(groupId));
+    }
+}
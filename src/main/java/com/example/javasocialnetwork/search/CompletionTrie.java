@@ -0,0 +1,208 @@
+package com.example.javasocialnetwork.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Radix trie of names, case-insensitive, where every node keeps the {@value #MAX_COMPLETIONS}
+ * most popular names below it. A lookup walks down the prefix and returns that list as is, so it
+ * costs the prefix length, not the number of matching names.
+ *
+ * <p>A change re-sorts the lists on the path from the root to the changed name only. Not
+ * thread-safe, {@link AutocompleteIndex} guards it.
+ */
+final class CompletionTrie {
+    static final int MAX_COMPLETIONS = 10;
+    // Популярнее выше, при равенстве — короче и по алфавиту
+    static final Comparator<Completion> ORDER = Comparator.comparingLong(Completion::score).reversed()
+            .thenComparingInt(completion -> completion.name().length())
+            .thenComparing(Completion::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(Completion::id);
+    private static final Completion[] NONE = new Completion[0];
+
+    private final Node root = new Node("");
+    private final Map<Long, Completion> completions = new HashMap<>();
+
+    // Добавляет имя или меняет имя и популярность уже известного id
+    void put(long id, String name, long score) {
+        Completion previous = completions.get(id);
+        if (previous != null && previous.name().equals(name)) {
+            if (previous.score() == score) {
+                return;
+            }
+            List<Node> path = find(key(name));
+            Completion updated = new Completion(id, name, score);
+            List<Completion> entries = path.get(path.size() - 1).entries;
+            entries.replaceAll(entry -> entry.id() == id ? updated : entry);
+            completions.put(id, updated);
+            recompute(path);
+            return;
+        }
+        if (previous != null) {
+            remove(id);
+        }
+        Completion completion = new Completion(id, name, score);
+        completions.put(id, completion);
+        List<Node> path = insert(key(name));
+        path.get(path.size() - 1).entries.add(completion);
+        recompute(path);
+    }
+
+    // Меняет только популярность; неизвестный id пропускается
+    void updateScore(long id, long score) {
+        Completion completion = completions.get(id);
+        if (completion != null) {
+            put(id, completion.name(), score);
+        }
+    }
+
+    void remove(long id) {
+        Completion completion = completions.remove(id);
+        if (completion == null) {
+            return;
+        }
+        List<Node> path = find(key(completion.name()));
+        path.get(path.size() - 1).entries.removeIf(entry -> entry.id() == id);
+        prune(path);
+        recompute(path);
+    }
+
+    Completion get(long id) {
+        return completions.get(id);
+    }
+
+    List<Completion> complete(String prefix, int limit) {
+        String key = key(prefix);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                return List.of();
+            }
+            int common = commonPrefix(node.label, key, i);
+            // Префикс кончился посреди ребра: все имена ниже узла ему подходят
+            if (i + common == key.length()) {
+                break;
+            }
+            if (common < node.label.length()) {
+                return List.of();
+            }
+            i += common;
+        }
+        return Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length));
+    }
+
+    int size() {
+        return completions.size();
+    }
+
+    private List<Node> insert(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                path.add(child);
+                return path;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Делим ребро: общая часть уходит в новый промежуточный узел
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+        return path;
+    }
+
+    private List<Node> find(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            node = node.children.get(key.charAt(i));
+            path.add(node);
+            i += node.label.length();
+        }
+        return path;
+    }
+
+    // Убирает опустевшие листья и склеивает узел без имён с единственным потомком
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (!node.entries.isEmpty()) {
+                return;
+            }
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+                path.remove(i);
+                continue;
+            }
+            if (node.children.size() == 1) {
+                Node only = node.children.values().iterator().next();
+                only.label = node.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+                path.remove(i);
+            }
+            return;
+        }
+    }
+
+    private static void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Completion> candidates = new ArrayList<>(node.entries);
+            for (Node child : node.children.values()) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(ORDER);
+            node.top = candidates.subList(0, Math.min(MAX_COMPLETIONS, candidates.size())).toArray(NONE);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    record Completion(long id, String name, long score) {
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Completion> entries = new ArrayList<>(1);
+        private Completion[] top = NONE;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
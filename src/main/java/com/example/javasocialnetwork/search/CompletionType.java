@@ -0,0 +1,7 @@
+package com.example.javasocialnetwork.search;
+
+// Что дополняется: имя пользователя или название группы
+public enum CompletionType {
+    USER,
+    GROUP
+}
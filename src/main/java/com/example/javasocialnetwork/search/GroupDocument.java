@@ -0,0 +1,5 @@
+package com.example.javasocialnetwork.search;
+
+// Название и число участников группы для автодополнения; читается JPQL-проекцией
+public record GroupDocument(Long id, String name, int members) {
+}
@@ -0,0 +1,5 @@
+package com.example.javasocialnetwork.search;
+
+// Всё, что индекс знает о посте; читается JPQL-проекцией без загрузки сущностей
+public record PostDocument(Long id, Long userId, String content) {
+}
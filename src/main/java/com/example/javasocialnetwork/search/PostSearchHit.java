@@ -0,0 +1,11 @@
+package com.example.javasocialnetwork.search;
+
+import java.util.Comparator;
+
+// Пост в выдаче поиска с его оценкой BM25
+public record PostSearchHit(long postId, Long userId, double score) {
+    // Порядок выдачи: сначала более релевантные, при равной оценке — меньший id
+    static final Comparator<PostSearchHit> RANKING = Comparator
+            .comparingDouble(PostSearchHit::score).reversed()
+            .thenComparingLong(PostSearchHit::postId);
+}
@@ -0,0 +1,335 @@
+package com.example.javasocialnetwork.search;
+
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.cache.InvalidationBatch;
+import com.example.javasocialnetwork.repository.PostRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over post content: every term maps to the {@link PostingList} of
+ * posts containing it.
+ *
+ * <p>A query matches posts that contain every query term as a term or a term prefix, so
+ * {@code "jav"} finds "Java" but {@code "ava"} does not. The index is built from the database on
+ * startup and kept current by {@code PostService}; posts changed by other instances are
+ * re-read when their {@code posts:} tags arrive over the {@link CacheInvalidationBus}.
+ *
+ * <p>{@link #search} ranks the matching posts with BM25: a term counts more the more often it
+ * occurs in the post and the rarer it is overall, and long posts are normalized against the
+ * average length. A query term that is a prefix of several terms scores each of them.
+ */
+@Component
+public class PostSearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostSearchIndex.class);
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+    // Стандартные параметры BM25: насыщение частоты терма и вес нормализации по длине
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final PostRepository postRepository;
+    private final ObjectProvider<CacheInvalidationBus> invalidationBus;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Читается под read lock, меняется и подменяется целиком под write lock
+    private Index index = new Index();
+
+    public PostSearchIndex(PostRepository postRepository, ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        this.postRepository = postRepository;
+        this.invalidationBus = invalidationBus;
+    }
+
+    // До готовности приложения записей нет, поэтому построение не пропускает изменений
+    @PostConstruct
+    public void init() {
+        rebuild();
+        invalidationBus.ifAvailable(bus -> bus.addRemoteListener(this::applyRemote));
+    }
+
+    /**
+     * Reads all posts in id order, {@value #REBUILD_BATCH_SIZE} at a time, into a new index
+     * and swaps it in. Changes made while the rebuild runs may be lost.
+     */
+    public void rebuild() {
+        Index rebuilt = new Index();
+        long afterId = 0;
+        List<PostDocument> batch;
+        do {
+            batch = postRepository.findDocumentsAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (PostDocument document : batch) {
+                rebuilt.add(document.id(), document.userId(), document.content());
+                afterId = document.id();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("[SEARCH] Indexed {} posts, {} terms", rebuilt.posts.size(), rebuilt.postings.size());
+    }
+
+    // Добавляет пост или заменяет его прежнее содержимое
+    public void index(Long postId, Long userId, String content) {
+        lock.writeLock().lock();
+        try {
+            index.remove(postId);
+            index.add(postId, userId, content);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Посты пользователя удаляются каскадом вместе с ним
+    public void removeUser(Long userId) {
+        lock.writeLock().lock();
+        try {
+            index.removeUser(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Перечитывает посты пользователя из базы, например после изменений на другом экземпляре
+    public void reindexUser(Long userId) {
+        List<PostDocument> documents = postRepository.findDocumentsByUserId(userId);
+        lock.writeLock().lock();
+        try {
+            index.removeUser(userId);
+            for (PostDocument document : documents) {
+                index.add(document.id(), document.userId(), document.content());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of users with at least one post matching the query, in ascending order.
+     * A query without terms matches nothing.
+     */
+    public List<Long> findUserIds(String query) {
+        List<String> terms = Tokenizer.tokenize(query);
+        lock.readLock().lock();
+        try {
+            Set<Long> userIds = new LinkedHashSet<>();
+            for (long postId : index.match(terms)) {
+                userIds.add(index.posts.get(postId).userId());
+            }
+            return userIds.stream().sorted().toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} best-ranked posts containing every query term, starting
+     * after {@code after} if given. Keeps only {@code limit} candidates at a time instead of
+     * sorting all matches.
+     */
+    public List<PostSearchHit> search(String query, SearchCursor after, int limit) {
+        List<String> terms = Tokenizer.tokenize(query);
+        lock.readLock().lock();
+        try {
+            return index.search(terms, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.posts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyRemote(InvalidationBatch batch) {
+        for (String tag : batch.tags()) {
+            CacheTags.idOf(tag, CacheTags.POSTS_PREFIX).ifPresent(this::reindexUser);
+        }
+    }
+
+    private record IndexedPost(Long userId, int length, String[] terms) {
+    }
+
+    // Накопленная оценка поста и число уже совпавших термов запроса
+    private static final class Score {
+        private double value;
+        private int matchedTerms;
+    }
+
+    private static final class Index {
+        private final TreeMap<String, PostingList> postings = new TreeMap<>();
+        private final Map<Long, IndexedPost> posts = new HashMap<>();
+        private long totalLength;
+
+        void add(long postId, Long userId, String content) {
+            List<String> terms = Tokenizer.tokenize(content);
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : terms) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new PostingList()).add(postId, frequency));
+            posts.put(postId, new IndexedPost(userId, terms.size(), frequencies.keySet().toArray(String[]::new)));
+            totalLength += terms.size();
+        }
+
+        void remove(long postId) {
+            IndexedPost post = posts.remove(postId);
+            if (post == null) {
+                return;
+            }
+            totalLength -= post.length();
+            for (String term : post.terms()) {
+                PostingList postingList = postings.get(term);
+                if (postingList != null && postingList.remove(postId) && postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        void removeUser(Long userId) {
+            long[] postIds = posts.entrySet().stream()
+                    .filter(entry -> entry.getValue().userId().equals(userId))
+                    .mapToLong(Map.Entry::getKey)
+                    .toArray();
+            for (long postId : postIds) {
+                remove(postId);
+            }
+        }
+
+        // Отсортированные id постов, где каждый терм запроса встречается как терм или его префикс
+        long[] match(List<String> terms) {
+            long[] result = null;
+            for (String term : new LinkedHashSet<>(terms)) {
+                long[] postIds = prefixMatch(term);
+                result = result == null ? postIds : intersect(result, postIds);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result == null ? new long[0] : result;
+        }
+
+        List<PostSearchHit> search(List<String> terms, SearchCursor after, int limit) {
+            List<String> queryTerms = List.copyOf(new LinkedHashSet<>(terms));
+            if (queryTerms.isEmpty() || posts.isEmpty() || limit <= 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / posts.size());
+            Map<Long, Score> scores = new HashMap<>();
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String prefix = queryTerms.get(i);
+                for (PostingList postingList : postings.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                    double idf = Math.log(1 + (posts.size() - postingList.size() + 0.5) / (postingList.size() + 0.5));
+                    PostingList.Cursor cursor = postingList.cursor();
+                    while (cursor.next()) {
+                        Score score = scores.get(cursor.docId());
+                        if (score == null && i == 0) {
+                            score = new Score();
+                            scores.put(cursor.docId(), score);
+                        }
+                        // Пост, не совпавший с каким-то из прежних термов, уже не попадёт в выдачу
+                        if (score == null || score.matchedTerms < i) {
+                            continue;
+                        }
+                        double length = posts.get(cursor.docId()).length();
+                        double frequency = cursor.frequency();
+                        score.value += idf * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * length / averageLength));
+                        score.matchedTerms = i + 1;
+                    }
+                }
+            }
+
+            // Куча на limit элементов, в вершине худший из лучших
+            PriorityQueue<PostSearchHit> top = new PriorityQueue<>(limit + 1, PostSearchHit.RANKING.reversed());
+            scores.forEach((postId, score) -> {
+                if (score.matchedTerms != queryTerms.size()) {
+                    return;
+                }
+                PostSearchHit hit = new PostSearchHit(postId, posts.get(postId).userId(), score.value);
+                if (after != null && !after.precedes(hit)) {
+                    return;
+                }
+                top.offer(hit);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            });
+            List<PostSearchHit> hits = new ArrayList<>(top);
+            hits.sort(PostSearchHit.RANKING);
+            return hits;
+        }
+
+        private long[] prefixMatch(String prefix) {
+            long[] postIds = new long[0];
+            int count = 0;
+            for (PostingList postingList : postings.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                if (count + postingList.size() > postIds.length) {
+                    postIds = Arrays.copyOf(postIds, Math.max(postIds.length * 2, count + postingList.size()));
+                }
+                PostingList.Cursor cursor = postingList.cursor();
+                while (cursor.next()) {
+                    postIds[count++] = cursor.docId();
+                }
+            }
+            Arrays.sort(postIds, 0, count);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || postIds[i] != postIds[distinct - 1]) {
+                    postIds[distinct++] = postIds[i];
+                }
+            }
+            return Arrays.copyOf(postIds, distinct);
+        }
+
+        private static long[] intersect(long[] left, long[] right) {
+            long[] result = new long[Math.min(left.length, right.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.length && j < right.length) {
+                if (left[i] < right[j]) {
+                    i++;
+                } else if (left[i] > right[j]) {
+                    j++;
+                } else {
+                    result[count++] = left[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
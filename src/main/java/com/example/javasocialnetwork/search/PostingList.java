@@ -0,0 +1,147 @@
+package com.example.javasocialnetwork.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted post ids of one term with the term's frequency in each post, packed into a byte array:
+ * every entry is the gap to the previous id followed by the frequency, both as varints. Small
+ * gaps, the common case for ids handed out in order, take one or two bytes.
+ *
+ * <p>Appending an id above the last one is amortized O(1); any other change re-encodes the
+ * list. Not thread-safe, {@link PostSearchIndex} guards it.
+ */
+final class PostingList {
+    private byte[] data = new byte[8];
+    private int length;
+    private int size;
+    private long lastDocId;
+
+    void add(long docId, int frequency) {
+        if (size == 0 || docId > lastDocId) {
+            writeVarLong(docId - lastDocId);
+            writeVarLong(frequency);
+            lastDocId = docId;
+            size++;
+            return;
+        }
+        long[] docIds = new long[size + 1];
+        int[] frequencies = new int[size + 1];
+        int count = 0;
+        boolean inserted = false;
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            if (!inserted && cursor.docId() >= docId) {
+                docIds[count] = docId;
+                frequencies[count++] = frequency;
+                inserted = true;
+                if (cursor.docId() == docId) {
+                    continue;
+                }
+            }
+            docIds[count] = cursor.docId();
+            frequencies[count++] = cursor.frequency();
+        }
+        rewrite(docIds, frequencies, count);
+    }
+
+    boolean remove(long docId) {
+        long[] docIds = new long[size];
+        int[] frequencies = new int[size];
+        int count = 0;
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            if (cursor.docId() != docId) {
+                docIds[count] = cursor.docId();
+                frequencies[count++] = cursor.frequency();
+            }
+        }
+        if (count == size) {
+            return false;
+        }
+        rewrite(docIds, frequencies, count);
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Занятые байты, без запаса под дозапись
+    int encodedBytes() {
+        return length;
+    }
+
+    long[] docIds() {
+        long[] docIds = new long[size];
+        Cursor cursor = cursor();
+        for (int i = 0; cursor.next(); i++) {
+            docIds[i] = cursor.docId();
+        }
+        return docIds;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void rewrite(long[] docIds, int[] frequencies, int count) {
+        length = 0;
+        size = 0;
+        lastDocId = 0;
+        for (int i = 0; i < count; i++) {
+            add(docIds[i], frequencies[i]);
+        }
+    }
+
+    private void writeVarLong(long value) {
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    final class Cursor {
+        private int position;
+        private int remaining = size;
+        private long docId;
+        private int frequency;
+
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            docId += readVarLong();
+            frequency = (int) readVarLong();
+            remaining--;
+            return true;
+        }
+
+        long docId() {
+            return docId;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
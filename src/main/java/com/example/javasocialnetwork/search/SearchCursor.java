@@ -0,0 +1,40 @@
+package com.example.javasocialnetwork.search;
+
+import com.example.javasocialnetwork.exception.ValidationException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position after the last hit of a search page: its score and post id. Passed to the client as
+ * an opaque URL-safe string and back to fetch the next page.
+ */
+public record SearchCursor(double score, long postId) {
+
+    public static SearchCursor after(PostSearchHit hit) {
+        return new SearchCursor(hit.score(), hit.postId());
+    }
+
+    public static SearchCursor decode(String value) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(value);
+            if (bytes.length != 2 * Long.BYTES) {
+                throw new IllegalArgumentException("Unexpected cursor length: " + bytes.length);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new SearchCursor(buffer.getDouble(), buffer.getLong());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid search cursor")
+                    .addDetail("cursor", value);
+        }
+    }
+
+    public String encode() {
+        byte[] bytes = ByteBuffer.allocate(2 * Long.BYTES).putDouble(score).putLong(postId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Хит идёт в выдаче строго после курсора
+    boolean precedes(PostSearchHit hit) {
+        return PostSearchHit.RANKING.compare(new PostSearchHit(postId, null, score), hit) < 0;
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.javasocialnetwork.search;
+
+// Имя пользователя для индекса; читается JPQL-проекцией без загрузки сущностей
+public record UsernameDocument(Long id, String username) {
+}
@@ -0,0 +1,338 @@
+package com.example.javasocialnetwork.search;
+
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.cache.InvalidationBatch;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory trigram index over usernames, case-insensitive.
+ *
+ * <p>Each username is indexed by its three-character substrings, padded with two spaces in
+ * front and one behind so that short names and name boundaries get trigrams too. A substring
+ * query looks up the names holding all of its trigrams; a query shorter than three characters
+ * looks up every trigram containing it. Candidates are then checked against the real name.
+ *
+ * <p>Fuzzy search finds names within {@link #maxEdits} edits of the query. One edit changes at
+ * most three trigrams, so only names sharing enough trigrams with the query are compared with
+ * a bounded Levenshtein distance.
+ *
+ * <p>Like {@link PostSearchIndex}, the index is built on startup, kept current by
+ * {@code UserService} and refreshed for users whose {@code user:} tags arrive from peers.
+ */
+@Component
+public class UsernameIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsernameIndex.class);
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+    // Ближе к началу совпадение или меньше правок, затем короче имя, затем по алфавиту
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::rank)
+            .thenComparingInt(match -> match.username().length())
+            .thenComparing(Match::username, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(Match::userId);
+
+    private final UserRepository userRepository;
+    private final ObjectProvider<CacheInvalidationBus> invalidationBus;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Читается под read lock, меняется и подменяется целиком под write lock
+    private Index index = new Index();
+
+    public UsernameIndex(UserRepository userRepository, ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+        invalidationBus.ifAvailable(bus -> bus.addRemoteListener(this::applyRemote));
+    }
+
+    // Читает всех пользователей в новый индекс и подменяет им текущий
+    public void rebuild() {
+        Index rebuilt = new Index();
+        long afterId = 0;
+        List<UsernameDocument> batch;
+        do {
+            batch = userRepository.findUsernamesAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (UsernameDocument document : batch) {
+                rebuilt.add(document.id(), document.username());
+                afterId = document.id();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("[SEARCH] Indexed {} usernames, {} trigrams", rebuilt.usernames.size(), rebuilt.trigrams.size());
+    }
+
+    // Добавляет пользователя или заменяет его прежнее имя
+    public void index(Long userId, String username) {
+        lock.writeLock().lock();
+        try {
+            index.remove(userId);
+            index.add(userId, username);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns users whose name contains the query or, if {@code fuzzy} is set, is within
+     * {@link #maxEdits} edits of it, best matches first. Skips {@code offset} matches and
+     * returns at most {@code limit}.
+     */
+    public List<UserDto> search(String query, boolean fuzzy, int offset, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int maxEdits = maxEdits(normalized);
+        int wanted = offset + limit;
+        PriorityQueue<Match> top = new PriorityQueue<>(wanted + 1, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            long[] candidates = fuzzy
+                    ? index.fuzzyCandidates(normalized, maxEdits)
+                    : index.substringCandidates(normalized);
+            for (long userId : candidates) {
+                String username = index.usernames.get(userId);
+                String name = normalize(username);
+                int rank = fuzzy ? distance(normalized, name, maxEdits) : name.indexOf(normalized);
+                if (rank < 0 || (fuzzy && rank > maxEdits)) {
+                    continue;
+                }
+                top.offer(new Match(userId, username, rank));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort(RANKING);
+        return matches.stream()
+                .skip(offset)
+                .map(UsernameIndex::toDto)
+                .toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.usernames.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Короткие запросы терпят одну правку, длинные две
+    static int maxEdits(String query) {
+        return query.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Levenshtein distance between two strings, or {@code max + 1} as soon as it is known to
+     * exceed {@code max}.
+     */
+    static int distance(String left, String right, int max) {
+        if (Math.abs(left.length() - right.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[right.length() + 1];
+        int[] current = new int[right.length() + 1];
+        for (int j = 0; j <= right.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= left.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= right.length(); j++) {
+                int substitution = previous[j - 1] + (left.charAt(i - 1) == right.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[right.length()], max + 1);
+    }
+
+    private void applyRemote(InvalidationBatch batch) {
+        for (String tag : batch.tags()) {
+            CacheTags.idOf(tag, CacheTags.USER_PREFIX).ifPresent(this::refresh);
+        }
+    }
+
+    private void refresh(Long userId) {
+        userRepository.findById(userId)
+                .map(User::getUsername)
+                .ifPresentOrElse(username -> index(userId, username), () -> remove(userId));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> paddedTrigrams(String normalized) {
+        return trigrams("  " + normalized + " ");
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            trigrams.add(value.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static UserDto toDto(Match match) {
+        UserDto dto = new UserDto();
+        dto.setId(match.userId());
+        dto.setUsername(match.username());
+        return dto;
+    }
+
+    private record Match(long userId, String username, int rank) {
+    }
+
+    private static final class Index {
+        private final Map<String, PostingList> trigrams = new HashMap<>();
+        private final Map<Long, String> usernames = new HashMap<>();
+
+        void add(long userId, String username) {
+            usernames.put(userId, username);
+            for (String trigram : paddedTrigrams(normalize(username))) {
+                trigrams.computeIfAbsent(trigram, key -> new PostingList()).add(userId, 1);
+            }
+        }
+
+        void remove(long userId) {
+            String username = usernames.remove(userId);
+            if (username == null) {
+                return;
+            }
+            for (String trigram : paddedTrigrams(normalize(username))) {
+                PostingList postingList = trigrams.get(trigram);
+                if (postingList != null && postingList.remove(userId) && postingList.isEmpty()) {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+
+        // Имена со всеми триграммами запроса; короче трёх символов — с любой триграммой, где он встречается
+        long[] substringCandidates(String query) {
+            if (query.length() < 3) {
+                List<PostingList> postingLists = new ArrayList<>();
+                trigrams.forEach((trigram, postingList) -> {
+                    if (trigram.contains(query)) {
+                        postingLists.add(postingList);
+                    }
+                });
+                return union(postingLists);
+            }
+            List<PostingList> postingLists = new ArrayList<>();
+            for (String trigram : trigrams(query)) {
+                PostingList postingList = trigrams.get(trigram);
+                if (postingList == null) {
+                    return new long[0];
+                }
+                postingLists.add(postingList);
+            }
+            // Пересечение начинается с самого короткого списка
+            postingLists.sort(Comparator.comparingInt(PostingList::size));
+            long[] result = postingLists.get(0).docIds();
+            for (int i = 1; i < postingLists.size() && result.length > 0; i++) {
+                result = intersect(result, postingLists.get(i).docIds());
+            }
+            return result;
+        }
+
+        // Имена, у которых общих с запросом триграмм не меньше, чем могут оставить maxEdits правок
+        long[] fuzzyCandidates(String query, int maxEdits) {
+            Set<String> queryTrigrams = paddedTrigrams(query);
+            int threshold = queryTrigrams.size() - 3 * maxEdits;
+            if (threshold <= 0) {
+                return usernames.keySet().stream().mapToLong(Long::longValue).toArray();
+            }
+            Map<Long, Integer> shared = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                PostingList postingList = trigrams.get(trigram);
+                if (postingList == null) {
+                    continue;
+                }
+                PostingList.Cursor cursor = postingList.cursor();
+                while (cursor.next()) {
+                    shared.merge(cursor.docId(), 1, Integer::sum);
+                }
+            }
+            return shared.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= threshold)
+                    .mapToLong(Map.Entry::getKey)
+                    .toArray();
+        }
+
+        private static long[] union(List<PostingList> postingLists) {
+            return postingLists.stream()
+                    .flatMapToLong(postingList -> Arrays.stream(postingList.docIds()))
+                    .distinct()
+                    .toArray();
+        }
+
+        private static long[] intersect(long[] left, long[] right) {
+            long[] result = new long[Math.min(left.length, right.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.length && j < right.length) {
+                if (left[i] < right[j]) {
+                    i++;
+                } else if (left[i] > right[j]) {
+                    j++;
+                } else {
+                    result[count++] = left[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.javasocialnetwork.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers changes of the in-memory search indexes until the surrounding transaction commits, so a
+ * rolled-back write never leaves index entries for rows that do not exist. Outside a transaction
+ * the change is applied at once.
+ */
+final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
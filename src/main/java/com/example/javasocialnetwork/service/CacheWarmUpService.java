@@ -0,0 +1,154 @@
+package com.example.javasocialnetwork.service;
+
+import com.example.javasocialnetwork.cache.CacheProperties;
+import com.example.javasocialnetwork.stats.VisitCounterService;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Preloads the users and groups whose pages were visited most ({@code /users/{id}},
+ * {@code /groups/{id}}) into the cache. Runs on its own thread after the application is ready,
+ * reads the entities in batches, hottest first, and stops starting new batches once the time
+ * budget is spent.
+ */
+@Service
+public class CacheWarmUpService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheWarmUpService.class);
+    private static final Pattern USER_URI = Pattern.compile("^/users/(\\d+)$");
+    private static final Pattern GROUP_URI = Pattern.compile("^/groups/(\\d+)$");
+
+    private final VisitCounterService visitCounterService;
+    private final UserService userService;
+    private final GroupService groupService;
+    private final CacheProperties cacheProperties;
+    private final LongSupplier clock;
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor();
+
+    @Autowired
+    public CacheWarmUpService(VisitCounterService visitCounterService,
+                              UserService userService,
+                              GroupService groupService,
+                              CacheProperties cacheProperties) {
+        this(visitCounterService, userService, groupService, cacheProperties, System::currentTimeMillis);
+    }
+
+    CacheWarmUpService(VisitCounterService visitCounterService,
+                       UserService userService,
+                       GroupService groupService,
+                       CacheProperties cacheProperties,
+                       LongSupplier clock) {
+        this.visitCounterService = visitCounterService;
+        this.userService = userService;
+        this.groupService = groupService;
+        this.cacheProperties = cacheProperties;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (cacheProperties.getWarmUp().isEnabled()) {
+            warmUpAsync();
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        warmUpExecutor.shutdownNow();
+    }
+
+    // Прогрев после очистки кеша, если он включён
+    public void afterClear() {
+        if (cacheProperties.getWarmUp().isEnabled() && cacheProperties.getWarmUp().isAfterClear()) {
+            warmUpAsync();
+        }
+    }
+
+    public CompletableFuture<WarmUpResult> warmUpAsync() {
+        return CompletableFuture.supplyAsync(this::warmUpQuietly, warmUpExecutor);
+    }
+
+    public WarmUpResult warmUp() {
+        CacheProperties.WarmUp settings = cacheProperties.getWarmUp();
+        boolean json = cacheProperties.getJson().isEnabled();
+        long startedAt = clock.getAsLong();
+        long deadline = startedAt + settings.getTimeBudget().toMillis();
+
+        List<Long> userBatch = new ArrayList<>();
+        List<Long> groupBatch = new ArrayList<>();
+        int preloaded = 0;
+        boolean completed = true;
+        for (HotEntity entity : hottest(settings.getTopN())) {
+            List<Long> batch = entity.user() ? userBatch : groupBatch;
+            batch.add(entity.id());
+            if (batch.size() < settings.getBatchSize()) {
+                continue;
+            }
+            if (clock.getAsLong() >= deadline) {
+                completed = false;
+                break;
+            }
+            List<Long> ids = List.copyOf(batch);
+            batch.clear();
+            preloaded += entity.user() ? userService.warmUp(ids, json) : groupService.warmUp(ids, json);
+        }
+        if (completed && !userBatch.isEmpty()) {
+            completed = clock.getAsLong() < deadline;
+            preloaded += completed ? userService.warmUp(userBatch, json) : 0;
+        }
+        if (completed && !groupBatch.isEmpty()) {
+            completed = clock.getAsLong() < deadline;
+            preloaded += completed ? groupService.warmUp(groupBatch, json) : 0;
+        }
+        return new WarmUpResult(preloaded, completed, clock.getAsLong() - startedAt);
+    }
+
+    private WarmUpResult warmUpQuietly() {
+        try {
+            WarmUpResult result = warmUp();
+            LOGGER.info("[CACHE] Warm-up preloaded {} entries in {} ms{}", result.preloaded(),
+                    result.elapsedMillis(), result.completed() ? "" : ", time budget exhausted");
+            return result;
+        } catch (RuntimeException e) {
+            LOGGER.warn("[CACHE] Cache warm-up failed", e);
+            throw e;
+        }
+    }
+
+    private List<HotEntity> hottest(int limit) {
+        List<HotEntity> entities = new ArrayList<>();
+        for (Map.Entry<String, Long> visit : visitCounterService.getAllStats().entrySet()) {
+            Matcher user = USER_URI.matcher(visit.getKey());
+            Matcher group = GROUP_URI.matcher(visit.getKey());
+            if (user.matches()) {
+                entities.add(new HotEntity(true, Long.parseLong(user.group(1)), visit.getValue()));
+            } else if (group.matches()) {
+                entities.add(new HotEntity(false, Long.parseLong(group.group(1)), visit.getValue()));
+            }
+        }
+        return entities.stream()
+                .sorted(Comparator.comparingLong(HotEntity::visits).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private record HotEntity(boolean user, long id, long visits) {
+    }
+
+    public record WarmUpResult(int preloaded, boolean completed, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.javasocialnetwork.service;
+
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.PostRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.GroupDocument;
+import com.example.javasocialnetwork.search.PostDocument;
+import com.example.javasocialnetwork.search.UsernameDocument;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes whole tables as NDJSON or CSV. Rows are read through a forward-only cursor as JPQL
+ * projections, which never enter the persistence context, and are written out one by one, so
+ * memory use does not grow with the number of rows. Passwords are never exported.
+ */
+@Service
+public class ExportService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final List<Column<UsernameDocument>> USER_COLUMNS = List.of(
+            new Column<>("id", UsernameDocument::id),
+            new Column<>("username", UsernameDocument::username));
+    private static final List<Column<GroupDocument>> GROUP_COLUMNS = List.of(
+            new Column<>("id", GroupDocument::id),
+            new Column<>("name", GroupDocument::name),
+            new Column<>("members", GroupDocument::members));
+    private static final List<Column<PostDocument>> POST_COLUMNS = List.of(
+            new Column<>("id", PostDocument::id),
+            new Column<>("userId", PostDocument::userId),
+            new Column<>("content", PostDocument::content));
+
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(UserRepository userRepository,
+                         GroupRepository groupRepository,
+                         PostRepository postRepository,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
+        this.postRepository = postRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Курсор живёт только внутри транзакции; PostgreSQL без неё игнорирует fetch size
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportUsers(ExportFormat format, OutputStream out) {
+        export("users", userRepository::streamUsernames, USER_COLUMNS, format, out);
+    }
+
+    public void exportGroups(ExportFormat format, OutputStream out) {
+        export("groups", groupRepository::streamDocuments, GROUP_COLUMNS, format, out);
+    }
+
+    public void exportPosts(ExportFormat format, OutputStream out) {
+        export("posts", postRepository::streamDocuments, POST_COLUMNS, format, out);
+    }
+
+    private <T> void export(String name, Supplier<Stream<T>> rows, List<Column<T>> columns,
+                            ExportFormat format, OutputStream out) {
+        long count = transactionTemplate.execute(status -> {
+            try (Stream<T> stream = rows.get()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+                long written = format == ExportFormat.CSV
+                        ? writeCsv(stream.iterator(), columns, writer)
+                        : writeNdjson(stream.iterator(), columns, writer);
+                writer.flush();
+                return written;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        LOGGER.info("[EXPORT] Exported {} {} as {}", count, name, format);
+    }
+
+    private <T> long writeNdjson(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        long count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            json.writeStartObject();
+            for (Column<T> column : columns) {
+                json.writeFieldName(column.name());
+                json.writeObject(column.value().apply(row));
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+            count++;
+        }
+        json.flush();
+        return count;
+    }
+
+    private static <T> long writeCsv(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        writer.write(String.join(",", columns.stream().map(Column::name).toList()));
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = columns.get(i).value().apply(row);
+                writer.write(value == null ? "" : csvField(value.toString()));
+            }
+            writer.write("\r\n");
+            count++;
+        }
+        return count;
+    }
+
+    // Поле с запятой, кавычкой или переводом строки берётся в кавычки, кавычки удваиваются (RFC 4180)
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+}
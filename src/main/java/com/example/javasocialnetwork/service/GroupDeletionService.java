@@ -0,0 +1,212 @@
+package com.example.javasocialnetwork.service;
+
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.config.SecondLevelCacheInvalidator;
+import com.example.javasocialnetwork.dto.GroupDeletionDto;
+import com.example.javasocialnetwork.dto.GroupDeletionDto.Status;
+import com.example.javasocialnetwork.exception.GroupDeletionInProgressException;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import jakarta.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes a group without loading its members. A group with at most {@code group.delete-chunk-size}
+ * memberships is deleted in a single transaction. Larger groups lose their memberships in chunks
+ * of that size, each chunk with one {@code SELECT} and one {@code DELETE} in its own transaction,
+ * so locks are held for one chunk at a time and memory does not depend on the size of the group.
+ * The group row goes with the last chunk.
+ *
+ * <p>Only one deletion of a group runs at a time, whether synchronous or in the background.
+ * Running deletions and the last finished ones, up to {@value #MAX_TRACKED_DELETIONS} in total,
+ * can be polled for progress.
+ */
+@Service
+public class GroupDeletionService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupDeletionService.class);
+    static final int MAX_TRACKED_DELETIONS = 100;
+    private static final String SELECT_MEMBERS = "SELECT user_id FROM user_groups WHERE group_id = :groupId LIMIT :limit";
+    private static final String GROUP_ID = "groupId";
+    private static final String DELETE_MEMBERSHIPS =
+            "DELETE FROM user_groups WHERE group_id = :groupId AND user_id IN (:userIds)";
+
+    private final GroupRepository groupRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheService cacheService;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ObjectProvider<SecondLevelCacheInvalidator> secondLevelCacheInvalidator;
+    private final int chunkSize;
+    private final ExecutorService deletionExecutor = Executors.newSingleThreadExecutor();
+    // Последние удаления по id группы в порядке запуска; вытесняются только завершённые
+    private final Map<Long, GroupDeletionDto> deletions = new LinkedHashMap<>();
+
+    public GroupDeletionService(GroupRepository groupRepository,
+                                NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                CacheService cacheService,
+                                AutocompleteIndex autocompleteIndex,
+                                ObjectProvider<SecondLevelCacheInvalidator> secondLevelCacheInvalidator,
+                                @Value("${group.delete-chunk-size:10000}") int chunkSize) {
+        this.groupRepository = groupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheService = cacheService;
+        this.autocompleteIndex = autocompleteIndex;
+        this.secondLevelCacheInvalidator = secondLevelCacheInvalidator;
+        this.chunkSize = chunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deletionExecutor.shutdownNow();
+    }
+
+    /**
+     * Deletes the group in the calling thread. Fails if a deletion of the group is already running.
+     */
+    public GroupDeletionDto delete(Long groupId) {
+        GroupDeletionDto started = new GroupDeletionDto(groupId, Status.RUNNING, 0, 0);
+        synchronized (deletions) {
+            if (running(groupId) != null) {
+                throw new GroupDeletionInProgressException("Group deletion is already running")
+                        .addDetail(GROUP_ID, groupId);
+            }
+            register(started);
+        }
+        return runTracked(started);
+    }
+
+    /**
+     * Starts deleting the group in the background and returns its initial progress. A deletion
+     * already running for the group is returned as is.
+     */
+    public GroupDeletionDto submit(Long groupId) {
+        GroupDeletionDto started = new GroupDeletionDto(groupId, Status.RUNNING, 0, 0);
+        synchronized (deletions) {
+            GroupDeletionDto running = running(groupId);
+            if (running != null) {
+                return running;
+            }
+            register(started);
+        }
+        deletionExecutor.execute(() -> {
+            try {
+                runTracked(started);
+            } catch (RuntimeException e) {
+                LOGGER.error("[GROUP] Background deletion of group {} failed", groupId, e);
+            }
+        });
+        return started;
+    }
+
+    public Optional<GroupDeletionDto> progress(Long groupId) {
+        synchronized (deletions) {
+            return Optional.ofNullable(deletions.get(groupId));
+        }
+    }
+
+    // Зарегистрированное удаление обязано завершиться DONE или FAILED, иначе группа останется занятой
+    private GroupDeletionDto runTracked(GroupDeletionDto started) {
+        Long groupId = started.getGroupId();
+        try {
+            return run(groupId, this::track);
+        } catch (RuntimeException e) {
+            GroupDeletionDto last = progress(groupId).orElse(started);
+            track(new GroupDeletionDto(groupId, Status.FAILED, last.getChunks(), last.getMembershipsRemoved()));
+            throw e;
+        }
+    }
+
+    private GroupDeletionDto run(Long groupId, Consumer<GroupDeletionDto> progress) {
+        int chunks = 0;
+        long removed = 0;
+        Chunk chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> deleteChunk(groupId));
+            List<Long> memberIds = chunk.memberIds();
+            removed += memberIds.size();
+            chunks++;
+            if (!memberIds.isEmpty()) {
+                // Запись мимо Hibernate: сбрасываем закешированные группы этих участников
+                List<String> tags = memberIds.stream().map(CacheTags::user).toList();
+                secondLevelCacheInvalidator.ifAvailable(invalidator -> invalidator.evictTags(tags));
+            }
+            progress.accept(new GroupDeletionDto(groupId, Status.RUNNING, chunks, removed));
+            LOGGER.info("[GROUP] Group {} chunk {}: {} memberships removed so far", groupId, chunks, removed);
+        } while (!chunk.last());
+
+        autocompleteIndex.removeGroup(groupId);
+        // Тег группы есть и у кеша группы, и у профилей её участников
+        cacheService.invalidateTags(CacheTags.group(groupId));
+        GroupDeletionDto done = new GroupDeletionDto(groupId, Status.DONE, chunks, removed);
+        progress.accept(done);
+        return done;
+    }
+
+    // Лишний участник в выборке показывает, что пачка не последняя. Последняя пачка удаляет
+    // и группу, поэтому группа не больше одной пачки удаляется целиком в одной транзакции
+    private Chunk deleteChunk(Long groupId) {
+        List<Long> memberIds = jdbcTemplate.queryForList(SELECT_MEMBERS,
+                Map.of(GROUP_ID, groupId, "limit", chunkSize + 1), Long.class);
+        boolean last = memberIds.size() <= chunkSize;
+        if (!last) {
+            memberIds = memberIds.subList(0, chunkSize);
+        }
+        if (!memberIds.isEmpty()) {
+            jdbcTemplate.update(DELETE_MEMBERSHIPS, Map.of(GROUP_ID, groupId, "userIds", memberIds));
+        }
+        if (last) {
+            groupRepository.deleteById(groupId);
+        }
+        return new Chunk(memberIds, last);
+    }
+
+    private GroupDeletionDto running(Long groupId) {
+        GroupDeletionDto deletion = deletions.get(groupId);
+        return deletion != null && deletion.getStatus() == Status.RUNNING ? deletion : null;
+    }
+
+    // Перезапись переносит группу в конец порядка вытеснения
+    private void register(GroupDeletionDto started) {
+        deletions.remove(started.getGroupId());
+        deletions.put(started.getGroupId(), started);
+        evictFinished();
+    }
+
+    private void track(GroupDeletionDto progress) {
+        synchronized (deletions) {
+            deletions.put(progress.getGroupId(), progress);
+            evictFinished();
+        }
+    }
+
+    // Идущее удаление не вытесняется: иначе повторный запуск стал бы вторым параллельным удалением
+    private void evictFinished() {
+        Iterator<GroupDeletionDto> eldest = deletions.values().iterator();
+        while (deletions.size() > MAX_TRACKED_DELETIONS && eldest.hasNext()) {
+            if (eldest.next().getStatus() != Status.RUNNING) {
+                eldest.remove();
+            }
+        }
+    }
+
+    private record Chunk(List<Long> memberIds, boolean last) {
+    }
+}
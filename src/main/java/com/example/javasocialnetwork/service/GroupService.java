@@ -1,22 +1,31 @@
 package com.example.javasocialnetwork.service;
 
 import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.cache.JsonPayload;
+import com.example.javasocialnetwork.cache.JsonPayloadEncoder;
+import com.example.javasocialnetwork.dto.BatchDto;
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.GroupDeletionDto;
 import com.example.javasocialnetwork.dto.GroupWithUsersDto;
+import com.example.javasocialnetwork.dto.IdCursor;
 import com.example.javasocialnetwork.entity.Group;
-import com.example.javasocialnetwork.entity.User;
 import com.example.javasocialnetwork.exception.GroupAlreadyExistException;
 import com.example.javasocialnetwork.exception.GroupNotFoundException;
 import com.example.javasocialnetwork.repository.GroupRepository;
-import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
 import jakarta.transaction.Transactional;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -25,41 +34,120 @@ public class GroupService {
     private static final String GROUP_NOT_FOUND = "Group not found";
     private static final String GROUP_ID = "groupId";
     private static final String GROUP = "group_";
-    private static final String GROUPS = "groups_";
+    private static final String GROUP_JSON = "group_json_";
     private final GroupRepository groupRepository;
-    private final UserRepository userRepository;
     private final CacheService cacheService;
+    private final JsonPayloadEncoder jsonPayloadEncoder;
+    private final AutocompleteIndex autocompleteIndex;
+    private final GroupDeletionService groupDeletionService;
 
     @Autowired
     public GroupService(GroupRepository groupRepository,
-                        UserRepository userRepository,
-                        CacheService cacheService) {
+                        CacheService cacheService,
+                        JsonPayloadEncoder jsonPayloadEncoder,
+                        AutocompleteIndex autocompleteIndex,
+                        GroupDeletionService groupDeletionService) {
         this.groupRepository = groupRepository;
-        this.userRepository = userRepository;
         this.cacheService = cacheService;
+        this.jsonPayloadEncoder = jsonPayloadEncoder;
+        this.autocompleteIndex = autocompleteIndex;
+        this.groupDeletionService = groupDeletionService;
     }
 
-    public List<GroupWithUsersDto> getAllGroups() {
-        return groupRepository.findAll().stream()
-                .map(GroupWithUsersDto::toModel)
-                .collect(Collectors.toList());
+    /**
+     * Returns up to {@code limit} groups with their members in id order, starting after
+     * {@code cursor}, the previous page's {@code nextCursor}.
+     */
+    public CursorPageDto<GroupWithUsersDto> getGroups(String cursor, int limit) {
+        IdCursor after = IdCursor.decode(cursor);
+        // Лишний id показывает, есть ли следующая страница; участники читаются только для этой
+        List<Long> ids = groupRepository.findIdsAfter(after.afterId(), PageRequest.of(0, limit + 1));
+        boolean hasMore = ids.size() > limit;
+        List<Long> pageIds = hasMore ? ids.subList(0, limit) : ids;
+
+        List<GroupWithUsersDto> items = pageIds.isEmpty() ? List.of()
+                : groupRepository.findWithUsersByIdInOrderByIdAsc(pageIds).stream()
+                        .map(GroupWithUsersDto::toModel)
+                        .toList();
+        String nextCursor = hasMore ? IdCursor.after(pageIds.get(pageIds.size() - 1)).encode() : null;
+        return new CursorPageDto<>(items, nextCursor);
     }
 
     public GroupWithUsersDto getOne(Long id) {
         String cacheKey = GROUP + id;
 
-        return (GroupWithUsersDto) cacheService.get(cacheKey)
-                .orElseGet(() -> {
-                    logger.info("[DB] Fetching group from database by id: {}", id);
+        return cacheService.getOrLoad(cacheKey, () -> loadGroup(id),
+                CacheTags::forGroup, Absence.of(GroupNotFoundException.class, CacheTags.group(id)));
+    }
+
+    // Готовый JSON для ответа; кешируется отдельно от DTO, но с теми же тегами
+    public JsonPayload getOneJson(Long id) {
+        return cacheService.getOrLoad(GROUP_JSON + id, () -> encode(loadGroup(id)),
+                JsonPayload::tags, Absence.of(GroupNotFoundException.class, CacheTags.group(id)));
+    }
+
+    /**
+     * Returns the given groups in the order asked. Cached groups are answered from the cache, the
+     * rest are read with their members in one query and cached. Unknown ids are listed in
+     * {@code notFound} instead of failing the request.
+     */
+    @Transactional
+    public BatchDto<GroupWithUsersDto> getMany(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        Map<Long, GroupWithUsersDto> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : distinctIds) {
+            cacheService.get(GROUP + id)
+                    .map(GroupWithUsersDto.class::cast)
+                    .ifPresentOrElse(dto -> found.put(id, dto), () -> misses.add(id));
+        }
+        if (!misses.isEmpty()) {
+            long epoch = cacheService.invalidationEpoch();
+            logger.debug("[DB] Fetching {} groups missing from cache", misses.size());
+            for (Group group : groupRepository.findWithUsersByIdInOrderByIdAsc(misses)) {
+                Long id = group.getId();
+                GroupWithUsersDto dto = GroupWithUsersDto.toModel(group);
+                cacheService.preload(GROUP + id, dto, () -> loadGroup(id), CacheTags::forGroup, epoch);
+                found.put(id, dto);
+            }
+        }
+        return BatchDto.of(distinctIds, found);
+    }
 
-                    Group group = groupRepository.findWithUsersById(id)
-                            .orElseThrow(() -> new GroupNotFoundException(GROUP_NOT_FOUND)
-                                    .addDetail(GROUP_ID, id));
+    /**
+     * Reads the given groups with their members in one query and caches those not cached yet, as DTOs and, if
+     * {@code json} is set, as encoded responses. Returns the number of entries added.
+     */
+    @Transactional
+    public int warmUp(Collection<Long> ids, boolean json) {
+        long epoch = cacheService.invalidationEpoch();
+        int preloaded = 0;
+        for (Group group : groupRepository.findWithUsersByIdInOrderByIdAsc(ids)) {
+            Long id = group.getId();
+            GroupWithUsersDto dto = GroupWithUsersDto.toModel(group);
+            if (cacheService.preload(GROUP + id, dto, () -> loadGroup(id), CacheTags::forGroup, epoch)) {
+                preloaded++;
+            }
+            if (json && cacheService.preload(GROUP_JSON + id, encode(dto),
+                    () -> encode(loadGroup(id)), JsonPayload::tags, epoch)) {
+                preloaded++;
+            }
+        }
+        return preloaded;
+    }
 
-                    GroupWithUsersDto dto = GroupWithUsersDto.toModel(group);
-                    cacheService.put(cacheKey, dto);
-                    return dto;
-                });
+    private JsonPayload encode(GroupWithUsersDto group) {
+        return jsonPayloadEncoder.encode(group, CacheTags.forGroup(group));
+    }
+
+    private GroupWithUsersDto loadGroup(Long id) {
+        logger.debug("[DB] Fetching group from database by id: {}", id);
+
+        Group group = groupRepository.findWithUsersById(id)
+                .orElseThrow(() -> new GroupNotFoundException(GROUP_NOT_FOUND)
+                        .addDetail(GROUP_ID, id));
+
+        return GroupWithUsersDto.toModel(group);
     }
 
     public Group registration(Group group) {
@@ -69,35 +157,38 @@ public class GroupService {
         }
 
         Group savedGroup = groupRepository.save(group);
-
-        // Инвалидация общего кеша групп
-        cacheService.evictByPrefix(GROUPS);
-        logger.info("[CACHE] Invalidated groups cache after registration");
-
+        int members = savedGroup.getUsers().size();
+        AfterCommit.run(() -> autocompleteIndex.putGroup(savedGroup.getId(), savedGroup.getName(), members));
+        // Сбрасываем закешированное отсутствие группы с этим id
+        cacheService.invalidateTags(CacheTags.group(savedGroup.getId()));
         return savedGroup;
     }
 
-    @Transactional
+    // Без общей транзакции: небольшая группа удаляется одной транзакцией, большая — пачками.
+    // Пока группа уже удаляется, повторное удаление отклоняется
     public void deleteGroup(Long groupId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new GroupNotFoundException(GROUP_NOT_FOUND)
+        requireExists(groupId);
+        groupDeletionService.delete(groupId);
+        logger.info("[CACHE] Invalidated group {} and member caches", groupId);
+    }
+
+    // Для больших групп: удаление идёт в фоне, ход виден через getDeletionProgress
+    public GroupDeletionDto deleteGroupInBackground(Long groupId) {
+        requireExists(groupId);
+        return groupDeletionService.submit(groupId);
+    }
+
+    public GroupDeletionDto getDeletionProgress(Long groupId) {
+        return groupDeletionService.progress(groupId)
+                .orElseThrow(() -> new GroupNotFoundException("Group deletion not found")
                         .addDetail(GROUP_ID, groupId));
+    }
 
-        Set<User> users = new HashSet<>(group.getUsers());
-        users.forEach(user -> {
-            user.removeGroup(group);
-            userRepository.save(user);
-            // Инвалидация кеша пользователей
-            cacheService.evict("user_" + user.getId());
-        });
-
-        groupRepository.delete(group);
-
-        // Инвалидация кеша группы и общего кеша
-        cacheService.evict(GROUP + groupId);
-        cacheService.evictByPrefix(GROUPS);
-        cacheService.invalidateUserCache();
-        logger.info("[CACHE] Invalidated group {} and user caches", groupId);
+    private void requireExists(Long groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            throw new GroupNotFoundException(GROUP_NOT_FOUND)
+                    .addDetail(GROUP_ID, groupId);
+        }
     }
 
     public void updateGroup(Long id, Group updatedGroup) {
@@ -107,11 +198,11 @@ public class GroupService {
 
         existingGroup.setName(updatedGroup.getName());
         groupRepository.save(existingGroup);
+        String name = existingGroup.getName();
+        AfterCommit.run(() -> autocompleteIndex.renameGroup(id, name));
 
-        // Инвалидация кеша группы и поиска по имени
-        cacheService.evict(GROUP + id);
-        cacheService.evict("group_by_name_" + existingGroup.getName());
-        cacheService.evictByPrefix(GROUPS);
+        // Инвалидация кеша группы и профилей её участников
+        cacheService.invalidateTags(CacheTags.group(id));
         logger.info("[CACHE] Invalidated group {} cache after update", id);
     }
 }
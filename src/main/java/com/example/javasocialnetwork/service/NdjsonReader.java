@@ -0,0 +1,180 @@
+package com.example.javasocialnetwork.service;
+
+import com.example.javasocialnetwork.dto.ImportErrorDto;
+import com.example.javasocialnetwork.dto.ImportReportDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads newline-delimited JSON one record at a time. Lines are read from the stream only when
+ * the caller asks for the next record, so a slow consumer holds back the upload instead of
+ * buffering it. Blank lines are ignored; lines that do not parse or fail bean validation are
+ * counted and the first {@value #MAX_REPORTED_ERRORS} of them are kept with their line number.
+ * A line longer than {@value #MAX_LINE_LENGTH} characters is rejected the same way without being
+ * held in memory, so an upload without line breaks cannot grow the heap.
+ */
+class NdjsonReader<T> implements Iterator<T> {
+    static final int MAX_REPORTED_ERRORS = 100;
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Reader input;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder line = new StringBuilder();
+    private final ObjectReader objectReader;
+    private final Validator validator;
+    private final List<ImportErrorDto> errors = new ArrayList<>();
+    private long lineNumber;
+    private long recordLine;
+    private long failed;
+    private T next;
+    private int position;
+    private int limit;
+    private boolean lineTooLong;
+
+    NdjsonReader(InputStream input, ObjectReader objectReader, Validator validator) {
+        this.input = new InputStreamReader(input, StandardCharsets.UTF_8);
+        this.objectReader = objectReader;
+        this.validator = validator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            String line = readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            if (lineTooLong) {
+                reject(lineNumber, "Line exceeds " + MAX_LINE_LENGTH + " characters");
+            } else if (!line.isBlank()) {
+                next = parse(line);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T record = next;
+        next = null;
+        recordLine = lineNumber;
+        return record;
+    }
+
+    // Номер строки последней выданной записи
+    long line() {
+        return recordLine;
+    }
+
+    // Отклоняет уже выданную запись, например с несуществующей ссылкой
+    void reject(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportErrorDto(line, message));
+        }
+    }
+
+    // Дописывает в отчёт отклонённые строки
+    ImportReportDto complete(ImportReportDto report) {
+        report.setFailed(failed);
+        report.setErrors(List.copyOf(errors));
+        return report;
+    }
+
+    private T parse(String line) {
+        T record;
+        try {
+            record = objectReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            reject(lineNumber, e.getOriginalMessage());
+            return null;
+        }
+        if (record == null) {
+            reject(lineNumber, "Record cannot be null");
+            return null;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            // Порядок нарушений не задан, сортируем для стабильного отчёта
+            reject(lineNumber, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        return record;
+    }
+
+    // Как BufferedReader.readLine, но сверх MAX_LINE_LENGTH символы не копятся, а пропускаются до конца строки
+    private String readLine() {
+        line.setLength(0);
+        lineTooLong = false;
+        boolean read = false;
+        while (position < limit || fill()) {
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position);
+            if (position < limit) {
+                position++;
+                return completeLine();
+            }
+        }
+        return read ? completeLine() : null;
+    }
+
+    private void append(int from, int to) {
+        if (lineTooLong) {
+            return;
+        }
+        if (line.length() + (to - from) > MAX_LINE_LENGTH) {
+            lineTooLong = true;
+            line.setLength(0);
+            return;
+        }
+        line.append(buffer, from, to - from);
+    }
+
+    private String completeLine() {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    private boolean fill() {
+        try {
+            int read = input.read(buffer);
+            if (read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.javasocialnetwork.service;
+
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.config.SecondLevelCacheInvalidator;
+import com.example.javasocialnetwork.dto.ImportReportDto;
+import com.example.javasocialnetwork.dto.PostImportDto;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.PostDocument;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports posts from newline-delimited JSON in chunks of {@code import.chunk-size} lines, the
+ * same way {@link UserImportService} imports users. Each chunk checks its authors with one
+ * {@code id IN (...)} query and inserts its posts with one JDBC batch in its own transaction;
+ * posts of unknown users are rejected with their line number.
+ */
+@Service
+public class PostImportService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostImportService.class);
+    private static final String INSERT_POST = "INSERT INTO posts (content, user_id, version) VALUES (?, ?, 0)";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheService cacheService;
+    private final PostSearchIndex postSearchIndex;
+    private final ObjectProvider<SecondLevelCacheInvalidator> secondLevelCacheInvalidator;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public PostImportService(UserRepository userRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             CacheService cacheService,
+                             PostSearchIndex postSearchIndex,
+                             ObjectProvider<SecondLevelCacheInvalidator> secondLevelCacheInvalidator,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${import.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheService = cacheService;
+        this.postSearchIndex = postSearchIndex;
+        this.secondLevelCacheInvalidator = secondLevelCacheInvalidator;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReportDto importPosts(InputStream ndjson) {
+        NdjsonReader<PostImportDto> records =
+                new NdjsonReader<>(ndjson, objectMapper.readerFor(PostImportDto.class), validator);
+        int chunks = 0;
+        long read = 0;
+        long created = 0;
+        while (records.hasNext()) {
+            List<Line> chunk = new ArrayList<>(chunkSize);
+            while (records.hasNext() && chunk.size() < chunkSize) {
+                PostImportDto post = records.next();
+                chunk.add(new Line(records.line(), post));
+            }
+            read += chunk.size();
+            created += importChunk(chunk, records);
+            chunks++;
+            LOGGER.info("[IMPORT] Posts chunk {}: {} read, {} created so far", chunks, read, created);
+        }
+        // Посты не пропускаются: всё, что не вставлено, отклонено с номером строки
+        return records.complete(new ImportReportDto(chunks, read, created, 0));
+    }
+
+    private int importChunk(List<Line> chunk, NdjsonReader<PostImportDto> records) {
+        List<PostDocument> inserted = transactionTemplate.execute(status -> {
+            Set<Long> userIds = new HashSet<>(userRepository.findExistingIds(
+                    chunk.stream().map(line -> line.post().getUserId()).distinct().toList()));
+            List<PostImportDto> posts = new ArrayList<>(chunk.size());
+            for (Line line : chunk) {
+                if (userIds.contains(line.post().getUserId())) {
+                    posts.add(line.post());
+                } else {
+                    records.reject(line.number(), "User not found: " + line.post().getUserId());
+                }
+            }
+            return insert(posts);
+        });
+
+        Set<String> tags = new LinkedHashSet<>();
+        for (PostDocument post : inserted) {
+            postSearchIndex.index(post.id(), post.userId(), post.content());
+            tags.add(CacheTags.userPosts(post.userId()));
+        }
+        if (!tags.isEmpty()) {
+            // Вставка шла мимо Hibernate: сбрасываем списки постов авторов и закешированные запросы
+            secondLevelCacheInvalidator.ifAvailable(invalidator -> invalidator.evictTags(tags));
+            tags.add(CacheTags.POST_CONTENT_SEARCH);
+            cacheService.invalidateTags(tags.toArray(String[]::new));
+        }
+        return inserted.size();
+    }
+
+    private List<PostDocument> insert(List<PostImportDto> posts) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_POST, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setString(1, posts.get(i).getContent());
+                        statement.setLong(2, posts.get(i).getUserId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return posts.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<PostDocument> inserted = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            long id = ((Number) generated.get(i).values().iterator().next()).longValue();
+            inserted.add(new PostDocument(id, posts.get(i).getUserId(), posts.get(i).getContent()));
+        }
+        return inserted;
+    }
+
+    private record Line(long number, PostImportDto post) {
+    }
+}
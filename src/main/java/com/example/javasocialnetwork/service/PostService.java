@@ -1,15 +1,29 @@
 package com.example.javasocialnetwork.service;
 
 import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.IdCursor;
+import com.example.javasocialnetwork.dto.PostDto;
+import com.example.javasocialnetwork.dto.PostSearchPageDto;
 import com.example.javasocialnetwork.entity.Post;
 import com.example.javasocialnetwork.entity.User;
 import com.example.javasocialnetwork.exception.NotFoundException;
 import com.example.javasocialnetwork.exception.PostNotFoundException;
 import com.example.javasocialnetwork.repository.PostRepository;
 import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.PostSearchHit;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import com.example.javasocialnetwork.search.SearchCursor;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,31 +33,62 @@ public class PostService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final CacheService cacheService;
+    private final PostSearchIndex postSearchIndex;
 
     public PostService(PostRepository postRepository,
                        UserRepository userRepository,
-                       CacheService cacheService) {
+                       CacheService cacheService,
+                       PostSearchIndex postSearchIndex) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.cacheService = cacheService;
+        this.postSearchIndex = postSearchIndex;
     }
 
-    public List<Post> getUserPosts(Long userId) {
-        String cacheKey = USER_POSTS + userId;
-
-        return (List<Post>) cacheService.get(cacheKey)
-                .orElseGet(() -> {
-                    logger.info("[DB] Fetching posts for user {} from database", userId);
-
-                    List<Post> posts = postRepository.findByUserId(userId);
-                    if (posts.isEmpty()) {
-                        throw new PostNotFoundException("No posts found")
-                                .addDetail("userId", userId);
-                    }
+    /**
+     * Returns up to {@code limit} posts of the user in id order, starting after {@code cursor},
+     * the previous page's {@code nextCursor}. Each page is cached on its own; all of them are
+     * dropped together with the user's {@code posts:} tag.
+     */
+    public CursorPageDto<PostDto> getUserPosts(Long userId, String cursor, int limit) {
+        IdCursor after = IdCursor.decode(cursor);
+        String cacheKey = USER_POSTS + userId + "_" + after.afterId() + "_" + limit;
+
+        return cacheService.getOrLoad(cacheKey, () -> {
+            logger.info("[DB] Fetching posts for user {} from database", userId);
+
+            List<Post> posts = postRepository.findPageByUserId(userId, after.afterId(), PageRequest.of(0, limit + 1));
+            // Пустой может быть только первая страница: курсор указывает на существующий пост
+            if (posts.isEmpty() && after.equals(IdCursor.FIRST)) {
+                throw new PostNotFoundException("No posts found")
+                        .addDetail("userId", userId);
+            }
+            return CursorPageDto.of(posts, limit, Post::getId, PostDto::toModel);
+        }, page -> CacheTags.forUserPosts(userId),
+                Absence.of(PostNotFoundException.class, CacheTags.userPosts(userId)));
+    }
 
-                    cacheService.put(cacheKey, posts);
-                    return posts;
-                });
+    /**
+     * Returns one page of posts matching the query, best first. Only the posts of this page
+     * are read from the database; {@code cursor} is the previous page's {@code nextCursor}.
+     */
+    public PostSearchPageDto searchPosts(String query, String cursor, int limit) {
+        SearchCursor after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        // Лишний хит показывает, есть ли следующая страница
+        List<PostSearchHit> hits = postSearchIndex.search(query, after, limit + 1);
+        boolean hasMore = hits.size() > limit;
+        List<PostSearchHit> page = hasMore ? hits.subList(0, limit) : hits;
+
+        Map<Long, Post> posts = postRepository.findAllById(page.stream().map(PostSearchHit::postId).toList())
+                .stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<PostDto> items = page.stream()
+                .map(hit -> posts.get(hit.postId()))
+                .filter(Objects::nonNull)
+                .map(PostDto::toModel)
+                .toList();
+        String nextCursor = hasMore ? SearchCursor.after(page.get(page.size() - 1)).encode() : null;
+        return new PostSearchPageDto(items, nextCursor);
     }
 
     // Модифицированные методы с точечной инвалидацией кеша
@@ -54,10 +99,10 @@ public class PostService {
 
         Post post = new Post(content, user);
         Post savedPost = postRepository.save(post);
+        AfterCommit.run(() -> postSearchIndex.index(savedPost.getId(), userId, content));
 
         // Инвалидация кеша
-        cacheService.evict(USER_POSTS + userId);
-        cacheService.invalidateUserCache();
+        invalidatePostCaches(userId);
 
         return savedPost;
     }
@@ -69,10 +114,10 @@ public class PostService {
 
         Long userId = post.getUser().getId();
         postRepository.delete(post);
+        AfterCommit.run(() -> postSearchIndex.remove(postId));
 
         // Инвалидация кеша
-        cacheService.evict(USER_POSTS + userId);
-        cacheService.invalidateUserCache();
+        invalidatePostCaches(userId);
     }
 
     public void updatePost(Long postId, String content) {
@@ -83,10 +128,13 @@ public class PostService {
         Long userId = post.getUser().getId();
         post.setContent(content);
         postRepository.save(post);
+        AfterCommit.run(() -> postSearchIndex.index(postId, userId, content));
 
         // Инвалидация кеша
-        cacheService.evict(USER_POSTS + userId);
-        cacheService.invalidateUserCache();
-        cacheService.evictByPrefix("post_content_"); // Если есть кеш по контенту
+        invalidatePostCaches(userId);
+    }
+
+    private void invalidatePostCaches(Long userId) {
+        cacheService.invalidateTags(CacheTags.userPosts(userId), CacheTags.POST_CONTENT_SEARCH);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package com.example.javasocialnetwork.service;
+
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.config.SecondLevelCacheInvalidator;
+import com.example.javasocialnetwork.dto.ImportReportDto;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import com.example.javasocialnetwork.search.UsernameDocument;
+import com.example.javasocialnetwork.search.UsernameIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk user import in chunks of {@code import.chunk-size} users. Each chunk takes a fixed number
+ * of round trips: one {@code username IN (...)} query drops names that already exist, passwords
+ * are hashed in parallel on all cores, the rows go in as one JDBC batch in their own
+ * transaction, and one more query reads back the generated ids.
+ *
+ * <p>A name registered concurrently between the check and the insert fails the chunk's batch on the
+ * unique constraint; the chunk is then checked again and retried without the names that are
+ * now taken, which are reported as skipped.
+ *
+ * <p>Only one chunk is held in memory, so the input can be of any size. A failed chunk does not
+ * roll back the chunks before it. With PostgreSQL, {@code reWriteBatchedInserts=true} in the
+ * JDBC URL makes each batch a single multi-row insert.
+ */
+@Service
+public class UserImportService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserImportService.class);
+    private static final String INSERT_USER = "INSERT INTO users (username, password, version) VALUES (?, ?, 0)";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final CacheService cacheService;
+    private final UsernameIndex usernameIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ObjectProvider<SecondLevelCacheInvalidator> secondLevelCacheInvalidator;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final ForkJoinPool hashingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public UserImportService(UserRepository userRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             BCryptPasswordEncoder passwordEncoder,
+                             CacheService cacheService,
+                             UsernameIndex usernameIndex,
+                             AutocompleteIndex autocompleteIndex,
+                             ObjectProvider<SecondLevelCacheInvalidator> secondLevelCacheInvalidator,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${import.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.cacheService = cacheService;
+        this.usernameIndex = usernameIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.secondLevelCacheInvalidator = secondLevelCacheInvalidator;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    /**
+     * Creates the users whose names are not taken yet and skips the rest, including repeats
+     * within the input. Passwords are expected in plain text and stored hashed. After every
+     * chunk {@code progress} receives the totals so far; the final totals are returned.
+     */
+    public ImportReportDto importUsers(Iterator<User> users, Consumer<ImportReportDto> progress) {
+        int chunks = 0;
+        long read = 0;
+        long created = 0;
+        while (users.hasNext()) {
+            List<User> chunk = new ArrayList<>(chunkSize);
+            while (users.hasNext() && chunk.size() < chunkSize) {
+                chunk.add(users.next());
+            }
+            read += chunk.size();
+            created += importChunk(chunk);
+            chunks++;
+
+            ImportReportDto report = new ImportReportDto(chunks, read, created, read - created);
+            LOGGER.info("[IMPORT] Users chunk {}: {} read, {} created, {} skipped so far",
+                    chunks, read, created, read - created);
+            progress.accept(report);
+        }
+        return new ImportReportDto(chunks, read, created, read - created);
+    }
+
+    /**
+     * Imports users from newline-delimited JSON, one user object per line, reading the stream
+     * only as fast as chunks are written. Lines that do not parse or fail validation are counted
+     * as failed and reported with their line number.
+     */
+    public ImportReportDto importUsers(InputStream ndjson) {
+        NdjsonReader<User> records = new NdjsonReader<>(ndjson, objectMapper.readerFor(User.class), validator);
+        return records.complete(importUsers(records, report -> { }));
+    }
+
+    private int importChunk(List<User> chunk) {
+        // Повтор имени внутри пачки тоже пропускается
+        Map<String, User> byUsername = new LinkedHashMap<>();
+        chunk.forEach(user -> byUsername.putIfAbsent(user.getUsername(), user));
+        removeExisting(byUsername);
+        if (byUsername.isEmpty()) {
+            return 0;
+        }
+
+        List<User> fresh = List.copyOf(byUsername.values());
+        Map<String, String> hashes = hashingPool.submit(() -> fresh.parallelStream()
+                .collect(Collectors.toMap(User::getUsername, user -> passwordEncoder.encode(user.getPassword()))))
+                .join();
+        if (!insert(byUsername, hashes)) {
+            return 0;
+        }
+
+        List<UsernameDocument> inserted = userRepository.findUsernamesIn(byUsername.keySet());
+        inserted.forEach(document -> {
+            usernameIndex.index(document.id(), document.username());
+            autocompleteIndex.putUser(document.id(), document.username());
+        });
+        // Вставка шла мимо Hibernate: сбрасываем закешированные запросы и отсутствие этих id
+        List<String> tags = inserted.stream()
+                .map(document -> CacheTags.user(document.id()))
+                .toList();
+        secondLevelCacheInvalidator.ifAvailable(invalidator -> invalidator.evictTags(tags));
+        cacheService.invalidateTags(tags.toArray(String[]::new));
+        return inserted.size();
+    }
+
+    // Повтор после нарушения уникальности идёт только без занятых за это время имён
+    private boolean insert(Map<String, User> byUsername, Map<String, String> hashes) {
+        while (!byUsername.isEmpty()) {
+            List<Object[]> rows = byUsername.keySet().stream()
+                    .map(username -> new Object[] {username, hashes.get(username)})
+                    .toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_USER, rows));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                int before = byUsername.size();
+                removeExisting(byUsername);
+                if (byUsername.size() == before) {
+                    // Нарушено не имя: пачка целиком пропускается, импорт продолжается
+                    LOGGER.warn("[IMPORT] Users chunk of {} rejected by the database, skipped", before, e);
+                    return false;
+                }
+                LOGGER.info("[IMPORT] {} usernames were registered during the import, retrying without them",
+                        before - byUsername.size());
+            }
+        }
+        return false;
+    }
+
+    private void removeExisting(Map<String, User> byUsername) {
+        userRepository.findUsernamesIn(byUsername.keySet())
+                .forEach(existing -> byUsername.remove(existing.username()));
+    }
+}
@@ -1,6 +1,15 @@
 package com.example.javasocialnetwork.service;
 
 import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.cache.JsonPayload;
+import com.example.javasocialnetwork.cache.JsonPayloadEncoder;
+import com.example.javasocialnetwork.dto.BatchDto;
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.IdCursor;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.dto.UserSearchPageDto;
 import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
 import com.example.javasocialnetwork.entity.Group;
 import com.example.javasocialnetwork.entity.User;
@@ -9,13 +18,22 @@ import com.example.javasocialnetwork.exception.NotFoundException;
 import com.example.javasocialnetwork.exception.UserAlreadyExistException;
 import com.example.javasocialnetwork.repository.GroupRepository;
 import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import com.example.javasocialnetwork.search.UsernameIndex;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -24,56 +42,65 @@ import org.springframework.stereotype.Service;
 public class UserService {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
     private static final String USER = "user_";
-    private static final String GROUPS = "groups_";
-    private static final String GROUP = "group_";
+    private static final String USER_JSON = "user_json_";
     private final UserRepository userRepository;
     private final GroupRepository groupRepository;
     private final CacheService cacheService;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final JsonPayloadEncoder jsonPayloadEncoder;
+    private final PostSearchIndex postSearchIndex;
+    private final UsernameIndex usernameIndex;
+    private final AutocompleteIndex autocompleteIndex;
 
     @Autowired
     public UserService(UserRepository userRepository,
                        GroupRepository groupRepository,
                        CacheService cacheService,
-                       BCryptPasswordEncoder passwordEncoder) {
+                       BCryptPasswordEncoder passwordEncoder,
+                       JsonPayloadEncoder jsonPayloadEncoder,
+                       PostSearchIndex postSearchIndex,
+                       UsernameIndex usernameIndex,
+                       AutocompleteIndex autocompleteIndex) {
         this.userRepository = userRepository;
         this.groupRepository = groupRepository;
         this.cacheService = cacheService;
         this.passwordEncoder = passwordEncoder;
+        this.jsonPayloadEncoder = jsonPayloadEncoder;
+        this.postSearchIndex = postSearchIndex;
+        this.usernameIndex = usernameIndex;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
-    @Transactional
-    public List<User> bulkCreateUsers(List<User> users) {
-        List<User> newUsers = users.stream()
-                .filter(user -> !userRepository.existsByUsername(user.getUsername()))
-                .toList();
-
-        List<User> savedUsers = userRepository.saveAll(newUsers);
-        cacheService.invalidateUserCache();
-        return savedUsers;
-    }
-
     public List<UserWithPostsAndGroupsDto> findByPostContent(String content) {
         String cacheKey = "users_by_post_content_" + content;
-        return (List<UserWithPostsAndGroupsDto>) cacheService.get(cacheKey)
-                .orElseGet(() -> {
-                    LOGGER.info("[DB] Fetching users_by_post_content from database");
-                    List<UserWithPostsAndGroupsDto> result = userRepository.findAllByPostContent(content)
-                            .stream()
-                            .map(UserWithPostsAndGroupsDto::toModel)
-                            .toList();
-                    cacheService.put(cacheKey, result);
-                    return result;
-                });
+        return cacheService.getOrLoad(cacheKey, () -> {
+            // Индекс отдаёт только id, из базы читаются лишь найденные пользователи
+            List<Long> userIds = postSearchIndex.findUserIds(content);
+            LOGGER.debug("[DB] Fetching {} users matching post content from database", userIds.size());
+            return userRepository.findWithGroupsByIdIn(userIds)
+                    .stream()
+                    .sorted(Comparator.comparing(User::getId))
+                    .map(UserWithPostsAndGroupsDto::toModel)
+                    .toList();
+        }, CacheTags::forPostContentSearch);
+    }
+
+    // Ищет по индексу имён без обращения к базе; fuzzy допускает опечатки
+    public UserSearchPageDto searchUsers(String query, boolean fuzzy, int page, int size) {
+        List<UserDto> matches = usernameIndex.search(query, fuzzy, page * size, size + 1);
+        boolean hasNext = matches.size() > size;
+        return new UserSearchPageDto(hasNext ? matches.subList(0, size) : matches, page, size, hasNext);
     }
 
-    public List<UserWithPostsAndGroupsDto> searchUsersByUsername(String username) {
-        List<User> users = userRepository.findByUsernameContainingIgnoreCase(username);
-        return users.stream().map(UserWithPostsAndGroupsDto::toModel).toList();
+    // Страница пользователей по возрастанию id после курсора предыдущей страницы
+    public CursorPageDto<UserDto> getUsers(String cursor, int limit) {
+        IdCursor after = IdCursor.decode(cursor);
+        List<User> users = userRepository.findPageAfter(after.afterId(), PageRequest.of(0, limit + 1));
+        return CursorPageDto.of(users, limit, User::getId, UserDto::toModel);
     }
 
     public User registration(User user) throws UserAlreadyExistException {
@@ -86,25 +113,89 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
 
         User savedUser = userRepository.save(user);
-        cacheService.invalidateUserCache();
+        AfterCommit.run(() -> {
+            usernameIndex.index(savedUser.getId(), savedUser.getUsername());
+            autocompleteIndex.putUser(savedUser.getId(), savedUser.getUsername());
+        });
+        // Сбрасываем закешированное отсутствие пользователя с этим id
+        cacheService.invalidateTags(CacheTags.user(savedUser.getId()));
         return savedUser;
     }
 
     public UserWithPostsAndGroupsDto getOne(Long id) {
         String cacheKey = USER + id;
 
-        return (UserWithPostsAndGroupsDto) cacheService.get(cacheKey)
-                .orElseGet(() -> {
-                    LOGGER.info("[DB] Fetching user from database by id: {}", id);
+        return cacheService.getOrLoad(cacheKey, () -> loadUser(id),
+                CacheTags::forUser, Absence.of(NotFoundException.class, CacheTags.user(id)));
+    }
 
-                    UserWithPostsAndGroupsDto userDto = userRepository.findById(id)
-                            .map(UserWithPostsAndGroupsDto::toModel)
-                            .orElseThrow(() -> new NotFoundException("User not found with id: " + id)
-                                    .addDetail("userId", id));
+    // Готовый JSON для ответа; кешируется отдельно от DTO, но с теми же тегами
+    public JsonPayload getOneJson(Long id) {
+        return cacheService.getOrLoad(USER_JSON + id, () -> encode(loadUser(id)),
+                JsonPayload::tags, Absence.of(NotFoundException.class, CacheTags.user(id)));
+    }
 
-                    cacheService.put(cacheKey, userDto);
-                    return userDto;
-                });
+    /**
+     * Returns the given users in the order asked. Cached users are answered from the cache, the
+     * rest are read with their groups in one query and their posts in one more, and cached.
+     * Unknown ids are listed in {@code notFound} instead of failing the request.
+     */
+    public BatchDto<UserWithPostsAndGroupsDto> getMany(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        Map<Long, UserWithPostsAndGroupsDto> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : distinctIds) {
+            cacheService.get(USER + id)
+                    .map(UserWithPostsAndGroupsDto.class::cast)
+                    .ifPresentOrElse(dto -> found.put(id, dto), () -> misses.add(id));
+        }
+        if (!misses.isEmpty()) {
+            long epoch = cacheService.invalidationEpoch();
+            LOGGER.debug("[DB] Fetching {} users missing from cache", misses.size());
+            for (User user : userRepository.findWithGroupsByIdIn(misses)) {
+                Long id = user.getId();
+                UserWithPostsAndGroupsDto dto = UserWithPostsAndGroupsDto.toModel(user);
+                cacheService.preload(USER + id, dto, () -> loadUser(id), CacheTags::forUser, epoch);
+                found.put(id, dto);
+            }
+        }
+        return BatchDto.of(distinctIds, found);
+    }
+
+    /**
+     * Reads the given users with their groups in one query and their posts in one more, and caches
+     * those not cached yet, as DTOs and, if {@code json} is set, as encoded responses. Returns the
+     * number of entries added.
+     */
+    public int warmUp(Collection<Long> ids, boolean json) {
+        long epoch = cacheService.invalidationEpoch();
+        int preloaded = 0;
+        for (User user : userRepository.findWithGroupsByIdIn(ids)) {
+            Long id = user.getId();
+            UserWithPostsAndGroupsDto dto = UserWithPostsAndGroupsDto.toModel(user);
+            if (cacheService.preload(USER + id, dto, () -> loadUser(id), CacheTags::forUser, epoch)) {
+                preloaded++;
+            }
+            if (json && cacheService.preload(USER_JSON + id, encode(dto),
+                    () -> encode(loadUser(id)), JsonPayload::tags, epoch)) {
+                preloaded++;
+            }
+        }
+        return preloaded;
+    }
+
+    private JsonPayload encode(UserWithPostsAndGroupsDto user) {
+        return jsonPayloadEncoder.encode(user, CacheTags.forUser(user));
+    }
+
+    private UserWithPostsAndGroupsDto loadUser(Long id) {
+        LOGGER.debug("[DB] Fetching user from database by id: {}", id);
+
+        // Группы приходят тем же запросом, посты — следующим; оба внутри транзакции сервиса или обновления кеша
+        return userRepository.findWithGroupsById(id)
+                .map(UserWithPostsAndGroupsDto::toModel)
+                .orElseThrow(() -> new NotFoundException("User not found with id: " + id)
+                        .addDetail("userId", id));
     }
 
     public Long delete(Long id) throws NotFoundException {
@@ -112,8 +203,16 @@ public class UserService {
             throw new NotFoundException("User not found")
                     .addDetail("userId", id);
         }
+        // Группы, из которых пользователь уйдёт вместе с удалением
+        List<Long> groupIds = groupRepository.findIdsByUserId(id);
         userRepository.deleteById(id);
-        cacheService.evict(USER + id);
+        AfterCommit.run(() -> {
+            postSearchIndex.removeUser(id);
+            usernameIndex.remove(id);
+            autocompleteIndex.removeUser(id);
+            groupIds.forEach(groupId -> autocompleteIndex.adjustGroupMembers(groupId, -1));
+        });
+        cacheService.invalidateTags(CacheTags.user(id), CacheTags.userPosts(id));
         return id;
     }
 
@@ -132,12 +231,13 @@ public class UserService {
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new GroupNotFoundException("Group with this id not exist!!!"));
 
+        boolean joined = !user.getGroups().contains(group);
         user.addGroup(group);
         userRepository.save(user);
-        cacheService.evict(USER + userId);
-        cacheService.evict(GROUP + groupId);
-        cacheService.evictByPrefix(GROUPS);
-        cacheService.invalidateUserCache();
+        if (joined) {
+            AfterCommit.run(() -> autocompleteIndex.adjustGroupMembers(groupId, 1));
+        }
+        cacheService.invalidateTags(CacheTags.user(userId), CacheTags.group(groupId));
     }
 
     public void removeUserFromGroup(Long userId, Long groupId) throws NotFoundException,
@@ -145,9 +245,13 @@ public class UserService {
         User user = getUserById(userId);
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new GroupNotFoundException("Group with this id not exist!!!"));
+        boolean left = user.getGroups().contains(group);
         user.removeGroup(group);
         userRepository.save(user);
-        cacheService.evict(USER + userId);
+        if (left) {
+            AfterCommit.run(() -> autocompleteIndex.adjustGroupMembers(groupId, -1));
+        }
+        cacheService.invalidateTags(CacheTags.user(userId), CacheTags.group(groupId));
     }
 
     public Set<Group> getUserGroups(Long userId) throws NotFoundException {
@@ -162,6 +266,11 @@ public class UserService {
         existingUser.setPassword(updatedUser.getPassword());
 
         userRepository.save(existingUser);
-        cacheService.evict(USER + id);
+        String username = existingUser.getUsername();
+        AfterCommit.run(() -> {
+            usernameIndex.index(id, username);
+            autocompleteIndex.putUser(id, username);
+        });
+        cacheService.invalidateTags(CacheTags.user(id));
     }
 }
\ No newline at end of file
@@ -1,14 +1,68 @@
 package com.example.javasocialnetwork.stats;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Counts visits per URI. Counters are saved to {@code visit-stats.path} every few minutes and
+ * on shutdown, and loaded back on startup, so the hottest pages survive a restart.
+ */
 @Service
 public class VisitCounterService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VisitCounterService.class);
+    private static final long SAVE_INTERVAL_MINUTES = 5;
+
     private final ConcurrentHashMap<String, AtomicLong> urlCounters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final Path path;
+
+    public VisitCounterService(
+            @Value("${visit-stats.path:${java.io.tmpdir}/javasocialnetwork/visit-stats.tsv}") Path path) {
+        this.path = path;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to load visit statistics from {}", path, e);
+        }
+        saveExecutor.scheduleAtFixedRate(this::saveQuietly,
+                SAVE_INTERVAL_MINUTES, SAVE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        saveExecutor.shutdown();
+        try {
+            if (!saveExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                saveExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            saveExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        saveQuietly();
+    }
 
     public void recordVisit(String url) {
         urlCounters.computeIfAbsent(url, k -> new AtomicLong(0)).addAndGet(1);
@@ -23,4 +77,39 @@ public class VisitCounterService {
         urlCounters.forEach((k, v) -> result.put(k, v.get()));
         return result;
     }
+
+    // Строка файла: "<count>\t<uri>"
+    void save() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "visit-stats", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> entry : getAllStats().entrySet()) {
+                writer.write(entry.getValue() + "\t" + entry.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void load() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                long count = Long.parseLong(line.substring(0, tab));
+                urlCounters.computeIfAbsent(line.substring(tab + 1), k -> new AtomicLong(0)).addAndGet(count);
+            }
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to save visit statistics to {}", path, e);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationBusTest {
+    private static final long TTL = TimeUnit.MINUTES.toMillis(15);
+
+    private final InProcessInvalidationTransport transport = new InProcessInvalidationTransport();
+    private final List<InvalidationBatch> published = new ArrayList<>();
+    private CacheService nodeA;
+    private CacheService nodeB;
+    private CacheInvalidationBus busA;
+    private CacheInvalidationBus busB;
+
+    @BeforeEach
+    void setUp() {
+        transport.subscribe(published::add);
+        nodeA = new CacheService(100, 4, TTL, System::currentTimeMillis);
+        nodeB = new CacheService(100, 4, TTL, System::currentTimeMillis);
+        busA = new CacheInvalidationBus(nodeA, transport, busProperties(10));
+        busB = new CacheInvalidationBus(nodeB, transport, busProperties(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        busA.close();
+        busB.close();
+    }
+
+    @Test
+    void invalidateTags_ShouldReachPeerAfterFlush() {
+        nodeA.put("user_posts1", "postsA", List.of("posts:1"));
+        nodeB.put("user_posts1", "postsB", List.of("posts:1"));
+
+        nodeA.invalidateTags("posts:1");
+
+        assertThat(nodeA.get("user_posts1")).isEmpty();
+        assertThat(nodeB.get("user_posts1")).contains("postsB");
+
+        busA.flush();
+
+        assertThat(nodeB.get("user_posts1")).isEmpty();
+        assertThat(busB.receivedBatches()).isEqualTo(1);
+        assertThat(busA.receivedBatches()).isZero();
+    }
+
+    @Test
+    void burst_ShouldBeMergedIntoOneBatch() {
+        for (int i = 0; i < 5; i++) {
+            nodeA.invalidateTags("posts:1", "user:1");
+            nodeA.evict("user_" + i);
+        }
+        nodeA.evictByPrefix("user_");
+        nodeA.evict("group_1");
+
+        busA.flush();
+        busA.flush();
+
+        assertThat(published).hasSize(1);
+        InvalidationBatch batch = published.get(0);
+        assertThat(batch.tags()).containsExactly("posts:1", "user:1");
+        assertThat(batch.prefixes()).containsExactly("user_");
+        assertThat(batch.keys()).containsExactly("group_1");
+    }
+
+    @Test
+    void fullBatch_ShouldBePublishedWithoutWaitingForFlush() {
+        for (int i = 0; i < 10; i++) {
+            nodeB.put("group_" + i, "group" + i, List.of("group:" + i));
+            nodeA.invalidateTags("group:" + i);
+        }
+
+        assertThat(busA.publishedBatches()).isEqualTo(1);
+        assertThat(nodeB.size()).isZero();
+    }
+
+    @Test
+    void invalidationBatch_ShouldSurviveJsonRoundTrip() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        InvalidationBatch batch = new InvalidationBatch("node", Set.of("user_1"), Set.of("group_"), Set.of("posts:1"));
+
+        InvalidationBatch copy = objectMapper.readValue(objectMapper.writeValueAsString(batch), InvalidationBatch.class);
+
+        assertThat(copy).isEqualTo(batch);
+    }
+
+    private static CacheProperties.Bus busProperties(int maxBatchSize) {
+        CacheProperties.Bus properties = new CacheProperties.Bus();
+        properties.setTransport(CacheProperties.Bus.Transport.IN_PROCESS);
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setMaxBatchSize(maxBatchSize);
+        return properties;
+    }
+}
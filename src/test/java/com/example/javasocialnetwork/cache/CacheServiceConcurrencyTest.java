@@ -0,0 +1,184 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class CacheServiceConcurrencyTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheServiceConcurrencyTest.class);
+    private static final int THREADS = 8;
+    private static final long TTL = TimeUnit.MINUTES.toMillis(15);
+
+    @Test
+    void concurrentPuts_ShouldNotLoseUpdates() throws Exception {
+        int keysPerThread = 5_000;
+        CacheService cacheService = new CacheService(1_000_000, 16, TTL, System::currentTimeMillis);
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < keysPerThread; i++) {
+                cacheService.put("user_" + thread + "_" + i, thread * keysPerThread + i);
+            }
+            return null;
+        });
+
+        assertThat(cacheService.size()).isEqualTo(THREADS * keysPerThread);
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < keysPerThread; i++) {
+                assertThat(cacheService.get("user_" + thread + "_" + i))
+                        .contains(thread * keysPerThread + i);
+            }
+        }
+    }
+
+    @Test
+    void concurrentReadsAndWrites_ShouldOnlyReturnValuesWrittenForKey() throws Exception {
+        CacheService cacheService = new CacheService(64, 16, TTL, System::currentTimeMillis);
+        AtomicInteger foreignValues = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 50_000; i++) {
+                String key = "group_" + random.nextInt(256);
+                if (random.nextInt(4) == 0) {
+                    cacheService.put(key, key);
+                } else {
+                    Optional<Object> value = cacheService.get(key);
+                    if (value.isPresent() && !key.equals(value.get())) {
+                        foreignValues.incrementAndGet();
+                    }
+                }
+            }
+            return null;
+        });
+
+        assertThat(foreignValues.get()).isZero();
+    }
+
+    @Test
+    void concurrentPutsOverCapacity_ShouldKeepSizeBounded() throws Exception {
+        int maxSize = 1_000;
+        int segments = 16;
+        CacheService cacheService = new CacheService(maxSize, segments, TTL, System::currentTimeMillis);
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 20_000; i++) {
+                cacheService.put("users_by_post_content_" + thread + "_" + i, i);
+            }
+            return null;
+        });
+
+        int segmentCapacity = (maxSize + segments - 1) / segments;
+        assertThat(cacheService.size()).isLessThanOrEqualTo(segmentCapacity * segments);
+    }
+
+    @Test
+    void evictByPrefix_DuringConcurrentPuts_ShouldRemoveOnlyMatchingKeys() throws Exception {
+        CacheService cacheService = new CacheService(100_000, 16, TTL, System::currentTimeMillis);
+        for (int i = 0; i < 1_000; i++) {
+            cacheService.put("group_" + i, i);
+        }
+
+        runConcurrently(THREADS, thread -> {
+            if (thread == 0) {
+                cacheService.evictByPrefix("group_");
+            } else {
+                for (int i = 0; i < 1_000; i++) {
+                    cacheService.put("user_" + thread + "_" + i, i);
+                }
+            }
+            return null;
+        });
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(cacheService.get("group_" + i)).isEmpty();
+        }
+        assertThat(cacheService.size()).isEqualTo((THREADS - 1) * 1_000);
+    }
+
+    @Test
+    void get_ShouldExpireEntriesAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        CacheService cacheService = new CacheService(10, 4, 1_000, now::get);
+
+        cacheService.put("user_1", "value");
+        now.set(999);
+        assertThat(cacheService.get("user_1")).contains("value");
+
+        now.set(1_000);
+        assertThat(cacheService.get("user_1")).isEmpty();
+        assertThat(cacheService.size()).isZero();
+    }
+
+    @Test
+    void readThroughput_ShouldScaleWithThreads() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Assumptions.assumeTrue(cores >= 4, "Throughput scaling needs at least 4 cores");
+
+        CacheService cacheService = new CacheService(10_000, 64, TTL, System::currentTimeMillis);
+        for (int i = 0; i < 10_000; i++) {
+            cacheService.put("user_" + i, i);
+        }
+
+        measureReadThroughput(cacheService, 1);
+        double single = measureReadThroughput(cacheService, 1);
+        double multi = measureReadThroughput(cacheService, cores);
+        LOGGER.info("Read throughput: 1 thread {} ops/ms, {} threads {} ops/ms", single, cores, multi);
+
+        assertThat(multi).isGreaterThan(single * 1.5);
+    }
+
+    private double measureReadThroughput(CacheService cacheService, int threads) throws Exception {
+        int opsPerThread = 500_000;
+        long start = System.nanoTime();
+        runConcurrently(threads, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < opsPerThread; i++) {
+                cacheService.get("user_" + random.nextInt(10_000));
+            }
+            return null;
+        });
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return (double) threads * opsPerThread / elapsedMillis;
+    }
+
+    private void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int threadIndex = thread;
+                Callable<Void> callable = () -> {
+                    start.await();
+                    return task.run(threadIndex);
+                };
+                futures.add(executor.submit(callable));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        Void run(int thread) throws Exception;
+    }
+}
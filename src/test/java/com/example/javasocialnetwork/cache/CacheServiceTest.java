@@ -0,0 +1,584 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
+import com.example.javasocialnetwork.dto.GroupWithUsersDto;
+import com.example.javasocialnetwork.dto.PostDto;
+import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
+import com.example.javasocialnetwork.exception.CacheLoadTimeoutException;
+import com.example.javasocialnetwork.exception.NotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class CacheServiceTest {
+    private static final long TTL = TimeUnit.MINUTES.toMillis(15);
+
+    private CacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new CacheService(100, 4, TTL, System::currentTimeMillis);
+    }
+
+    @Test
+    void invalidateTags_ShouldEvictOnlyTaggedEntries() {
+        cacheService.put("user_1", "user1", List.of("user:1", "group:7"));
+        cacheService.put("user_2", "user2", List.of("user:2"));
+        cacheService.put("group_7", "group7", List.of("group:7", "user:1"));
+
+        cacheService.invalidateTags("group:7");
+
+        assertThat(cacheService.get("user_1")).isEmpty();
+        assertThat(cacheService.get("group_7")).isEmpty();
+        assertThat(cacheService.get("user_2")).contains("user2");
+    }
+
+    @Test
+    void invalidateTags_UnknownTag_ShouldKeepEntries() {
+        cacheService.put("user_1", "user1", List.of("user:1"));
+
+        cacheService.invalidateTags("user:2");
+
+        assertThat(cacheService.get("user_1")).contains("user1");
+    }
+
+    @Test
+    void put_ReplacingEntry_ShouldDropStaleTags() {
+        cacheService.put("user_1", "old", List.of("user:1", "group:7"));
+        cacheService.put("user_1", "new", List.of("user:1"));
+
+        cacheService.invalidateTags("group:7");
+
+        assertThat(cacheService.get("user_1")).contains("new");
+    }
+
+    @Test
+    void put_RacingWithExpiryOfPreviousEntry_ShouldKeepNewEntryReachableByTags() {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger ticksUntilExpiry = new AtomicInteger(-1);
+        AtomicReference<CacheService> racingCache = new AtomicReference<>();
+        // Второе чтение часов в put идёт уже после регистрации тегов, но до записи в сегмент:
+        // в этот момент «другой поток» читает ключ и удаляет просроченную прежнюю запись
+        CacheService clockedCache = new CacheService(100, 1, 1_000, () -> {
+            if (ticksUntilExpiry.get() > 0 && ticksUntilExpiry.decrementAndGet() == 0) {
+                racingCache.get().get("user_1");
+            }
+            return now.get();
+        });
+        racingCache.set(clockedCache);
+        clockedCache.put("user_1", "old", List.of("user:1"));
+        now.set(1_000);
+
+        ticksUntilExpiry.set(2);
+        clockedCache.put("user_1", "new", List.of("user:1"));
+        assertThat(ticksUntilExpiry.get()).isZero();
+
+        clockedCache.invalidateTags("user:1");
+
+        assertThat(clockedCache.get("user_1")).isEmpty();
+        assertThat(clockedCache.tagCount()).isZero();
+    }
+
+    @Test
+    void evict_ShouldCleanUpTagIndex() {
+        cacheService.put("user_1", "user1", List.of("user:1", "posts:1"));
+
+        cacheService.evict("user_1");
+
+        assertThat(cacheService.tagCount()).isZero();
+    }
+
+    @Test
+    void sizeEviction_ShouldCleanUpTagIndex() {
+        CacheService smallCache = new CacheService(1, 1, TTL, System::currentTimeMillis);
+        smallCache.put("user_1", "user1", List.of("user:1"));
+        smallCache.put("user_2", "user2", List.of("user:2"));
+
+        assertThat(smallCache.size()).isEqualTo(1);
+        assertThat(smallCache.tagCount()).isEqualTo(1);
+    }
+
+    @Test
+    void weightedCache_ShouldKeepEstimatedSizeUnderBudget() {
+        CacheProperties properties = new CacheProperties();
+        properties.setConcurrencyLevel(1);
+        properties.setMaxWeight(DataSize.ofKilobytes(64));
+        CacheService weightedCache = new CacheService(properties, refresh -> true, System::currentTimeMillis);
+
+        for (int i = 0; i < 200; i++) {
+            weightedCache.put("users_by_post_content_" + i, List.of(userWithPosts(i, 20)));
+        }
+
+        assertThat(weightedCache.weight()).isLessThanOrEqualTo(DataSize.ofKilobytes(64).toBytes());
+        assertThat(weightedCache.size()).isLessThan(200);
+    }
+
+    @Test
+    void weightedCache_EntryOverBudget_ShouldNotBeCached() {
+        CacheProperties properties = new CacheProperties();
+        properties.setConcurrencyLevel(1);
+        properties.setMaxWeight(DataSize.ofKilobytes(4));
+        CacheService weightedCache = new CacheService(properties, refresh -> true, System::currentTimeMillis);
+        weightedCache.put("user_1", userWithPosts(1, 1), List.of("user:1"));
+
+        weightedCache.put("user_1", userWithPosts(1, 100), List.of("user:1", "posts:1"));
+
+        assertThat(weightedCache.get("user_1")).isEmpty();
+        assertThat(weightedCache.weight()).isZero();
+        assertThat(weightedCache.tagCount()).isZero();
+    }
+
+    @Test
+    void cacheWeigher_ShouldGrowWithNestedPosts() {
+        GroupWithUsersDto group = new GroupWithUsersDto();
+        group.setId(1L);
+        group.setName("Developers");
+        group.setUsers(List.of());
+
+        long small = CacheWeigher.weightOf(userWithPosts(1, 1));
+        long large = CacheWeigher.weightOf(userWithPosts(1, 100));
+
+        assertThat(large).isGreaterThan(small * 20);
+        assertThat(CacheWeigher.weightOf(group)).isLessThan(small);
+    }
+
+    @Test
+    void getOrLoad_ConcurrentMisses_ShouldRunLoaderOnce() throws Exception {
+        int callers = 8;
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cacheService.getOrLoad("user_1", () -> {
+                loaderCalls.incrementAndGet();
+                loaderStarted.countDown();
+                awaitQuietly(releaseLoader);
+                return "user1";
+            }, value -> Set.of("user:1"))));
+            loaderStarted.await(5, TimeUnit.SECONDS);
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> cacheService.getOrLoad("user_1", () -> {
+                    loaderCalls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            waitForCoalescedLoads(callers - 1);
+            releaseLoader.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("user1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loaderCalls.get()).isEqualTo(1);
+        assertThat(cacheService.getLoadStats().loads()).isEqualTo(1);
+        assertThat(cacheService.getLoadStats().coalescedLoads()).isEqualTo(callers - 1);
+        assertThat(cacheService.get("user_1")).contains("user1");
+    }
+
+    @Test
+    void getOrLoad_LoaderFails_ShouldPropagateToWaitersAndNotCache() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> cacheService.getOrLoad("user_404", () -> {
+                loaderStarted.countDown();
+                awaitQuietly(releaseLoader);
+                throw new NotFoundException("User not found");
+            }));
+            loaderStarted.await(5, TimeUnit.SECONDS);
+            Future<Object> waiter = executor.submit(() -> cacheService.getOrLoad("user_404", () -> "unexpected"));
+            waitForCoalescedLoads(1);
+            releaseLoader.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(NotFoundException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(cacheService.get("user_404")).isEmpty();
+        assertThat(cacheService.getLoadStats().failedLoads()).isEqualTo(1);
+    }
+
+    @Test
+    void getOrLoad_WaiterTimesOut_ShouldThrowCacheLoadTimeout() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> cacheService.getOrLoad("group_1", () -> {
+                loaderStarted.countDown();
+                awaitQuietly(releaseLoader);
+                return "group1";
+            }));
+            loaderStarted.await(5, TimeUnit.SECONDS);
+
+            assertThatThrownBy(() -> cacheService.getOrLoad("group_1", () -> "unexpected",
+                    value -> Set.of(), Duration.ofMillis(50)))
+                    .isInstanceOf(CacheLoadTimeoutException.class);
+            assertThat(cacheService.getLoadStats().timedOutWaits()).isEqualTo(1);
+        } finally {
+            releaseLoader.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrLoad_InvalidatedDuringLoad_ShouldNotCacheStaleValue() {
+        String value = cacheService.getOrLoad("user_1", () -> {
+            cacheService.invalidateTags("user:1");
+            return "stale";
+        }, loaded -> Set.of("user:1"));
+
+        assertThat(value).isEqualTo("stale");
+        assertThat(cacheService.get("user_1")).isEmpty();
+    }
+
+    @Test
+    void getOrLoad_PastSoftTtl_ShouldServeStaleAndRefreshInBackground() {
+        AtomicLong now = new AtomicLong();
+        List<Runnable> scheduled = new ArrayList<>();
+        CacheService refreshingCache = new CacheService(refreshProperties(), scheduled::add, now::get);
+        AtomicInteger version = new AtomicInteger();
+
+        assertThat(refreshingCache.getOrLoad("user_1", () -> "v" + version.incrementAndGet())).isEqualTo("v1");
+        now.set(1_500);
+        assertThat(refreshingCache.getOrLoad("user_1", () -> "unexpected")).isEqualTo("v1");
+        assertThat(refreshingCache.get("user_1")).contains("v1");
+        assertThat(scheduled).hasSize(1);
+
+        scheduled.get(0).run();
+
+        assertThat(refreshingCache.get("user_1")).contains("v2");
+        assertThat(refreshingCache.getLoadStats().loads()).isEqualTo(1);
+        assertThat(refreshingCache.getLoadStats().refreshes()).isEqualTo(1);
+    }
+
+    @Test
+    void refresh_Failing_ShouldKeepStaleValueUntilHardTtl() {
+        AtomicLong now = new AtomicLong();
+        CacheService refreshingCache = new CacheService(refreshProperties(), refresh -> {
+            refresh.run();
+            return true;
+        }, now::get);
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        refreshingCache.getOrLoad("user_1", () -> {
+            if (loaderCalls.incrementAndGet() > 1) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            return "v1";
+        });
+        now.set(1_500);
+        assertThat(refreshingCache.get("user_1")).contains("v1");
+        assertThat(refreshingCache.getLoadStats().failedRefreshes()).isEqualTo(1);
+
+        now.set(5_000);
+        assertThat(refreshingCache.get("user_1")).isEmpty();
+    }
+
+    @Test
+    void refresh_Rejected_ShouldRetryOnNextRead() {
+        AtomicLong now = new AtomicLong();
+        AtomicBoolean accept = new AtomicBoolean(false);
+        List<Runnable> scheduled = new ArrayList<>();
+        CacheService refreshingCache = new CacheService(refreshProperties(),
+                refresh -> accept.get() && scheduled.add(refresh), now::get);
+
+        refreshingCache.getOrLoad("group_1", () -> "group1");
+        now.set(1_500);
+        refreshingCache.get("group_1");
+        accept.set(true);
+        refreshingCache.get("group_1");
+
+        assertThat(refreshingCache.getLoadStats().rejectedRefreshes()).isEqualTo(1);
+        assertThat(scheduled).hasSize(1);
+    }
+
+    @Test
+    void refresh_InvalidatedMeanwhile_ShouldNotRestoreEntry() {
+        AtomicLong now = new AtomicLong();
+        List<Runnable> scheduled = new ArrayList<>();
+        CacheService refreshingCache = new CacheService(refreshProperties(), scheduled::add, now::get);
+
+        refreshingCache.getOrLoad("user_1", () -> {
+            if (!scheduled.isEmpty()) {
+                refreshingCache.invalidateTags("user:1");
+            }
+            return "user1";
+        }, value -> Set.of("user:1"));
+        now.set(1_500);
+        refreshingCache.get("user_1");
+        scheduled.get(0).run();
+
+        assertThat(refreshingCache.get("user_1")).isEmpty();
+    }
+
+    @Test
+    void getOrLoad_NotFound_ShouldCacheAbsenceUntilEntityCreated() {
+        AtomicInteger loaderCalls = new AtomicInteger();
+        Absence absence = Absence.of(NotFoundException.class, "user:404");
+        Supplier<String> loader = () -> {
+            loaderCalls.incrementAndGet();
+            throw new NotFoundException("User not found");
+        };
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> cacheService.getOrLoad("user_404", loader, value -> Set.of(), absence))
+                    .isInstanceOf(NotFoundException.class);
+        }
+        assertThat(loaderCalls.get()).isEqualTo(1);
+        assertThat(cacheService.getLoadStats().negativeHits()).isEqualTo(2);
+        assertThat(cacheService.get("user_404")).isEmpty();
+
+        cacheService.invalidateTags("user:404");
+
+        assertThat(cacheService.getOrLoad("user_404", () -> "created", value -> Set.of(), absence))
+                .isEqualTo("created");
+    }
+
+    @Test
+    void getOrLoad_CachedAbsence_ShouldExpireAfterNegativeTtl() {
+        AtomicLong now = new AtomicLong();
+        CacheProperties properties = new CacheProperties();
+        properties.setNegativeTtl(Duration.ofSeconds(30));
+        CacheService negativeCache = new CacheService(properties, refresh -> true, now::get);
+        Absence absence = Absence.of(NotFoundException.class, "group:1");
+
+        assertThatThrownBy(() -> negativeCache.getOrLoad("group_1", () -> {
+            throw new NotFoundException("Group not found");
+        }, value -> Set.of(), absence)).isInstanceOf(NotFoundException.class);
+        now.set(Duration.ofSeconds(30).toMillis());
+
+        assertThat(negativeCache.getOrLoad("group_1", () -> "group1", value -> Set.of(), absence))
+                .isEqualTo("group1");
+        assertThat(negativeCache.getLoadStats().negativeHits()).isZero();
+    }
+
+    @Test
+    void getOrLoad_OtherFailure_ShouldNotCacheAbsence() {
+        Absence absence = Absence.of(NotFoundException.class, "user:1");
+
+        assertThatThrownBy(() -> cacheService.getOrLoad("user_1", () -> {
+            throw new IllegalStateException("Database unavailable");
+        }, value -> Set.of(), absence)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cacheService.getOrLoad("user_1", () -> "user1", value -> Set.of(), absence))
+                .isEqualTo("user1");
+    }
+
+    @Test
+    void getStats_ShouldCountHitsMissesAndLoadsPerNamespace() {
+        cacheService.getOrLoad("user_1", () -> "user1");
+        cacheService.getOrLoad("user_1", () -> "user1");
+        cacheService.getOrLoad("group_1", () -> "group1");
+        cacheService.get("user_posts1");
+
+        CacheStats stats = cacheService.getStats();
+
+        CacheStats.NamespaceStats users = stats.namespaces().get("user_");
+        assertThat(users.hits()).isEqualTo(1);
+        assertThat(users.misses()).isEqualTo(1);
+        assertThat(users.loads()).isEqualTo(1);
+        assertThat(users.hitRate()).isEqualTo(0.5);
+        assertThat(stats.namespaces().get("group_").loads()).isEqualTo(1);
+        assertThat(stats.namespaces().get("user_posts").misses()).isEqualTo(1);
+        assertThat(stats.size()).isEqualTo(2);
+    }
+
+    @Test
+    void getStats_ShouldSeparateEvictionsByCauseFromInvalidations() {
+        AtomicLong now = new AtomicLong();
+        CacheService smallCache = new CacheService(2, 1, 1_000, now::get);
+        smallCache.put("user_1", "user1", List.of("user:1"));
+        smallCache.put("user_2", "user2");
+        smallCache.put("group_1", "group1");
+        smallCache.invalidateTags("user:1");
+        now.set(1_000);
+        smallCache.get("group_1");
+
+        CacheStats stats = smallCache.getStats();
+
+        long userEvictions = stats.namespaces().get("user_").evictions().get(RemovalCause.SIZE);
+        long userInvalidations = stats.namespaces().get("user_").invalidations();
+        assertThat(userEvictions + userInvalidations).isEqualTo(2);
+        assertThat(userEvictions).isEqualTo(1);
+        assertThat(stats.namespaces().get("group_").evictions().get(RemovalCause.EXPIRED)).isEqualTo(1);
+    }
+
+    @Test
+    void preload_ShouldCacheValueWithLoaderUnlessInvalidatedMeanwhile() {
+        AtomicLong now = new AtomicLong();
+        List<Runnable> scheduled = new ArrayList<>();
+        CacheService refreshingCache = new CacheService(refreshProperties(), scheduled::add, now::get);
+        long epoch = refreshingCache.invalidationEpoch();
+
+        assertThat(refreshingCache.preload("user_1", "warm", () -> "fresh", value -> Set.of("user:1"), epoch))
+                .isTrue();
+        assertThat(refreshingCache.preload("user_1", "other", () -> "other", value -> Set.of(), epoch)).isFalse();
+        refreshingCache.invalidateTags("user:2");
+        assertThat(refreshingCache.preload("user_2", "stale", () -> "stale", value -> Set.of(), epoch)).isFalse();
+
+        now.set(1_500);
+        assertThat(refreshingCache.get("user_1")).contains("warm");
+        scheduled.get(0).run();
+        assertThat(refreshingCache.get("user_1")).contains("fresh");
+        assertThat(refreshingCache.get("user_2")).isEmpty();
+    }
+
+    @Test
+    void offHeap_EvictedProfiles_ShouldBeServedWithoutReload() {
+        CacheService tieredCache = new CacheService(offHeapProperties(2), refresh -> true, System::currentTimeMillis);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (long id = 1; id <= 10; id++) {
+            long userId = id;
+            tieredCache.getOrLoad("user_" + id, () -> {
+                loads.incrementAndGet();
+                return userWithPosts(userId, 3);
+            }, CacheTags::forUser);
+        }
+        UserWithPostsAndGroupsDto first = tieredCache.getOrLoad("user_1", () -> {
+            loads.incrementAndGet();
+            return userWithPosts(1, 3);
+        }, CacheTags::forUser);
+
+        assertThat(loads.get()).isEqualTo(10);
+        assertThat(first.getPosts()).hasSize(3);
+        assertThat(tieredCache.size()).isEqualTo(10);
+        CacheStats stats = tieredCache.getStats();
+        assertThat(stats.offHeap().size()).isEqualTo(8);
+        assertThat(stats.namespaces().get("user_").offHeapHits()).isEqualTo(1);
+    }
+
+    @Test
+    void offHeap_InvalidateTags_ShouldRemoveEntryFromSecondTier() {
+        CacheService tieredCache = new CacheService(offHeapProperties(1), refresh -> true, System::currentTimeMillis);
+        tieredCache.put("user_1", userWithPosts(1, 1), List.of("user:1"));
+        tieredCache.put("user_2", userWithPosts(2, 1), List.of("user:2"));
+        tieredCache.put("user_3", userWithPosts(3, 1), List.of("user:3"));
+
+        tieredCache.invalidateTags("user:1", "user:2", "user:3");
+
+        assertThat(tieredCache.size()).isZero();
+        assertThat(tieredCache.tagCount()).isZero();
+        assertThat(tieredCache.get("user_1")).isEmpty();
+    }
+
+    @Test
+    void offHeap_InvalidateKeyInBothTiers_ShouldNotPromoteStaleCopy() {
+        CacheService tieredCache = new CacheService(offHeapProperties(1), refresh -> true, System::currentTimeMillis);
+        tieredCache.put("user_1", userWithPosts(1, 1), List.of("user:1"));
+        tieredCache.put("user_2", userWithPosts(2, 1), List.of("user:2"));
+        // Старая копия user_1 уже во втором уровне, новая ложится в кучу рядом с ней
+        tieredCache.put("user_1", userWithPosts(1, 2), List.of("user:1"));
+
+        tieredCache.invalidateTags("user:1");
+
+        assertThat(tieredCache.get("user_1")).isEmpty();
+        assertThat(tieredCache.get("user_2")).isPresent();
+
+        tieredCache.put("user_1", userWithPosts(1, 3), List.of("user:1"));
+        tieredCache.put("user_2", userWithPosts(2, 2), List.of("user:2"));
+        tieredCache.put("user_1", userWithPosts(1, 4), List.of("user:1"));
+
+        tieredCache.evict("user_1");
+
+        assertThat(tieredCache.get("user_1")).isEmpty();
+    }
+
+    @Test
+    void preload_KeyDemotedOffHeap_ShouldNotStoreSecondCopy() {
+        CacheService tieredCache = new CacheService(offHeapProperties(1), refresh -> true, System::currentTimeMillis);
+        tieredCache.put("user_1", userWithPosts(1, 1), List.of("user:1"));
+        tieredCache.put("user_2", userWithPosts(2, 1), List.of("user:2"));
+        long epoch = tieredCache.invalidationEpoch();
+
+        assertThat(tieredCache.preload("user_1", userWithPosts(1, 2), () -> userWithPosts(1, 2),
+                value -> Set.of("user:1"), epoch)).isFalse();
+
+        assertThat(tieredCache.size()).isEqualTo(2);
+        UserWithPostsAndGroupsDto cached = (UserWithPostsAndGroupsDto) tieredCache.get("user_1").orElseThrow();
+        assertThat(cached.getPosts()).hasSize(1);
+    }
+
+    private static UserWithPostsAndGroupsDto userWithPosts(long id, int posts) {
+        UserWithPostsAndGroupsDto user = new UserWithPostsAndGroupsDto();
+        user.setId(id);
+        user.setUsername("user" + id);
+        List<PostDto> postDtos = new ArrayList<>();
+        for (int i = 0; i < posts; i++) {
+            PostDto post = new PostDto();
+            post.setId((long) i);
+            post.setContent("Post number " + i + " with some text about programming");
+            postDtos.add(post);
+        }
+        user.setPosts(postDtos);
+        user.setGroups(List.of());
+        return user;
+    }
+
+    private static CacheProperties offHeapProperties(int nearCacheSize) {
+        CacheProperties properties = new CacheProperties();
+        properties.setConcurrencyLevel(1);
+        properties.setEviction(EvictionStrategy.LRU);
+        properties.getOffHeap().setEnabled(true);
+        properties.getOffHeap().setNearCacheSize(nearCacheSize);
+        properties.getOffHeap().setCapacity(DataSize.ofKilobytes(256));
+        return properties;
+    }
+
+    private static CacheProperties refreshProperties() {
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.Ttl ttl = new CacheProperties.Ttl(Duration.ofSeconds(1), Duration.ofSeconds(5));
+        properties.getTtl().put(CacheNamespace.USER, ttl);
+        properties.getTtl().put(CacheNamespace.GROUP, ttl);
+        return properties;
+    }
+
+    private void waitForCoalescedLoads(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cacheService.getLoadStats().coalescedLoads() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import com.example.javasocialnetwork.dto.GroupDto;
+import com.example.javasocialnetwork.dto.GroupWithUsersDto;
+import com.example.javasocialnetwork.dto.PostDto;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CacheSnapshotServiceTest {
+    private static final long TTL = TimeUnit.MINUTES.toMillis(15);
+
+    @Mock
+    private SourceFingerprints sourceFingerprints;
+
+    @TempDir
+    private Path tempDir;
+
+    private CacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheProperties();
+        properties.getSnapshot().setPath(tempDir.resolve("cache.snapshot"));
+    }
+
+    @Test
+    void restoreSnapshot_UnchangedRows_ShouldRestoreEntries() throws Exception {
+        CacheService before = newCacheService();
+        before.put("user_1", user(), CacheTags.forUser(user()));
+        before.put("group_7", group(), CacheTags.forGroup(group()));
+        before.put("users_by_post_content_java", List.of(user()), List.of(CacheTags.POST_CONTENT_SEARCH));
+        when(sourceFingerprints.read(any())).thenReturn(Map.of(
+                "user:1", 3L, "posts:1", 11L, "group:7", 5L));
+
+        assertThat(snapshotService(before).writeSnapshot()).isEqualTo(2);
+
+        CacheService after = newCacheService();
+        assertThat(snapshotService(after).restoreSnapshot()).isEqualTo(2);
+        UserWithPostsAndGroupsDto restoredUser = (UserWithPostsAndGroupsDto) after.get("user_1").orElseThrow();
+        assertThat(restoredUser.getUsername()).isEqualTo("alice");
+        assertThat(restoredUser.getPosts()).extracting(PostDto::getContent).containsExactly("Hello");
+        assertThat(after.get("group_7")).isPresent();
+        assertThat(after.get("users_by_post_content_java")).isEmpty();
+
+        after.invalidateTags("group:7");
+        assertThat(after.get("user_1")).isEmpty();
+    }
+
+    @Test
+    void restoreSnapshot_ChangedRows_ShouldDiscardStaleEntries() throws Exception {
+        CacheService before = newCacheService();
+        before.put("user_1", user(), CacheTags.forUser(user()));
+        before.put("group_7", group(), CacheTags.forGroup(group()));
+        when(sourceFingerprints.read(any()))
+                .thenReturn(Map.of("user:1", 3L, "posts:1", 11L, "group:7", 5L))
+                .thenReturn(Map.of("user:1", 3L, "posts:1", 12L, "group:7", 5L));
+        snapshotService(before).writeSnapshot();
+
+        CacheService after = newCacheService();
+        snapshotService(after).restoreSnapshot();
+
+        // Новый пост у пользователя 1: устарела его запись, группа осталась
+        assertThat(after.get("user_1")).isEmpty();
+        assertThat(after.get("group_7")).isPresent();
+    }
+
+    @Test
+    void restoreSnapshot_NoFile_ShouldStartCold() throws Exception {
+        assertThat(snapshotService(newCacheService()).restoreSnapshot()).isZero();
+    }
+
+    @Test
+    void constructor_EnabledWithoutPath_ShouldFail() {
+        CacheProperties defaults = new CacheProperties();
+        assertThat(defaults.getSnapshot().isEnabled()).isFalse();
+        defaults.getSnapshot().setEnabled(true);
+
+        assertThatThrownBy(() -> new CacheSnapshotService(newCacheService(), sourceFingerprints,
+                new ObjectMapper(), defaults))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cache.snapshot.path");
+    }
+
+    private CacheService newCacheService() {
+        return new CacheService(100, 4, TTL, System::currentTimeMillis);
+    }
+
+    private CacheSnapshotService snapshotService(CacheService cacheService) {
+        return new CacheSnapshotService(cacheService, sourceFingerprints, new ObjectMapper(), properties);
+    }
+
+    private static UserWithPostsAndGroupsDto user() {
+        PostDto post = new PostDto();
+        post.setId(10L);
+        post.setContent("Hello");
+        GroupDto group = new GroupDto();
+        group.setId(7L);
+        group.setName("Developers");
+        UserWithPostsAndGroupsDto user = new UserWithPostsAndGroupsDto();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setPosts(List.of(post));
+        user.setGroups(List.of(group));
+        return user;
+    }
+
+    private static GroupWithUsersDto group() {
+        UserDto member = new UserDto();
+        member.setId(1L);
+        member.setUsername("alice");
+        GroupWithUsersDto group = new GroupWithUsersDto();
+        group.setId(7L);
+        group.setName("Developers");
+        group.setUsers(List.of(member));
+        return group;
+    }
+}
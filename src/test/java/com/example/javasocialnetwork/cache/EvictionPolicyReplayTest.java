@@ -0,0 +1,135 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays key traces against each eviction strategy and compares hit ratios.
+ * A recorded trace (one cache key per line, e.g. extracted from the access log) can be
+ * replayed with {@code -Dcache.replay.trace=/path/to/keys.txt}.
+ */
+class EvictionPolicyReplayTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EvictionPolicyReplayTest.class);
+    private static final long TTL = TimeUnit.MINUTES.toMillis(15);
+
+    @Test
+    void profilesWithSearchScans_TinyLfuShouldHitMoreThanLru() {
+        List<String> trace = profilesWithSearchScans(200_000, 42);
+
+        double lru = replay(trace, EvictionStrategy.LRU);
+        double tinyLfu = replay(trace, EvictionStrategy.W_TINY_LFU);
+        LOGGER.info("Synthetic trace hit ratio: LRU {}, W-TinyLFU {}", lru, tinyLfu);
+
+        assertThat(tinyLfu).isGreaterThan(lru);
+    }
+
+    @Test
+    void searchScan_ShouldNotFlushHotProfiles() {
+        CacheProperties properties = new CacheProperties();
+        SegmentedCache<String, String> cache = newCache(properties, EvictionStrategy.W_TINY_LFU);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                readThrough(cache, "user_" + i);
+            }
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            readThrough(cache, "users_by_post_content_term" + i);
+        }
+
+        int hotSurvivors = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("user_" + i) != null) {
+                hotSurvivors++;
+            }
+        }
+        assertThat(hotSurvivors).isGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    void recordedTrace_ShouldReportHitRatios() throws IOException {
+        String tracePath = System.getProperty("cache.replay.trace");
+        Assumptions.assumeTrue(tracePath != null, "Set -Dcache.replay.trace to replay a recorded trace");
+
+        List<String> trace = Files.readAllLines(Path.of(tracePath)).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .toList();
+        for (EvictionStrategy strategy : EvictionStrategy.values()) {
+            LOGGER.info("Recorded trace ({} keys) hit ratio for {}: {}",
+                    trace.size(), strategy, replay(trace, strategy));
+        }
+    }
+
+    private static double replay(List<String> trace, EvictionStrategy strategy) {
+        SegmentedCache<String, String> cache = newCache(new CacheProperties(), strategy);
+        int hits = 0;
+        for (String key : trace) {
+            if (readThrough(cache, key)) {
+                hits++;
+            }
+        }
+        return (double) hits / trace.size();
+    }
+
+    private static SegmentedCache<String, String> newCache(CacheProperties properties, EvictionStrategy strategy) {
+        return new SegmentedCache<>(properties.getMaxSize(), properties.getConcurrencyLevel(), TTL,
+                System::currentTimeMillis, strategy, (key, value, cause) -> { });
+    }
+
+    private static boolean readThrough(SegmentedCache<String, String> cache, String key) {
+        if (cache.get(key) != null) {
+            return true;
+        }
+        cache.put(key, key);
+        return false;
+    }
+
+    // Профили и группы читаются по Zipf, между ними — серии уникальных поисковых запросов
+    private static List<String> profilesWithSearchScans(int length, long seed) {
+        Random random = new Random(seed);
+        double[] cumulative = zipfCumulative(1_000, 1.0);
+        List<String> trace = new ArrayList<>(length);
+        int searchTerm = 0;
+        while (trace.size() < length) {
+            if (random.nextInt(100) < 5) {
+                for (int i = 0; i < 50; i++) {
+                    trace.add("users_by_post_content_term" + searchTerm++);
+                }
+            } else {
+                int rank = rankFor(cumulative, random.nextDouble());
+                trace.add((rank % 5 == 0 ? "group_" : "user_") + rank);
+            }
+        }
+        return trace.subList(0, length);
+    }
+
+    private static double[] zipfCumulative(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int rankFor(double[] cumulative, double point) {
+        int index = Arrays.binarySearch(cumulative, point);
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.example.javasocialnetwork.dto.GroupDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class JsonPayloadEncoderTest {
+    private CacheProperties properties;
+    private JsonPayloadEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheProperties();
+        encoder = new JsonPayloadEncoder(new ObjectMapper(), properties);
+    }
+
+    @Test
+    void encode_SmallPayload_ShouldKeepPlainJson() {
+        JsonPayload payload = encoder.encode(group(1L, "Developers"), List.of("group:1"));
+
+        assertThat(payload.gzipped()).isFalse();
+        assertThat(new String(payload.body(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"id\":1,\"name\":\"Developers\"}");
+        assertThat(payload.tags()).containsExactly("group:1");
+    }
+
+    @Test
+    void encode_ShouldDeriveStrongEtagFromContent() {
+        String etag = encoder.encode(group(1L, "Developers"), List.of()).etag();
+
+        assertThat(etag).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+        assertThat(encoder.encode(group(1L, "Developers"), List.of()).etag()).isEqualTo(etag);
+        assertThat(encoder.encode(group(1L, "Testers"), List.of()).etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void encode_LargePayload_ShouldBeCompressedAndDecodable() {
+        properties.getJson().setCompressMinSize(DataSize.ofBytes(64));
+        GroupDto group = group(1L, "x".repeat(1_000));
+        JsonPayload plain = new JsonPayloadEncoder(new ObjectMapper(), new CacheProperties())
+                .encode(group, List.of());
+
+        JsonPayload payload = encoder.encode(group, List.of());
+
+        assertThat(payload.gzipped()).isTrue();
+        assertThat(payload.body().length).isLessThan(plain.body().length);
+        assertThat(payload.bodyFor(false)).isEqualTo(plain.bodyFor(false));
+        assertThat(payload.etagFor(false)).isEqualTo(plain.etag());
+        assertThat(payload.etagFor(true)).isNotEqualTo(plain.etag());
+    }
+
+    private static GroupDto group(Long id, String name) {
+        GroupDto group = new GroupDto();
+        group.setId(id);
+        group.setName(name);
+        return group;
+    }
+}
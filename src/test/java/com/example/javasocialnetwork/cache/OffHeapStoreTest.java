@@ -0,0 +1,87 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OffHeapStoreTest {
+    private static final byte KIND = 1;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> removals = new ArrayList<>();
+    private OffHeapStore<String> store;
+
+    @BeforeEach
+    void setUp() {
+        // Один сегмент на 16 блоков по 64 байта
+        store = new OffHeapStore<>(1024, 64, 1, EvictionStrategy.LRU, now::get,
+                (key, metadata, cause) -> removals.add(key + ":" + cause));
+    }
+
+    @Test
+    void take_ShouldReturnBytesSpanningSeveralBlocks() {
+        byte[] value = "x".repeat(200).getBytes(StandardCharsets.UTF_8);
+        store.put("user_1", KIND, value, "meta", 1_000);
+
+        OffHeapStore.Entry<String> entry = store.take("user_1");
+
+        assertThat(entry.value()).isEqualTo(value);
+        assertThat(entry.kind()).isEqualTo(KIND);
+        assertThat(entry.metadata()).isEqualTo("meta");
+        assertThat(store.take("user_1")).isNull();
+        assertThat(store.usedBytes()).isZero();
+        assertThat(removals).isEmpty();
+    }
+
+    @Test
+    void put_WhenFull_ShouldEvictAndReuseBlocks() {
+        byte[] value = new byte[256];
+        for (int i = 0; i < 5; i++) {
+            store.put("user_" + i, KIND, value, "meta" + i, 1_000);
+        }
+
+        assertThat(store.size()).isEqualTo(4);
+        assertThat(store.usedBytes()).isEqualTo(1024);
+        assertThat(removals).containsExactly("user_0:SIZE");
+        assertThat(store.take("user_4").value()).hasSize(256);
+    }
+
+    @Test
+    void contains_ShouldSeeOnlyLiveEntriesWithoutTakingThem() {
+        store.put("user_1", KIND, new byte[10], "meta", 1_000);
+
+        assertThat(store.contains("user_1")).isTrue();
+        assertThat(store.contains("user_2")).isFalse();
+        assertThat(store.size()).isEqualTo(1);
+
+        now.set(1_000);
+        assertThat(store.contains("user_1")).isFalse();
+    }
+
+    @Test
+    void take_AfterExpiry_ShouldDropEntry() {
+        store.put("user_1", KIND, new byte[10], "meta", 1_000);
+        now.set(1_000);
+
+        assertThat(store.take("user_1")).isNull();
+        assertThat(removals).containsExactly("user_1:EXPIRED");
+        assertThat(store.usedBytes()).isZero();
+    }
+
+    @Test
+    void removeIf_ShouldNotifyExplicitRemoval() {
+        store.put("user_1", KIND, new byte[10], "meta", 1_000);
+        store.put("group_1", KIND, new byte[10], "meta", 1_000);
+
+        store.removeIf(key -> key.startsWith("user_"));
+
+        assertThat(removals).containsExactly("user_1:EXPLICIT");
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.fits(1024)).isTrue();
+        assertThat(store.fits(1025)).isFalse();
+    }
+}
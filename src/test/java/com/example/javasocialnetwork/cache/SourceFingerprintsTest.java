@@ -0,0 +1,163 @@
+package com.example.javasocialnetwork.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.PostRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Каждое изменение фиксируется своей транзакцией, как между записью и чтением снимка
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+@Import(SourceFingerprints.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SourceFingerprintsTest {
+
+    @Autowired
+    private SourceFingerprints sourceFingerprints;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long userId;
+    private Long otherUserId;
+    private Long groupId;
+    private List<String> tags;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Group group = new Group();
+            group.setName("readers");
+            groupId = groupRepository.save(group).getId();
+            User user = user("alice");
+            user.addGroup(group);
+            user.addPost(new Post("first", user));
+            userId = userRepository.save(user).getId();
+            otherUserId = userRepository.save(user("bob")).getId();
+        });
+        tags = List.of(CacheTags.user(userId), CacheTags.userPosts(userId), CacheTags.group(groupId),
+                CacheTags.user(otherUserId), CacheTags.userPosts(otherUserId));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            postRepository.deleteAllInBatch();
+            userRepository.findAll().forEach(user -> user.getGroups().clear());
+        });
+        userRepository.deleteAll();
+        groupRepository.deleteAll();
+    }
+
+    @Test
+    void read_UnchangedRows_ShouldReturnSameFingerprints() {
+        Map<String, Long> before = sourceFingerprints.read(tags);
+
+        assertThat(before).containsOnlyKeys(tags);
+        assertThat(sourceFingerprints.read(tags)).isEqualTo(before);
+    }
+
+    @Test
+    void read_RenamedUser_ShouldChangeOnlyUserFingerprint() {
+        Map<String, Long> before = sourceFingerprints.read(tags);
+
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().setUserName("alicia"));
+
+        Map<String, Long> after = sourceFingerprints.read(tags);
+        assertThat(changedTags(before, after)).containsExactly(CacheTags.user(userId));
+    }
+
+    @Test
+    void read_EditedOrAddedPost_ShouldChangePostsFingerprint() {
+        Map<String, Long> before = sourceFingerprints.read(tags);
+
+        transactionTemplate.executeWithoutResult(status ->
+                postRepository.findByUserId(userId).get(0).setContent("edited"));
+        Map<String, Long> edited = sourceFingerprints.read(tags);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(otherUserId).orElseThrow();
+            user.addPost(new Post("hello", user));
+        });
+        Map<String, Long> added = sourceFingerprints.read(tags);
+
+        assertThat(changedTags(before, edited)).containsExactly(CacheTags.userPosts(userId));
+        assertThat(changedTags(edited, added)).containsExactly(CacheTags.userPosts(otherUserId));
+    }
+
+    @Test
+    void read_NewMembership_ShouldChangeGroupAndMemberFingerprints() {
+        Map<String, Long> before = sourceFingerprints.read(tags);
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.findById(otherUserId).orElseThrow()
+                .addGroup(groupRepository.findById(groupId).orElseThrow()));
+
+        Map<String, Long> after = sourceFingerprints.read(tags);
+        assertThat(changedTags(before, after))
+                .containsExactlyInAnyOrder(CacheTags.group(groupId), CacheTags.user(otherUserId));
+    }
+
+    @Test
+    void read_UpdateFromStaleCopy_ShouldNotFailAndChangeUserFingerprint() {
+        User stale = userRepository.findById(userId).orElseThrow();
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().setUserName("alicia"));
+        Map<String, Long> before = sourceFingerprints.read(tags);
+
+        // Счётчик изменений не участвует в оптимистичной блокировке: последняя запись побеждает
+        stale.setUserName("alice2");
+        assertThatCode(() -> userRepository.save(stale)).doesNotThrowAnyException();
+
+        assertThat(userRepository.findById(userId).orElseThrow().getUsername()).isEqualTo("alice2");
+        assertThat(changedTags(before, sourceFingerprints.read(tags))).containsExactly(CacheTags.user(userId));
+    }
+
+    @Test
+    void read_DeletedGroup_ShouldOmitItsTag() {
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().getGroups().clear());
+        groupRepository.deleteById(groupId);
+
+        assertThat(sourceFingerprints.read(tags)).doesNotContainKey(CacheTags.group(groupId));
+    }
+
+    private List<String> changedTags(Map<String, Long> before, Map<String, Long> after) {
+        return tags.stream()
+                .filter(tag -> !SourceFingerprints.matches(Map.of(tag, before.get(tag)), after))
+                .toList();
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUserName(username);
+        user.setPassword("secret1");
+        return user;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.javasocialnetwork.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.example.javasocialnetwork.cache.CacheProperties;
+import com.example.javasocialnetwork.cache.JsonPayload;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+class JsonPayloadResponderTest {
+    private static final String ETAG = "\"abc\"";
+
+    private final JsonPayloadResponder responder = new JsonPayloadResponder(new CacheProperties());
+    private final JsonPayload payload = new JsonPayload(
+            "{\"id\":1}".getBytes(StandardCharsets.UTF_8), false, ETAG, Set.of("user:1"));
+
+    @Test
+    void respond_ShouldWriteCachedBytesWithEtag() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+
+        ResponseEntity<byte[]> response = responder.respond(payload, webRequest(request));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(response.getBody()).isSameAs(payload.body());
+    }
+
+    @Test
+    void respond_MatchingIfNoneMatch_ShouldAnswerNotModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<byte[]> response =
+                responder.respond(payload, new ServletWebRequest(request, servletResponse));
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    }
+
+    private static ServletWebRequest webRequest(MockHttpServletRequest request) {
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.javasocialnetwork.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.example.javasocialnetwork.cache.CacheProperties;
+import com.example.javasocialnetwork.cache.InvalidationBatch;
+import com.example.javasocialnetwork.config.SecondLevelCacheInvalidator;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Set;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Без общей тестовой транзакции: каждый вызов идёт в своём контексте персистентности, как в приложении.
+// HibernateCacheConfig подключается к каждому @DataJpaTest через AutoConfigureDataJpa.imports
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SecondLevelCacheInvalidator invalidator;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    private TransactionTemplate transactionTemplate;
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        groupRepository.deleteAll();
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @Test
+    void findById_RepeatedLookup_ShouldNotQueryDatabase() {
+        Long id = userRepository.save(user("alice")).getId();
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+
+        assertThat(userRepository.findById(id)).isPresent();
+        long afterFirstLookup = statistics.getPrepareStatementCount();
+        assertThat(userRepository.findById(id)).isPresent();
+
+        assertThat(afterFirstLookup).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void collections_RepeatedLoad_ShouldNotQueryDatabase() {
+        Long id = savedUserWithGroupAndPost();
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+
+        assertThat(groupAndPostCount(id)).isEqualTo(2);
+        long afterFirstLoad = statistics.getPrepareStatementCount();
+        assertThat(groupAndPostCount(id)).isEqualTo(2);
+
+        // Пользователь, его группы и его посты
+        assertThat(afterFirstLoad).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterFirstLoad);
+    }
+
+    @Test
+    void collections_ShouldBeCachedInConfiguredRegion() {
+        Long id = savedUserWithGroupAndPost();
+        sessionFactory.getCache().evictAllRegions();
+
+        groupAndPostCount(id);
+
+        Cache<Object, Object> userGroups = hibernateCacheManager.getCache(User.class.getName() + ".groups");
+        Eh107Configuration<Object, Object> configuration = userGroups.getConfiguration(Eh107Configuration.class);
+        long heapEntries = configuration.unwrap(CacheRuntimeConfiguration.class)
+                .getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize();
+        assertThat(heapEntries).isEqualTo(cacheProperties.getJpa().getMaxEntries());
+        assertThat(userGroups.iterator().hasNext()).isTrue();
+    }
+
+    @Test
+    void findByUsername_RepeatedQuery_ShouldUseQueryCache() {
+        userRepository.save(user("alice"));
+        statistics.clear();
+
+        assertThat(userRepository.findByUsername("alice")).isPresent();
+        long afterFirstQuery = statistics.getPrepareStatementCount();
+        assertThat(userRepository.findByUsername("alice")).isPresent();
+
+        assertThat(afterFirstQuery).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByName_RepeatedQuery_ShouldUseQueryCache() {
+        groupRepository.save(group("admins"));
+        statistics.clear();
+
+        assertThat(groupRepository.findByName("admins")).isNotNull();
+        assertThat(groupRepository.findByName("admins")).isNotNull();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void existsByUsername_AfterInsert_ShouldNotServeStaleResult() {
+        assertThat(userRepository.existsByUsername("bob")).isFalse();
+        assertThat(userRepository.existsByUsername("bob")).isFalse();
+
+        userRepository.save(user("bob"));
+
+        assertThat(userRepository.existsByUsername("bob")).isTrue();
+    }
+
+    @Test
+    void invalidator_RemoteUserTag_ShouldReloadChangedRow() {
+        Long id = userRepository.save(user("alice")).getId();
+        assertThat(userRepository.findById(id)).get().extracting(User::getUsername).isEqualTo("alice");
+        // Запись другого экземпляра мимо этого кеша
+        jdbcTemplate.update("UPDATE users SET username = 'alicia' WHERE id = ?", id);
+        assertThat(userRepository.findById(id)).get().extracting(User::getUsername).isEqualTo("alice");
+
+        invalidator.accept(new InvalidationBatch("peer", Set.of(), Set.of(), Set.of("user:" + id)));
+
+        assertThat(userRepository.findById(id)).get().extracting(User::getUsername).isEqualTo("alicia");
+    }
+
+    @Test
+    void invalidator_RemoteBatch_ShouldDropQueryResults() {
+        userRepository.save(user("alice"));
+        assertThat(userRepository.findByUsername("alice")).isPresent();
+        jdbcTemplate.update("DELETE FROM users WHERE username = 'alice'");
+
+        invalidator.accept(new InvalidationBatch("peer", Set.of(), Set.of(), Set.of("user:0")));
+
+        assertThat(userRepository.findByUsername("alice")).isEmpty();
+    }
+
+    private Long savedUserWithGroupAndPost() {
+        return transactionTemplate.execute(status -> {
+            User user = user("alice");
+            user.addGroup(group("admins"));
+            user.addPost(new Post("Hello", user));
+            return userRepository.save(user).getId();
+        });
+    }
+
+    private int groupAndPostCount(Long userId) {
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            return user.getGroups().size() + user.getPosts().size();
+        });
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUserName(username);
+        user.setPassword("secret1");
+        return user;
+    }
+
+    private static Group group(String name) {
+        Group group = new Group();
+        group.setName(name);
+        return group;
+    }
+}
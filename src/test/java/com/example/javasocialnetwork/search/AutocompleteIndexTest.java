@@ -0,0 +1,109 @@
+package com.example.javasocialnetwork.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.dto.CompletionDto;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.stats.VisitCounterService;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+@ExtendWith(MockitoExtension.class)
+class AutocompleteIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private GroupRepository groupRepository;
+
+    @Mock
+    private VisitCounterService visitCounterService;
+
+    @Mock
+    private ObjectProvider<CacheInvalidationBus> invalidationBus;
+
+    private AutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AutocompleteIndex(userRepository, groupRepository, visitCounterService, invalidationBus);
+    }
+
+    @Test
+    void rebuild_ShouldRankUsersByVisitsAndGroupsByMembers() {
+        when(visitCounterService.getAllStats()).thenReturn(Map.of("/users/2", 30L, "/users/1", 10L, "/groups/1", 99L));
+        when(userRepository.findUsernamesAfter(eq(0L), any()))
+                .thenReturn(List.of(new UsernameDocument(1L, "java_dev"), new UsernameDocument(2L, "javier")));
+        when(groupRepository.findDocumentsAfter(eq(0L), any()))
+                .thenReturn(List.of(new GroupDocument(1L, "Java", 20), new GroupDocument(2L, "JavaScript", 40)));
+
+        index.rebuild();
+
+        assertThat(names(index.complete("jav", CompletionType.USER, 10))).containsExactly("javier", "java_dev");
+        assertThat(names(index.complete("jav", CompletionType.GROUP, 10))).containsExactly("JavaScript", "Java");
+        assertThat(names(index.complete("JAV", null, 3))).containsExactly("JavaScript", "javier", "Java");
+    }
+
+    @Test
+    void adjustGroupMembers_ShouldReorderGroups() {
+        index.putGroup(1L, "chess", 1);
+        index.putGroup(2L, "cheese", 2);
+
+        index.adjustGroupMembers(1L, 1);
+        index.adjustGroupMembers(1L, 1);
+        index.adjustGroupMembers(2L, -1);
+        index.adjustGroupMembers(99L, 1);
+
+        assertThat(names(index.complete("che", CompletionType.GROUP, 10))).containsExactly("chess", "cheese");
+    }
+
+    @Test
+    void renameGroup_ShouldKeepMembers() {
+        index.putGroup(1L, "old", 5);
+        index.putGroup(2L, "other", 3);
+
+        index.renameGroup(1L, "orange");
+
+        assertThat(names(index.complete("o", null, 10))).containsExactly("orange", "other");
+        assertThat(index.complete("old", null, 10)).isEmpty();
+    }
+
+    @Test
+    void refreshVisits_ShouldUpdateUserPopularity() {
+        index.putUser(1L, "alex");
+        index.putUser(2L, "alexa");
+        assertThat(names(index.complete("al", null, 10))).containsExactly("alex", "alexa");
+
+        when(visitCounterService.getAllStats()).thenReturn(Map.of("/users/2", 7L, "/users/2/posts", 100L));
+        index.refreshVisits();
+
+        assertThat(names(index.complete("al", null, 10))).containsExactly("alexa", "alex");
+    }
+
+    @Test
+    void removeUser_ShouldDropCompletion() {
+        index.putUser(1L, "bob");
+        index.putGroup(1L, "bobsleigh", 0);
+
+        index.removeUser(1L);
+
+        assertThat(index.complete("bob", null, 10))
+                .extracting(CompletionDto::getType)
+                .containsExactly(CompletionType.GROUP);
+    }
+
+    private static List<String> names(List<CompletionDto> completions) {
+        return completions.stream().map(CompletionDto::getName).toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.javasocialnetwork.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.example.javasocialnetwork.search.CompletionTrie.Completion;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CompletionTrieTest {
+
+    @Test
+    void complete_ShouldReturnMostPopularNamesWithPrefix() {
+        CompletionTrie trie = new CompletionTrie();
+        trie.put(1, "ivan", 5);
+        trie.put(2, "Ivanov", 50);
+        trie.put(3, "ivy", 7);
+        trie.put(4, "maria", 100);
+
+        assertThat(trie.complete("iv", 10)).extracting(Completion::name).containsExactly("Ivanov", "ivy", "ivan");
+        assertThat(trie.complete("IVA", 1)).extracting(Completion::name).containsExactly("Ivanov");
+        assertThat(trie.complete("ivano", 10)).extracting(Completion::name).containsExactly("Ivanov");
+        assertThat(trie.complete("", 2)).extracting(Completion::name).containsExactly("maria", "Ivanov");
+        assertThat(trie.complete("ivx", 10)).isEmpty();
+        assertThat(trie.complete("ivanovich", 10)).isEmpty();
+    }
+
+    @Test
+    void put_ExistingId_ShouldRenameOrRescore() {
+        CompletionTrie trie = new CompletionTrie();
+        trie.put(1, "anna", 1);
+        trie.put(2, "anton", 2);
+
+        trie.put(1, "anna", 10);
+        assertThat(trie.complete("an", 10)).extracting(Completion::name).containsExactly("anna", "anton");
+
+        trie.put(1, "olga", 10);
+        assertThat(trie.complete("an", 10)).extracting(Completion::name).containsExactly("anton");
+        assertThat(trie.complete("o", 10)).extracting(Completion::id).containsExactly(1L);
+        assertThat(trie.size()).isEqualTo(2);
+    }
+
+    @Test
+    void remove_ShouldDropNameAndKeepSiblings() {
+        CompletionTrie trie = new CompletionTrie();
+        trie.put(1, "team", 3);
+        trie.put(2, "teamwork", 2);
+        trie.put(3, "tea", 1);
+        trie.put(4, "same", 1);
+        trie.put(5, "Same", 4);
+
+        trie.remove(1);
+        trie.remove(4);
+        trie.remove(42);
+
+        assertThat(trie.complete("tea", 10)).extracting(Completion::name).containsExactly("teamwork", "tea");
+        assertThat(trie.complete("team", 10)).extracting(Completion::name).containsExactly("teamwork");
+        assertThat(trie.complete("sa", 10)).extracting(Completion::id).containsExactly(5L);
+        assertThat(trie.size()).isEqualTo(3);
+    }
+
+    @Test
+    void complete_RandomChanges_ShouldMatchFullScan() {
+        Random random = new Random(42);
+        CompletionTrie trie = new CompletionTrie();
+        List<Completion> expected = new ArrayList<>();
+        for (int step = 0; step < 3_000; step++) {
+            long id = random.nextInt(300);
+            expected.removeIf(completion -> completion.id() == id);
+            if (random.nextInt(4) == 0) {
+                trie.remove(id);
+            } else {
+                String name = randomName(random);
+                long score = random.nextInt(20);
+                trie.put(id, name, score);
+                expected.add(new Completion(id, name, score));
+            }
+        }
+
+        for (String prefix : List.of("", "a", "ab", "ba", "abc", "c", "cab")) {
+            List<Completion> scan = expected.stream()
+                    .filter(completion -> completion.name().toLowerCase().startsWith(prefix))
+                    .sorted(CompletionTrie.ORDER)
+                    .limit(CompletionTrie.MAX_COMPLETIONS)
+                    .toList();
+            assertThat(trie.complete(prefix, CompletionTrie.MAX_COMPLETIONS)).containsExactlyElementsOf(scan);
+        }
+        assertThat(trie.size()).isEqualTo(expected.size());
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 1 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            char letter = (char) ('a' + random.nextInt(3));
+            name.append(random.nextBoolean() ? letter : Character.toUpperCase(letter));
+        }
+        return name.toString();
+    }
+}
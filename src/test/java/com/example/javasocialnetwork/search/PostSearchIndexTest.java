@@ -0,0 +1,159 @@
+package com.example.javasocialnetwork.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.exception.ValidationException;
+import com.example.javasocialnetwork.repository.PostRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+@ExtendWith(MockitoExtension.class)
+class PostSearchIndexTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private ObjectProvider<CacheInvalidationBus> invalidationBus;
+
+    private PostSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PostSearchIndex(postRepository, invalidationBus);
+    }
+
+    @Test
+    void findUserIds_ShouldRequireEveryTermAsTermOrPrefix() {
+        index.index(1L, 10L, "Learning Java streams");
+        index.index(2L, 20L, "Java, Kotlin and Scala");
+        index.index(3L, 30L, "Streams in Kotlin");
+
+        assertThat(index.findUserIds("java")).containsExactly(10L, 20L);
+        assertThat(index.findUserIds("JAV stream")).containsExactly(10L);
+        assertThat(index.findUserIds("kotlin")).containsExactly(20L, 30L);
+        assertThat(index.findUserIds("ava")).isEmpty();
+        assertThat(index.findUserIds("  ,. ")).isEmpty();
+    }
+
+    @Test
+    void findUserIds_SeveralMatchingPosts_ShouldReturnUserOnce() {
+        index.index(1L, 10L, "Привет, мир");
+        index.index(2L, 10L, "Мир тесен");
+
+        assertThat(index.findUserIds("мир")).containsExactly(10L);
+    }
+
+    @Test
+    void index_UpdatedPost_ShouldForgetOldTerms() {
+        index.index(1L, 10L, "old text");
+        index.index(1L, 10L, "new text");
+
+        assertThat(index.findUserIds("old")).isEmpty();
+        assertThat(index.findUserIds("new")).containsExactly(10L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeUser_ShouldDropAllPostsOfUser() {
+        index.index(1L, 10L, "hello");
+        index.index(2L, 10L, "hello again");
+        index.index(3L, 20L, "hello");
+
+        index.removeUser(10L);
+
+        assertThat(index.findUserIds("hello")).containsExactly(20L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void search_ShouldRankFrequentRareAndShortMatchesFirst() {
+        index.index(1L, 10L, "java is fine");
+        index.index(2L, 20L, "java java java");
+        index.index(3L, 30L, "java and a very long post that mentions the language only once among many words");
+        index.index(4L, 40L, "nothing here");
+
+        assertThat(index.search("java", null, 10))
+                .extracting(PostSearchHit::postId)
+                .containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void search_ShouldReturnOnlyPostsWithAllTerms() {
+        index.index(1L, 10L, "spring spring boot");
+        index.index(2L, 20L, "spring boot kafka");
+        index.index(3L, 30L, "spring boot");
+        index.index(4L, 40L, "spring");
+
+        List<PostSearchHit> hits = index.search("spring boot", null, 10);
+
+        assertThat(hits).extracting(PostSearchHit::postId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.search("kafka spring", null, 10)).extracting(PostSearchHit::postId).containsExactly(2L);
+    }
+
+    @Test
+    void search_WithCursor_ShouldPageThroughAllHitsOnce() {
+        for (long id = 1; id <= 25; id++) {
+            index.index(id, id, "tag " + "word ".repeat((int) (id % 4)));
+        }
+        List<PostSearchHit> all = index.search("tag", null, 100);
+
+        List<Long> paged = new ArrayList<>();
+        SearchCursor cursor = null;
+        List<PostSearchHit> page;
+        do {
+            page = index.search("tag", cursor, 10);
+            page.forEach(hit -> paged.add(hit.postId()));
+            cursor = page.isEmpty() ? null : SearchCursor.decode(SearchCursor.after(page.get(page.size() - 1)).encode());
+        } while (page.size() == 10);
+
+        assertThat(all).hasSize(25);
+        assertThat(paged).containsExactlyElementsOf(all.stream().map(PostSearchHit::postId).toList());
+    }
+
+    @Test
+    void searchCursor_Garbage_ShouldBeRejected() {
+        assertThatThrownBy(() -> SearchCursor.decode("not a cursor"))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void rebuild_ShouldReadAllPostsInBatches() {
+        List<PostDocument> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            firstBatch.add(new PostDocument(id, id, "post " + id));
+        }
+        when(postRepository.findDocumentsAfter(eq(0L), any())).thenReturn(firstBatch);
+        when(postRepository.findDocumentsAfter(eq(1_000L), any()))
+                .thenReturn(List.of(new PostDocument(1_001L, 7L, "last one")));
+        index.index(99_999L, 1L, "stale");
+
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(1_001);
+        assertThat(index.findUserIds("last")).containsExactly(7L);
+        assertThat(index.findUserIds("stale")).isEmpty();
+    }
+
+    @Test
+    void reindexUser_ShouldReplaceUsersPostsFromDatabase() {
+        index.index(1L, 10L, "before");
+        when(postRepository.findDocumentsByUserId(10L))
+                .thenReturn(List.of(new PostDocument(2L, 10L, "after")));
+
+        index.reindexUser(10L);
+
+        assertThat(index.findUserIds("before")).isEmpty();
+        assertThat(index.findUserIds("after")).containsExactly(10L);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.javasocialnetwork.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class PostingListTest {
+
+    @Test
+    void add_AscendingIds_ShouldKeepOrderAndFrequencies() {
+        PostingList postingList = new PostingList();
+        postingList.add(3, 1);
+        postingList.add(10, 4);
+        postingList.add(5_000_000_000L, 2);
+
+        PostingList.Cursor cursor = postingList.cursor();
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.docId()).isEqualTo(3);
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.frequency()).isEqualTo(4);
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.docId()).isEqualTo(5_000_000_000L);
+        assertThat(cursor.frequency()).isEqualTo(2);
+        assertThat(cursor.next()).isFalse();
+    }
+
+    @Test
+    void add_OutOfOrderAndExistingIds_ShouldStaySortedWithoutDuplicates() {
+        PostingList postingList = new PostingList();
+        postingList.add(7, 1);
+        postingList.add(2, 1);
+        postingList.add(5, 1);
+        postingList.add(7, 3);
+
+        assertThat(postingList.docIds()).containsExactly(2, 5, 7);
+        assertThat(postingList.size()).isEqualTo(3);
+    }
+
+    @Test
+    void remove_ShouldDropOnlyGivenId() {
+        PostingList postingList = new PostingList();
+        postingList.add(1, 1);
+        postingList.add(2, 1);
+        postingList.add(3, 1);
+
+        assertThat(postingList.remove(2)).isTrue();
+        assertThat(postingList.remove(42)).isFalse();
+        postingList.add(4, 1);
+
+        assertThat(postingList.docIds()).containsExactly(1, 3, 4);
+    }
+
+    @Test
+    void add_DenseIds_ShouldTakeTwoBytesPerEntry() {
+        PostingList postingList = new PostingList();
+        for (long id = 1; id <= 1_000; id++) {
+            postingList.add(id, 1);
+        }
+
+        assertThat(postingList.encodedBytes()).isEqualTo(2_000);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.javasocialnetwork.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import com.example.javasocialnetwork.cache.CacheInvalidationBus;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.repository.UserRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ObjectProvider<CacheInvalidationBus> invalidationBus;
+
+    private UsernameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UsernameIndex(userRepository, invalidationBus);
+        index.index(1L, "Vanya");
+        index.index(2L, "ivan");
+        index.index(3L, "Ivanov2000");
+        index.index(4L, "maria");
+    }
+
+    @Test
+    void search_Substring_ShouldMatchAnywhereIgnoringCase() {
+        assertThat(usernames(index.search("IVAN", false, 0, 10))).containsExactly("ivan", "Ivanov2000");
+        assertThat(usernames(index.search("van", false, 0, 10))).containsExactly("Vanya", "ivan", "Ivanov2000");
+        assertThat(usernames(index.search("nov2", false, 0, 10))).containsExactly("Ivanov2000");
+        assertThat(index.search("xyz", false, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void search_ShortSubstring_ShouldUseTrigramsContainingIt() {
+        assertThat(usernames(index.search("ri", false, 0, 10))).containsExactly("maria");
+        assertThat(usernames(index.search("a", false, 0, 10))).containsExactly("maria", "Vanya", "ivan", "Ivanov2000");
+    }
+
+    @Test
+    void search_Fuzzy_ShouldFindNamesWithinEditDistance() {
+        assertThat(usernames(index.search("iwan", true, 0, 10))).containsExactly("ivan");
+        assertThat(usernames(index.search("mraia", true, 0, 10))).isEmpty();
+        assertThat(usernames(index.search("ivanof200", true, 0, 10))).containsExactly("Ivanov2000");
+    }
+
+    @Test
+    void search_ShouldPageThroughRankedMatches() {
+        assertThat(usernames(index.search("an", false, 0, 2))).containsExactly("Vanya", "ivan");
+        assertThat(usernames(index.search("an", false, 2, 2))).containsExactly("Ivanov2000");
+    }
+
+    @Test
+    void index_RenamedAndRemovedUsers_ShouldDropOldNames() {
+        index.index(2L, "petr");
+        index.remove(4L);
+
+        assertThat(usernames(index.search("ivan", false, 0, 10))).containsExactly("Ivanov2000");
+        assertThat(usernames(index.search("petr", false, 0, 10))).containsExactly("petr");
+        assertThat(index.search("maria", false, 0, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void rebuild_ShouldReplaceIndexWithDatabaseState() {
+        when(userRepository.findUsernamesAfter(eq(0L), any()))
+                .thenReturn(List.of(new UsernameDocument(7L, "olga")));
+
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(usernames(index.search("olg", false, 0, 10))).containsExactly("olga");
+    }
+
+    @Test
+    void distance_ShouldStopAboveBound() {
+        assertThat(UsernameIndex.distance("kitten", "sitting", 3)).isEqualTo(3);
+        assertThat(UsernameIndex.distance("kitten", "sitting", 2)).isEqualTo(3);
+        assertThat(UsernameIndex.distance("abc", "abcdef", 1)).isEqualTo(2);
+    }
+
+    private static List<String> usernames(List<UserDto> users) {
+        return users.stream().map(UserDto::getUsername).toList();
+    }
+}
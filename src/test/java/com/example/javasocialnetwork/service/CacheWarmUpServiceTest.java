@@ -0,0 +1,95 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.example.javasocialnetwork.cache.CacheProperties;
+import com.example.javasocialnetwork.stats.VisitCounterService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpServiceTest {
+
+    @Mock
+    private VisitCounterService visitCounterService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private GroupService groupService;
+
+    private final AtomicLong now = new AtomicLong();
+    private CacheProperties properties;
+    private CacheWarmUpService warmUpService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheProperties();
+        properties.getWarmUp().setBatchSize(2);
+        properties.getWarmUp().setTopN(4);
+        warmUpService = new CacheWarmUpService(visitCounterService, userService, groupService, properties, now::get);
+    }
+
+    @Test
+    void warmUp_ShouldPreloadHottestEntitiesInBatches() {
+        when(visitCounterService.getAllStats()).thenReturn(Map.of(
+                "/users/1", 50L,
+                "/users/2", 40L,
+                "/users/3", 1L,
+                "/groups/7", 30L,
+                "/users/search", 100L,
+                "/api/stats/all", 90L));
+        when(userService.warmUp(anyCollection(), anyBoolean())).thenReturn(2, 1);
+        when(groupService.warmUp(anyCollection(), anyBoolean())).thenReturn(1);
+
+        CacheWarmUpService.WarmUpResult result = warmUpService.warmUp();
+
+        verify(userService).warmUp(List.of(1L, 2L), false);
+        verify(userService).warmUp(List.of(3L), false);
+        verify(groupService).warmUp(List.of(7L), false);
+        assertThat(result.preloaded()).isEqualTo(4);
+        assertThat(result.completed()).isTrue();
+    }
+
+    @Test
+    void warmUp_ShouldRespectTopN() {
+        properties.getWarmUp().setTopN(1);
+        when(visitCounterService.getAllStats()).thenReturn(Map.of("/users/1", 5L, "/groups/2", 3L));
+
+        warmUpService.warmUp();
+
+        verify(userService).warmUp(List.of(1L), false);
+        verify(groupService, never()).warmUp(anyCollection(), anyBoolean());
+    }
+
+    @Test
+    void warmUp_ShouldStopWhenTimeBudgetIsSpent() {
+        properties.getWarmUp().setTimeBudget(Duration.ofSeconds(1));
+        when(visitCounterService.getAllStats()).thenReturn(Map.of(
+                "/users/1", 4L, "/users/2", 3L, "/users/3", 2L, "/users/4", 1L));
+        when(userService.warmUp(anyCollection(), anyBoolean())).thenAnswer(invocation -> {
+            now.addAndGet(1_000);
+            return 2;
+        });
+
+        CacheWarmUpService.WarmUpResult result = warmUpService.warmUp();
+
+        verify(userService).warmUp(List.of(1L, 2L), false);
+        verify(userService, never()).warmUp(List.of(3L, 4L), false);
+        assertThat(result.completed()).isFalse();
+        assertThat(result.preloaded()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.PostRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+@Import(ExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportServiceTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Group group = new Group();
+            group.setName("readers");
+            groupRepository.save(group);
+            alice = user("alice");
+            alice.addGroup(group);
+            alice.addPost(new Post("hello, \"world\"", alice));
+            alice = userRepository.save(alice);
+            bob = user("bob");
+            bob.addGroup(group);
+            bob = userRepository.save(bob);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            postRepository.deleteAllInBatch();
+            userRepository.findAll().forEach(user -> user.getGroups().clear());
+        });
+        userRepository.deleteAll();
+        groupRepository.deleteAll();
+    }
+
+    @Test
+    void exportUsers_AsNdjson_ShouldWriteOneObjectPerLineWithoutPasswords() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportUsers(ExportFormat.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":" + alice.getId() + ",\"username\":\"alice\"}\n"
+                        + "{\"id\":" + bob.getId() + ",\"username\":\"bob\"}\n");
+    }
+
+    @Test
+    void exportPosts_AsCsv_ShouldQuoteSpecialCharacters() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportPosts(ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo("id,userId,content");
+        assertThat(lines[1]).endsWith("," + alice.getId() + ",\"hello, \"\"world\"\"\"");
+    }
+
+    @Test
+    void exportGroups_ShouldIncludeMemberCount() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportGroups(ExportFormat.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"name\":\"readers\",\"members\":2}");
+    }
+
+    @Test
+    void csvField_ShouldLeavePlainValuesUnquoted() {
+        assertThat(ExportService.csvField("plain")).isEqualTo("plain");
+        assertThat(ExportService.csvField("two\nlines")).isEqualTo("\"two\nlines\"");
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUserName(username);
+        user.setPassword("secret1");
+        return user;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.dto.GroupDeletionDto;
+import com.example.javasocialnetwork.dto.GroupDeletionDto.Status;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.exception.GroupDeletionInProgressException;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest(properties = {
+        "group.delete-chunk-size=2",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@Import(GroupDeletionService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GroupDeletionServiceTest {
+
+    @Autowired
+    private GroupDeletionService groupDeletionService;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private CacheService cacheService;
+
+    @MockitoBean
+    private AutocompleteIndex autocompleteIndex;
+
+    private TransactionTemplate transactionTemplate;
+    private Long groupId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        groupId = transactionTemplate.execute(status -> {
+            Group group = new Group();
+            group.setName("crowd");
+            groupRepository.save(group);
+            for (int i = 0; i < 5; i++) {
+                User user = new User();
+                user.setUserName("member" + i);
+                user.setPassword("secret1");
+                user.addGroup(group);
+                userRepository.save(user);
+            }
+            return group.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findAll().forEach(user -> user.getGroups().clear()));
+        userRepository.deleteAll();
+        groupRepository.deleteAll();
+    }
+
+    @Test
+    void delete_ShouldRemoveMembershipsInChunksAndKeepUsers() {
+        GroupDeletionDto result = groupDeletionService.delete(groupId);
+
+        assertThat(result.getStatus()).isEqualTo(Status.DONE);
+        // 2 + 2 + 1: неполная третья пачка удаляет и саму группу
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(result.getMembershipsRemoved()).isEqualTo(5);
+        assertThat(groupRepository.existsById(groupId)).isFalse();
+        assertThat(userRepository.count()).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_groups", Long.class)).isZero();
+        verify(autocompleteIndex).removeGroup(groupId);
+        verify(cacheService).invalidateTags(CacheTags.group(groupId));
+    }
+
+    @Test
+    void delete_GroupWithinOneChunk_ShouldDeleteInSingleTransaction() {
+        Long smallGroupId = transactionTemplate.execute(status -> {
+            Group group = new Group();
+            group.setName("pair");
+            groupRepository.save(group);
+            userRepository.findAll().stream().limit(2).forEach(user -> user.addGroup(group));
+            return group.getId();
+        });
+
+        GroupDeletionDto result = groupDeletionService.delete(smallGroupId);
+
+        assertThat(result.getChunks()).isEqualTo(1);
+        assertThat(result.getMembershipsRemoved()).isEqualTo(2);
+        assertThat(groupRepository.existsById(smallGroupId)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_groups", Long.class)).isEqualTo(5);
+    }
+
+    @Test
+    void delete_WhileBackgroundDeletionRuns_ShouldBeRejected() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS))
+                .when(cacheService).invalidateTags(CacheTags.group(groupId));
+
+        try {
+            groupDeletionService.submit(groupId);
+
+            assertThatThrownBy(() -> groupDeletionService.delete(groupId))
+                    .isInstanceOf(GroupDeletionInProgressException.class);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(awaitFinished(groupId).getStatus()).isEqualTo(Status.DONE);
+        verify(autocompleteIndex, times(1)).removeGroup(groupId);
+    }
+
+    @Test
+    void submit_WhileSynchronousDeletionRuns_ShouldReturnIt() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        }).when(cacheService).invalidateTags(CacheTags.group(groupId));
+        Thread deleting = new Thread(() -> groupDeletionService.delete(groupId));
+        deleting.start();
+
+        try {
+            assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(groupDeletionService.submit(groupId).getStatus()).isEqualTo(Status.RUNNING);
+        } finally {
+            release.countDown();
+        }
+
+        deleting.join(10_000);
+        assertThat(groupDeletionService.progress(groupId)).get()
+                .extracting(GroupDeletionDto::getStatus).isEqualTo(Status.DONE);
+        verify(autocompleteIndex, times(1)).removeGroup(groupId);
+    }
+
+    @Test
+    void submit_ShouldDeleteInBackgroundAndReportProgress() throws InterruptedException {
+        GroupDeletionDto started = groupDeletionService.submit(groupId);
+        assertThat(started.getStatus()).isEqualTo(Status.RUNNING);
+
+        GroupDeletionDto progress = started;
+        for (int i = 0; i < 100 && progress.getStatus() == Status.RUNNING; i++) {
+            Thread.sleep(50);
+            progress = groupDeletionService.progress(groupId).orElseThrow();
+        }
+
+        assertThat(progress.getStatus()).isEqualTo(Status.DONE);
+        assertThat(progress.getMembershipsRemoved()).isEqualTo(5);
+        assertThat(groupRepository.existsById(groupId)).isFalse();
+    }
+
+    @Test
+    void submit_ManyDeletionsWhileOneRuns_ShouldEvictOnlyFinishedOnes() throws InterruptedException {
+        long missingGroupId = groupId + 1_000;
+        for (int i = 0; i < GroupDeletionService.MAX_TRACKED_DELETIONS; i++) {
+            groupDeletionService.submit(missingGroupId + i);
+        }
+        awaitFinished(missingGroupId + GroupDeletionService.MAX_TRACKED_DELETIONS - 1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS))
+                .when(cacheService).invalidateTags(CacheTags.group(groupId));
+
+        try {
+            groupDeletionService.submit(groupId);
+            // Ждут в очереди за удалением группы и вытесняют все завершённые
+            for (int i = 0; i < GroupDeletionService.MAX_TRACKED_DELETIONS; i++) {
+                groupDeletionService.submit(missingGroupId + GroupDeletionService.MAX_TRACKED_DELETIONS + i);
+            }
+
+            assertThat(groupDeletionService.progress(missingGroupId)).isEmpty();
+            assertThat(groupDeletionService.progress(groupId)).get()
+                    .extracting(GroupDeletionDto::getStatus).isEqualTo(Status.RUNNING);
+            assertThat(groupDeletionService.submit(groupId).getStatus()).isEqualTo(Status.RUNNING);
+        } finally {
+            release.countDown();
+        }
+
+        // Завершённое удаление группы само уступает место идущим за ним
+        assertThat(awaitFinished(missingGroupId + 2 * GroupDeletionService.MAX_TRACKED_DELETIONS - 1).getStatus())
+                .isEqualTo(Status.DONE);
+        assertThat(groupRepository.existsById(groupId)).isFalse();
+        verify(autocompleteIndex, times(1)).removeGroup(groupId);
+    }
+
+    private GroupDeletionDto awaitFinished(Long id) throws InterruptedException {
+        GroupDeletionDto progress = groupDeletionService.progress(id).orElseThrow();
+        for (int i = 0; i < 200 && progress.getStatus() == Status.RUNNING; i++) {
+            Thread.sleep(50);
+            progress = groupDeletionService.progress(id).orElseThrow();
+        }
+        return progress;
+    }
+}
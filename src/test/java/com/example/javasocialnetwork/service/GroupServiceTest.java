@@ -1,21 +1,33 @@
 package com.example.javasocialnetwork.service;
 
 import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
+import com.example.javasocialnetwork.dto.BatchDto;
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.GroupDeletionDto;
 import com.example.javasocialnetwork.dto.GroupWithUsersDto;
+import com.example.javasocialnetwork.dto.IdCursor;
 import com.example.javasocialnetwork.entity.Group;
 import com.example.javasocialnetwork.entity.User;
 import com.example.javasocialnetwork.exception.GroupAlreadyExistException;
 import com.example.javasocialnetwork.exception.GroupNotFoundException;
 import com.example.javasocialnetwork.repository.GroupRepository;
-import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -27,11 +39,14 @@ class GroupServiceTest {
     private GroupRepository groupRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private GroupDeletionService groupDeletionService;
 
     @Mock
     private CacheService cacheService;
 
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
     @InjectMocks
     private GroupService groupService;
 
@@ -56,26 +71,87 @@ class GroupServiceTest {
 
     @Test
     void getOne_GroupInCache_ReturnsCachedDto() {
-        when(cacheService.get(anyString())).thenReturn(Optional.of(groupDto));
+        when(cacheService.getOrLoad(eq("group_1"), any(), any(), any(Absence.class))).thenReturn(groupDto);
 
         GroupWithUsersDto result = groupService.getOne(1L);
 
         assertEquals(groupDto, result);
-        verify(cacheService).get("group_1");
         verify(groupRepository, never()).findWithUsersById(anyLong());
     }
 
 
     @Test
     void getOne_GroupNotFound_ThrowsException() {
-        when(cacheService.get(anyString())).thenReturn(Optional.empty());
+        stubCacheMiss();
         when(groupRepository.findWithUsersById(1L)).thenReturn(Optional.empty());
 
         assertThrows(GroupNotFoundException.class, () -> groupService.getOne(1L));
-        verify(cacheService).get("group_1");
         verify(groupRepository).findWithUsersById(1L);
     }
 
+    @Test
+    void getOne_GroupNotInCache_LoadsAndTagsWithMembers() {
+        stubCacheMiss();
+        when(groupRepository.findWithUsersById(1L)).thenReturn(Optional.of(group));
+
+        GroupWithUsersDto result = groupService.getOne(1L);
+
+        assertEquals("TestGroup", result.getName());
+        assertEquals(Set.of("group:1", "user:1"), Set.copyOf(cachedTags("group_1", result)));
+    }
+
+    @Test
+    void getGroups_FullPage_ShouldLoadMembersOnlyForPageAndReturnCursor() {
+        when(groupRepository.findIdsAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(1L, 4L));
+        when(groupRepository.findWithUsersByIdInOrderByIdAsc(List.of(1L))).thenReturn(List.of(group));
+
+        CursorPageDto<GroupWithUsersDto> page = groupService.getGroups(null, 1);
+
+        assertEquals(List.of("TestGroup"), page.getItems().stream().map(GroupWithUsersDto::getName).toList());
+        assertEquals(1, page.getItems().get(0).getUsers().size());
+        assertEquals(IdCursor.after(1L), IdCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getGroups_PastLastGroup_ReturnsEmptyPageWithoutCursor() {
+        when(groupRepository.findIdsAfter(7L, PageRequest.of(0, 21))).thenReturn(List.of());
+
+        CursorPageDto<GroupWithUsersDto> page = groupService.getGroups(IdCursor.after(7L).encode(), 20);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(groupRepository, never()).findWithUsersByIdInOrderByIdAsc(any());
+    }
+
+    @Test
+    void getMany_MixedHitsAndMisses_LoadsOnlyMissesInOneQueryAndKeepsRequestOrder() {
+        Group other = new Group();
+        other.setId(2L);
+        other.setName("OtherGroup");
+        GroupWithUsersDto cached = GroupWithUsersDto.toModel(other);
+        when(cacheService.get(anyString())).thenReturn(Optional.empty());
+        when(cacheService.get("group_2")).thenReturn(Optional.of(cached));
+        when(groupRepository.findWithUsersByIdInOrderByIdAsc(List.of(1L, 9L))).thenReturn(List.of(group));
+
+        BatchDto<GroupWithUsersDto> result = groupService.getMany(List.of(2L, 1L, 9L, 2L));
+
+        assertEquals(List.of(2L, 1L), result.getItems().stream().map(GroupWithUsersDto::getId).toList());
+        assertEquals(List.of(9L), result.getNotFound());
+        verify(cacheService).preload(eq("group_1"), any(GroupWithUsersDto.class), any(), any(), anyLong());
+        verify(cacheService, never()).preload(eq("group_2"), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getMany_AllCached_DoesNotQueryDatabase() {
+        when(cacheService.get("group_1")).thenReturn(Optional.of(groupDto));
+
+        BatchDto<GroupWithUsersDto> result = groupService.getMany(List.of(1L));
+
+        assertEquals(List.of(groupDto), result.getItems());
+        assertTrue(result.getNotFound().isEmpty());
+        verifyNoInteractions(groupRepository);
+    }
+
     @Test
     void registration_NewGroup_Success() {
         when(groupRepository.findByName("NewGroup")).thenReturn(null);
@@ -89,7 +165,9 @@ class GroupServiceTest {
         assertNotNull(result);
         verify(groupRepository).findByName("NewGroup");
         verify(groupRepository).save(newGroup);
-        verify(cacheService).evictByPrefix("groups_");
+        verify(autocompleteIndex).putGroup(1L, "TestGroup", 1);
+        // Сбрасывается только закешированное отсутствие группы
+        verify(cacheService).invalidateTags("group:1");
     }
 
     @Test
@@ -120,46 +198,27 @@ class GroupServiceTest {
         // Assert
         assertEquals("NewName", group.getName());
         verify(groupRepository).save(group);
+        verify(autocompleteIndex).renameGroup(1L, "NewName");
 
         // Проверка инвалидации кеша
-        verify(cacheService).evict("group_1");
-        verify(cacheService).evict("group_by_name_NewName");
-        verify(cacheService).evictByPrefix("groups_");
+        verify(cacheService).invalidateTags("group:1");
     }
 
     @Test
-    void deleteGroup_SuccessfulDeletion() {
-        // Arrange
-        Long groupId = 1L;
-        Group testGroup = new Group();
-        testGroup.setId(groupId);
-
-        User user1 = new User();
-        user1.setId(101L);
-        User user2 = new User();
-        user2.setId(102L);
-
-        // Настраиваем связи
-        testGroup.getUsers().add(user1);
-        testGroup.getUsers().add(user2);
-        user1.getGroups().add(testGroup);
-        user2.getGroups().add(testGroup);
+    void deleteGroup_ExistingGroup_DeletesWithoutLoadingMembers() {
+        when(groupRepository.existsById(1L)).thenReturn(true);
 
-        when(groupRepository.findById(groupId)).thenReturn(Optional.of(testGroup));
+        groupService.deleteGroup(1L);
 
-        // Act
-        groupService.deleteGroup(groupId);
-
-        // Assert
-        verify(groupRepository).delete(testGroup);
-        // ... остальные проверки
+        verify(groupDeletionService).delete(1L);
+        verify(groupRepository, never()).findById(anyLong());
     }
 
     @Test
     void deleteGroup_NonExistingGroup_ThrowsException() {
         // Arrange
         Long groupId = 2L;
-        when(groupRepository.findById(groupId)).thenReturn(Optional.empty());
+        when(groupRepository.existsById(groupId)).thenReturn(false);
 
         // Act & Assert
         GroupNotFoundException exception = assertThrows(GroupNotFoundException.class,
@@ -168,9 +227,36 @@ class GroupServiceTest {
         assertEquals("Group not found", exception.getMessage());
         assertEquals(groupId, exception.getDetails().get("groupId"));
 
-        verify(groupRepository, never()).delete(any());
-        verify(userRepository, never()).save(any());
-        verify(cacheService, never()).evict(anyString());
+        verifyNoInteractions(groupDeletionService);
     }
 
-}
\ No newline at end of file
+    @Test
+    void deleteGroupInBackground_ExistingGroup_ReturnsRunningDeletion() {
+        GroupDeletionDto running = new GroupDeletionDto(1L, GroupDeletionDto.Status.RUNNING, 0, 0);
+        when(groupRepository.existsById(1L)).thenReturn(true);
+        when(groupDeletionService.submit(1L)).thenReturn(running);
+
+        assertSame(running, groupService.deleteGroupInBackground(1L));
+    }
+
+    @Test
+    void getDeletionProgress_UnknownDeletion_ThrowsException() {
+        when(groupDeletionService.progress(3L)).thenReturn(Optional.empty());
+
+        assertThrows(GroupNotFoundException.class, () -> groupService.getDeletionProgress(3L));
+    }
+
+    private void stubCacheMiss() {
+        when(cacheService.getOrLoad(anyString(), any(), any(), any(Absence.class))).thenAnswer(invocation -> {
+            Supplier<?> loader = invocation.getArgument(1);
+            return loader.get();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<String> cachedTags(String key, Object value) {
+        ArgumentCaptor<Function<Object, Collection<String>>> tagger = ArgumentCaptor.forClass(Function.class);
+        verify(cacheService).getOrLoad(eq(key), any(), tagger.capture(), any(Absence.class));
+        return tagger.getValue().apply(value);
+    }
+}
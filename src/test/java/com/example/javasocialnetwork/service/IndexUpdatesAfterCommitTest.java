@@ -0,0 +1,190 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.JsonPayloadEncoder;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.PostRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import com.example.javasocialnetwork.search.UsernameIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory indexes must only see committed writes: a write rolled back by the caller's
+ * transaction or by a constraint violation at flush leaves the indexes untouched.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+@Import({UserService.class, GroupService.class, PostService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IndexUpdatesAfterCommitTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private CacheService cacheService;
+
+    @MockitoBean
+    private PostSearchIndex postSearchIndex;
+
+    @MockitoBean
+    private UsernameIndex usernameIndex;
+
+    @MockitoBean
+    private AutocompleteIndex autocompleteIndex;
+
+    @MockitoBean
+    private JsonPayloadEncoder jsonPayloadEncoder;
+
+    @MockitoBean
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private GroupDeletionService groupDeletionService;
+
+    private TransactionTemplate transactionTemplate;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        userId = transactionTemplate.execute(status -> userRepository.save(user("alice")).getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            postRepository.deleteAllInBatch();
+            userRepository.findAll().forEach(user -> user.getGroups().clear());
+        });
+        userRepository.deleteAll();
+        groupRepository.deleteAll();
+    }
+
+    @Test
+    void createPost_RolledBack_ShouldNotIndexPost() {
+        transactionTemplate.executeWithoutResult(status -> {
+            postService.createPost(userId, "hello world");
+            status.setRollbackOnly();
+        });
+
+        assertThat(postRepository.count()).isZero();
+        verify(postSearchIndex, never()).index(anyLong(), anyLong(), anyString());
+    }
+
+    @Test
+    void createPost_Committed_ShouldIndexPostAfterCommit() {
+        Long postId = transactionTemplate.execute(status -> {
+            Long id = postService.createPost(userId, "hello world").getId();
+            verify(postSearchIndex, never()).index(anyLong(), anyLong(), anyString());
+            return id;
+        });
+
+        verify(postSearchIndex).index(postId, userId, "hello world");
+    }
+
+    @Test
+    void delete_RolledBack_ShouldKeepUserPostsIndexed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.delete(userId);
+            status.setRollbackOnly();
+        });
+
+        assertThat(userRepository.existsById(userId)).isTrue();
+        verify(postSearchIndex, never()).removeUser(anyLong());
+    }
+
+    @Test
+    void updateUser_UsernameTakenAtFlush_ShouldNotIndexNewName() {
+        transactionTemplate.executeWithoutResult(status -> userRepository.save(user("bob")));
+
+        assertThatThrownBy(() -> userService.updateUser(userId, user("bob")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(usernameIndex, never()).index(anyLong(), anyString());
+    }
+
+    @Test
+    void updateUser_Committed_ShouldIndexNewName() {
+        userService.updateUser(userId, user("alicia"));
+
+        verify(usernameIndex).index(userId, "alicia");
+    }
+
+    @Test
+    void addUserToGroup_RolledBack_ShouldNotCountMember() {
+        Long groupId = transactionTemplate.execute(status -> groupRepository.save(group("readers")).getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.addUserToGroup(userId, groupId);
+            status.setRollbackOnly();
+        });
+
+        verify(autocompleteIndex, never()).adjustGroupMembers(anyLong(), anyInt());
+    }
+
+    @Test
+    void groupRegistration_RolledBack_ShouldNotSuggestGroup() {
+        transactionTemplate.executeWithoutResult(status -> {
+            groupService.registration(group("readers"));
+            status.setRollbackOnly();
+        });
+        verify(autocompleteIndex, never()).putGroup(anyLong(), anyString(), anyInt());
+
+        Long groupId = transactionTemplate.execute(status -> groupService.registration(group("writers")).getId());
+        verify(autocompleteIndex).putGroup(groupId, "writers", 0);
+    }
+
+    private static Group group(String name) {
+        Group group = new Group();
+        group.setName(name);
+        return group;
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUserName(username);
+        user.setPassword("secret1");
+        return user;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import com.example.javasocialnetwork.dto.ImportErrorDto;
+import com.example.javasocialnetwork.dto.ImportReportDto;
+import com.example.javasocialnetwork.dto.PostImportDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class NdjsonReaderTest {
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void next_ShouldSkipBlankLinesAndTrackLineNumbers() {
+        NdjsonReader<PostImportDto> reader = reader("""
+                {"userId": 1, "content": "one"}
+
+                {"userId": 2, "content": "two"}
+                """);
+
+        assertThat(reader.next().getContent()).isEqualTo("one");
+        assertThat(reader.line()).isEqualTo(1);
+        assertThat(reader.next().getContent()).isEqualTo("two");
+        assertThat(reader.line()).isEqualTo(3);
+        assertThat(reader.hasNext()).isFalse();
+        assertThatThrownBy(reader::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void next_ShouldReportMalformedAndInvalidLines() {
+        NdjsonReader<PostImportDto> reader = reader("""
+                {"userId": 1, "content": "ok"}
+                {"userId": 1, "content":
+                {"content": "  "}
+                null
+                """);
+
+        List<PostImportDto> records = new ArrayList<>();
+        reader.forEachRemaining(records::add);
+        ImportReportDto report = reader.complete(new ImportReportDto());
+
+        assertThat(records).hasSize(1);
+        assertThat(report.getFailed()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getLine).containsExactly(2L, 3L, 4L);
+        assertThat(report.getErrors().get(1).getMessage())
+                .isEqualTo("content: Content cannot be blank; userId: User id cannot be null");
+    }
+
+    @Test
+    void next_OversizedLine_ShouldRejectItAndContinueWithNextLine() {
+        String oversized = "{\"userId\": 1, \"content\": \"" + "x".repeat(NdjsonReader.MAX_LINE_LENGTH) + "\"}";
+        NdjsonReader<PostImportDto> reader = reader(oversized + "\r\n{\"userId\": 2, \"content\": \"after\"}\r\n");
+
+        List<PostImportDto> records = new ArrayList<>();
+        reader.forEachRemaining(records::add);
+        ImportReportDto report = reader.complete(new ImportReportDto());
+
+        assertThat(records).extracting(PostImportDto::getContent).containsExactly("after");
+        assertThat(reader.line()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getLine).containsExactly(1L);
+        assertThat(report.getErrors().get(0).getMessage())
+                .isEqualTo("Line exceeds " + NdjsonReader.MAX_LINE_LENGTH + " characters");
+    }
+
+    @Test
+    void next_UploadWithoutLineBreaks_ShouldFailAsSingleOversizedLine() {
+        NdjsonReader<PostImportDto> reader = reader("y".repeat(NdjsonReader.MAX_LINE_LENGTH * 4));
+
+        assertThat(reader.hasNext()).isFalse();
+        assertThat(reader.complete(new ImportReportDto()).getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void complete_ShouldKeepOnlyFirstErrorsButCountAll() {
+        String lines = IntStream.range(0, NdjsonReader.MAX_REPORTED_ERRORS + 5)
+                .mapToObj(i -> "broken")
+                .collect(Collectors.joining("\n"));
+        NdjsonReader<PostImportDto> reader = reader(lines);
+
+        assertThat(reader.hasNext()).isFalse();
+        ImportReportDto report = reader.complete(new ImportReportDto());
+
+        assertThat(report.getFailed()).isEqualTo(NdjsonReader.MAX_REPORTED_ERRORS + 5);
+        assertThat(report.getErrors()).hasSize(NdjsonReader.MAX_REPORTED_ERRORS);
+    }
+
+    private static NdjsonReader<PostImportDto> reader(String ndjson) {
+        return new NdjsonReader<>(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                new ObjectMapper().readerFor(PostImportDto.class), VALIDATOR);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheTags;
+import com.example.javasocialnetwork.dto.ImportErrorDto;
+import com.example.javasocialnetwork.dto.ImportReportDto;
+import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.PostRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {
+        "import.chunk-size=2",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@Import(PostImportService.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostImportServiceTest {
+
+    @Autowired
+    private PostImportService postImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @MockitoBean
+    private CacheService cacheService;
+
+    @MockitoBean
+    private PostSearchIndex postSearchIndex;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUserName("author");
+        user.setPassword("secret1");
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importPosts_ShouldInsertPostsAndIndexThem() {
+        ImportReportDto report = postImportService.importPosts(ndjson(
+                "{\"userId\": " + userId + ", \"content\": \"first\"}",
+                "{\"userId\": " + userId + ", \"content\": \"second\"}",
+                "{\"userId\": " + userId + ", \"content\": \"third\"}"));
+
+        assertThat(report.getChunks()).isEqualTo(2);
+        assertThat(report.getCreated()).isEqualTo(3);
+        List<Post> posts = postRepository.findByUserId(userId);
+        assertThat(posts).extracting(Post::getContent).containsExactlyInAnyOrder("first", "second", "third");
+        Post first = posts.stream().filter(post -> post.getContent().equals("first")).findFirst().orElseThrow();
+        verify(postSearchIndex).index(first.getId(), userId, "first");
+        // По сбросу на каждую пачку
+        verify(cacheService, times(2)).invalidateTags(CacheTags.userPosts(userId), CacheTags.POST_CONTENT_SEARCH);
+    }
+
+    @Test
+    void importPosts_ShouldRejectUnknownUsersAndInvalidLines() {
+        ImportReportDto report = postImportService.importPosts(ndjson(
+                "{\"userId\": " + userId + ", \"content\": \"kept\"}",
+                "{\"userId\": 999999, \"content\": \"orphan\"}",
+                "{\"userId\": " + userId + ", \"content\": \"\"}"));
+
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getLine).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(postRepository.count()).isEqualTo(1);
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,26 +1,43 @@
 package com.example.javasocialnetwork.service;
 
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.IdCursor;
+import com.example.javasocialnetwork.dto.PostDto;
+import com.example.javasocialnetwork.dto.PostSearchPageDto;
 import com.example.javasocialnetwork.entity.Post;
 import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
 import com.example.javasocialnetwork.entity.User;
 import com.example.javasocialnetwork.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import com.example.javasocialnetwork.repository.PostRepository;
+import com.example.javasocialnetwork.search.PostSearchHit;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import com.example.javasocialnetwork.search.SearchCursor;
 import com.example.javasocialnetwork.exception.PostNotFoundException;
+import com.example.javasocialnetwork.exception.ValidationException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.mockito.ArgumentCaptor;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class PostServiceTest {
@@ -37,6 +54,9 @@ class PostServiceTest {
     @Mock
     private CacheService cacheService;
 
+    @Mock
+    private PostSearchIndex postSearchIndex;
+
     @InjectMocks
     private PostService postService;
 
@@ -53,44 +73,59 @@ class PostServiceTest {
     }
 
     @Test
-    void getUserPosts_ShouldReturnCachedPosts() {
+    void getUserPosts_ShouldReturnCachedPage() {
         // Arrange
-        String cacheKey = USER_POSTS + 1L; // Теперь "user_posts1"
-        List<Post> cachedPosts = List.of(testPost);
-        when(cacheService.get(cacheKey)).thenReturn(Optional.of(cachedPosts));
+        String cacheKey = USER_POSTS + 1L + "_0_20"; // "user_posts1_0_20": пользователь, курсор, размер
+        CursorPageDto<PostDto> cachedPage = new CursorPageDto<>(List.of(PostDto.toModel(testPost)), null);
+        when(cacheService.getOrLoad(eq(cacheKey), any(), any(), any(Absence.class))).thenReturn(cachedPage);
 
         // Act
-        List<Post> result = postService.getUserPosts(1L);
+        CursorPageDto<PostDto> result = postService.getUserPosts(1L, null, 20);
 
         // Assert
-        assertThat(result).isEqualTo(cachedPosts);
-        verify(postRepository, never()).findByUserId(any());
+        assertThat(result).isSameAs(cachedPage);
+        verify(postRepository, never()).findPageByUserId(any(), any(), any());
     }
 
     @Test
     void getUserPosts_ShouldFetchFromDbWhenCacheEmpty() {
         // Arrange
-        String cacheKey = USER_POSTS + 1L; // "user_posts1"
-        when(cacheService.get(cacheKey)).thenReturn(Optional.empty());
-        when(postRepository.findByUserId(1L)).thenReturn(List.of(testPost));
+        String cacheKey = USER_POSTS + 1L + "_0_20";
+        stubCacheMiss();
+        when(postRepository.findPageByUserId(1L, 0L, PageRequest.of(0, 21))).thenReturn(List.of(testPost));
+
+        // Act
+        CursorPageDto<PostDto> result = postService.getUserPosts(1L, null, 20);
+
+        // Assert
+        assertThat(result.getItems()).extracting(PostDto::getContent).containsExactly("Test content");
+        assertThat(result.getNextCursor()).isNull();
+        assertThat(cachedTags(cacheKey, result)).containsExactly("posts:1");
+    }
+
+    @Test
+    void getUserPosts_FullPage_ShouldContinueAfterLastPost() {
+        // Arrange
+        stubCacheMiss();
+        List<Post> posts = List.of(post(5L), post(7L), post(9L));
+        when(postRepository.findPageByUserId(1L, 3L, PageRequest.of(0, 3))).thenReturn(posts);
 
         // Act
-        List<Post> result = postService.getUserPosts(1L);
+        CursorPageDto<PostDto> result = postService.getUserPosts(1L, IdCursor.after(3L).encode(), 2);
 
         // Assert
-        assertThat(result).containsExactly(testPost);
-        verify(cacheService).put(cacheKey, result);
+        assertThat(result.getItems()).extracting(PostDto::getId).containsExactly(5L, 7L);
+        assertThat(IdCursor.decode(result.getNextCursor())).isEqualTo(IdCursor.after(7L));
     }
 
     @Test
     void getUserPosts_ShouldThrowWhenNoPostsFound() {
         // Arrange
-        String cacheKey = USER_POSTS + 1L; // "user_posts1"
-        when(cacheService.get(cacheKey)).thenReturn(Optional.empty());
-        when(postRepository.findByUserId(1L)).thenReturn(Collections.emptyList());
+        stubCacheMiss();
+        when(postRepository.findPageByUserId(eq(1L), eq(0L), any())).thenReturn(Collections.emptyList());
 
         // Act & Assert
-        assertThatThrownBy(() -> postService.getUserPosts(1L))
+        assertThatThrownBy(() -> postService.getUserPosts(1L, null, 20))
                 .isInstanceOf(PostNotFoundException.class)
                 .hasMessageContaining("No posts found")
                 .satisfies(ex -> {
@@ -99,6 +134,13 @@ class PostServiceTest {
                 });
     }
 
+    @Test
+    void getUserPosts_InvalidCursor_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> postService.getUserPosts(1L, "%%%", 20))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Invalid page cursor");
+    }
+
     @Test
     void createPost_ShouldSaveAndInvalidateCache() {
         // Arrange
@@ -109,10 +151,9 @@ class PostServiceTest {
         Post result = postService.createPost(1L, "New post");
 
         // Assert
-        String cacheKey = USER_POSTS + 1L; // "user_posts1"
         assertThat(result).isEqualTo(testPost);
-        verify(cacheService).evict(cacheKey);
-        verify(cacheService).invalidateUserCache();
+        verify(postSearchIndex).index(testPost.getId(), 1L, "New post");
+        verify(cacheService).invalidateTags("posts:1", "search:post-content");
     }
 
     @Test
@@ -124,10 +165,9 @@ class PostServiceTest {
         postService.deletePost(1L);
 
         // Assert
-        String cacheKey = USER_POSTS + 1L; // "user_posts1"
         verify(postRepository).delete(testPost);
-        verify(cacheService).evict(cacheKey);
-        verify(cacheService).invalidateUserCache();
+        verify(postSearchIndex).remove(1L);
+        verify(cacheService).invalidateTags("posts:1", "search:post-content");
     }
 
     @Test
@@ -140,11 +180,9 @@ class PostServiceTest {
         postService.updatePost(1L, "Updated content");
 
         // Assert
-        String cacheKey = USER_POSTS + 1L; // "user_posts1"
         assertThat(testPost.getContent()).isEqualTo("Updated content");
-        verify(cacheService).evict(cacheKey);
-        verify(cacheService).invalidateUserCache();
-        verify(cacheService).evictByPrefix("post_content_");
+        verify(postSearchIndex).index(1L, 1L, "Updated content");
+        verify(cacheService).invalidateTags("posts:1", "search:post-content");
     }
 
     @Test
@@ -161,4 +199,53 @@ class PostServiceTest {
                             .containsEntry("postId", 1L);
                 });
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchPosts_ShouldLoadOnlyPageInRankOrder() {
+        Post first = new Post("java java", testUser);
+        Post second = new Post("java", testUser);
+        PostSearchHit firstHit = new PostSearchHit(5L, 1L, 2.0);
+        PostSearchHit secondHit = new PostSearchHit(9L, 1L, 1.0);
+        when(postSearchIndex.search("java", null, 3))
+                .thenReturn(List.of(firstHit, secondHit, new PostSearchHit(11L, 1L, 0.5)));
+        when(postRepository.findAllById(List.of(5L, 9L))).thenReturn(List.of(second, first));
+        ReflectionTestUtils.setField(first, "id", 5L);
+        ReflectionTestUtils.setField(second, "id", 9L);
+
+        PostSearchPageDto page = postService.searchPosts("java", null, 2);
+
+        assertThat(page.getItems()).extracting(PostDto::getId).containsExactly(5L, 9L);
+        assertThat(SearchCursor.decode(page.getNextCursor())).isEqualTo(SearchCursor.after(secondHit));
+    }
+
+    @Test
+    void searchPosts_LastPage_ShouldHaveNoCursor() {
+        when(postSearchIndex.search("java", null, 21)).thenReturn(List.of());
+        when(postRepository.findAllById(List.of())).thenReturn(List.of());
+
+        PostSearchPageDto page = postService.searchPosts("java", null, 20);
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    private Post post(Long id) {
+        Post post = new Post("post " + id, testUser);
+        ReflectionTestUtils.setField(post, "id", id);
+        return post;
+    }
+
+    private void stubCacheMiss() {
+        when(cacheService.getOrLoad(anyString(), any(), any(), any(Absence.class))).thenAnswer(invocation -> {
+            Supplier<?> loader = invocation.getArgument(1);
+            return loader.get();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<String> cachedTags(String key, Object value) {
+        ArgumentCaptor<Function<Object, Collection<String>>> tagger = ArgumentCaptor.forClass(Function.class);
+        verify(cacheService).getOrLoad(eq(key), any(), tagger.capture(), any(Absence.class));
+        return tagger.getValue().apply(value);
+    }
+}
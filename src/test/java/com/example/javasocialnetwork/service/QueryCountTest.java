@@ -0,0 +1,298 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
+import com.example.javasocialnetwork.cache.JsonPayloadEncoder;
+import com.example.javasocialnetwork.config.JpaFetchConfig;
+import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
+import com.example.javasocialnetwork.entity.Group;
+import com.example.javasocialnetwork.entity.Post;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.GroupRepository;
+import com.example.javasocialnetwork.repository.PostRepository;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import com.example.javasocialnetwork.search.UsernameIndex;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read paths must issue a fixed number of SQL statements however many rows they return: each
+ * scenario runs on a small and a large data set and the statement counts must match.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@Import({JpaFetchConfig.class, UserService.class, GroupService.class, PostService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryCountTest {
+    private static final int SMALL = 2;
+    private static final int LARGE = 12;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private CacheService cacheService;
+
+    @MockitoBean
+    private PostSearchIndex postSearchIndex;
+
+    @MockitoBean
+    private UsernameIndex usernameIndex;
+
+    @MockitoBean
+    private AutocompleteIndex autocompleteIndex;
+
+    @MockitoBean
+    private JsonPayloadEncoder jsonPayloadEncoder;
+
+    @MockitoBean
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private GroupDeletionService groupDeletionService;
+
+    private SqlStatementCounter counter;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Кеш приложения пропускает всё в загрузчик
+        when(cacheService.getOrLoad(anyString(), any(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(1).get());
+        when(cacheService.getOrLoad(anyString(), any(), any(), any(Absence.class))).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(1).get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanUp();
+    }
+
+    @Test
+    void getOne_ShouldNotDependOnPostsAndGroups() {
+        assertSameCountForSmallAndLarge(size -> {
+            List<Long> ids = seedUsers(1, size);
+            return () -> userService.getOne(ids.get(0));
+        });
+    }
+
+    @Test
+    void findByPostContent_ShouldNotDependOnMatchedUsers() {
+        assertSameCountForSmallAndLarge(size -> {
+            List<Long> ids = seedUsers(size, 3);
+            when(postSearchIndex.findUserIds("post")).thenReturn(ids);
+            return () -> assertThat(userService.findByPostContent("post")).hasSize(size);
+        });
+    }
+
+    @Test
+    void userWarmUp_ShouldNotDependOnUsers() {
+        assertSameCountForSmallAndLarge(size -> {
+            List<Long> ids = seedUsers(size, 3);
+            return () -> userService.warmUp(ids, false);
+        });
+    }
+
+    @Test
+    void getUsers_ShouldNotDependOnPageSize() {
+        assertSameCountForSmallAndLarge(size -> {
+            seedUsers(size, 1);
+            return () -> assertThat(userService.getUsers(null, size).getItems()).hasSize(size);
+        });
+    }
+
+    @Test
+    void getManyUsers_ShouldNotDependOnRequestedIds() {
+        assertSameCountForSmallAndLarge(size -> {
+            List<Long> ids = seedUsers(size, 3);
+            return () -> assertThat(userService.getMany(ids).getItems()).hasSize(size);
+        });
+    }
+
+    @Test
+    void getGroups_ShouldNotDependOnGroupsAndMembers() {
+        assertSameCountForSmallAndLarge(size -> {
+            seedUsers(size, size);
+            return () -> assertThat(groupService.getGroups(null, size).getItems()).hasSize(size);
+        });
+    }
+
+    @Test
+    void groupWarmUp_ShouldNotDependOnGroups() {
+        assertSameCountForSmallAndLarge(size -> {
+            seedUsers(size, size);
+            List<Long> groupIds = groupRepository.findAll().stream().map(Group::getId).toList();
+            return () -> groupService.warmUp(groupIds, false);
+        });
+    }
+
+    @Test
+    void getManyGroups_ShouldNotDependOnRequestedIds() {
+        assertSameCountForSmallAndLarge(size -> {
+            seedUsers(size, size);
+            List<Long> groupIds = groupRepository.findAll().stream().map(Group::getId).toList();
+            return () -> assertThat(groupService.getMany(groupIds).getItems()).hasSize(size);
+        });
+    }
+
+    @Test
+    void getUserPosts_ShouldNotDependOnPageSize() {
+        assertSameCountForSmallAndLarge(size -> {
+            List<Long> ids = seedUsers(1, size);
+            return () -> assertThat(postService.getUserPosts(ids.get(0), null, size).getItems()).hasSize(size);
+        });
+    }
+
+    @Test
+    void lazyCollections_ShouldBeLoadedInBatches() {
+        assertSameCountForSmallAndLarge(size -> {
+            seedUsers(size, 2);
+            return () -> transactionTemplate.executeWithoutResult(status -> userRepository.findAll()
+                    .forEach(user -> assertThat(user.getGroups().size() + user.getPosts().size()).isEqualTo(4)));
+        });
+    }
+
+    @Test
+    void getOne_ShouldReturnEachPostAndGroupOnce() {
+        Long id = seedUsers(1, 2, 3).get(0);
+
+        UserWithPostsAndGroupsDto user = userService.getOne(id);
+
+        assertThat(user.getPosts()).hasSize(2);
+        assertThat(user.getGroups()).hasSize(3);
+    }
+
+    @Test
+    void findByPostContent_ShouldReturnEachPostAndGroupOnce() {
+        List<Long> ids = seedUsers(2, 2, 3);
+        when(postSearchIndex.findUserIds("post")).thenReturn(ids);
+
+        List<UserWithPostsAndGroupsDto> users = userService.findByPostContent("post");
+
+        assertThat(users).hasSize(2).allSatisfy(user -> {
+            assertThat(user.getPosts()).hasSize(2);
+            assertThat(user.getGroups()).hasSize(3);
+        });
+    }
+
+    @Test
+    void getMany_ShouldReturnAndCacheEachPostAndGroupOnce() {
+        List<Long> ids = seedUsers(2, 2, 3);
+        when(cacheService.get(anyString())).thenReturn(Optional.empty());
+
+        List<UserWithPostsAndGroupsDto> users = userService.getMany(ids).getItems();
+
+        ArgumentCaptor<UserWithPostsAndGroupsDto> cached = ArgumentCaptor.forClass(UserWithPostsAndGroupsDto.class);
+        verify(cacheService, times(2)).preload(anyString(), cached.capture(), any(), any(), anyLong());
+        assertThat(users).hasSize(2);
+        // getOne отдаёт из кеша то же, что положил getMany
+        assertThat(cached.getAllValues()).containsExactlyInAnyOrderElementsOf(users);
+        assertThat(users).allSatisfy(user -> {
+            assertThat(user.getPosts()).hasSize(2);
+            assertThat(user.getGroups()).hasSize(3);
+        });
+    }
+
+    /**
+     * Seeds the data set of the given size, runs the returned action and compares its statement
+     * count with the one on the large data set.
+     */
+    private void assertSameCountForSmallAndLarge(Function<Integer, Runnable> scenario) {
+        long small = counter.count(scenario.apply(SMALL));
+        cleanUp();
+        long large = counter.count(scenario.apply(LARGE));
+
+        assertThat(large)
+                .as("SQL statements for %d rows compared with %d rows", LARGE, SMALL)
+                .isEqualTo(small);
+    }
+
+    // Пользователи с постами и общими группами, по perUser штук каждого
+    private List<Long> seedUsers(int users, int perUser) {
+        return seedUsers(users, perUser, perUser);
+    }
+
+    private List<Long> seedUsers(int users, int postsPerUser, int groupsPerUser) {
+        return transactionTemplate.execute(status -> {
+            List<Group> groups = new ArrayList<>();
+            for (int i = 0; i < groupsPerUser; i++) {
+                Group group = new Group();
+                group.setName("group" + i);
+                groups.add(groupRepository.save(group));
+            }
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                User user = new User();
+                user.setUserName("user" + i);
+                user.setPassword("secret1");
+                groups.forEach(user::addGroup);
+                for (int j = 0; j < postsPerUser; j++) {
+                    user.addPost(new Post("post " + j, user));
+                }
+                ids.add(userRepository.save(user).getId());
+            }
+            return ids;
+        });
+    }
+
+    private void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            postRepository.deleteAllInBatch();
+            userRepository.findAll().forEach(user -> user.getGroups().clear());
+        });
+        userRepository.deleteAll();
+        groupRepository.deleteAll();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.javasocialnetwork.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+// Считает SQL-запросы по статистике Hibernate; нужен hibernate.generate_statistics=true
+final class SqlStatementCounter {
+    private final Statistics statistics;
+
+    SqlStatementCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    long count(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.javasocialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.dto.ImportErrorDto;
+import com.example.javasocialnetwork.dto.ImportReportDto;
+import com.example.javasocialnetwork.entity.User;
+import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import com.example.javasocialnetwork.search.UsernameIndex;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {
+        "import.chunk-size=4",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@Import(UserImportService.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private CacheService cacheService;
+
+    @MockitoBean
+    private UsernameIndex usernameIndex;
+
+    @MockitoBean
+    private AutocompleteIndex autocompleteIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importUsers_ShouldInsertNewUsersWithHashedPasswords() {
+        ImportReportDto report = userImportService.importUsers(users("alice", "bob").iterator(), progress -> { });
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getSkipped()).isZero();
+        User alice = userRepository.findByUsername("alice").orElseThrow();
+        User bob = userRepository.findByUsername("bob").orElseThrow();
+        assertThat(alice.getPassword()).isEqualTo("hashed-password");
+        verify(usernameIndex).index(alice.getId(), "alice");
+        verify(autocompleteIndex).putUser(bob.getId(), "bob");
+        verify(cacheService).invalidateTags("user:" + alice.getId(), "user:" + bob.getId());
+    }
+
+    @Test
+    void importUsers_ShouldSkipExistingAndRepeatedUsernames() {
+        userImportService.importUsers(users("alice").iterator(), progress -> { });
+
+        ImportReportDto report = userImportService.importUsers(
+                users("alice", "bob", "bob", "carol").iterator(), progress -> { });
+
+        assertThat(report.getRead()).isEqualTo(4);
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getSkipped()).isEqualTo(2);
+        assertThat(userRepository.count()).isEqualTo(3);
+        verify(passwordEncoder, times(3)).encode(anyString());
+    }
+
+    @Test
+    void importUsers_ShouldReportProgressAfterEveryChunk() {
+        String[] names = IntStream.range(0, 10).mapToObj(i -> "user" + i).toArray(String[]::new);
+        List<ImportReportDto> reports = new ArrayList<>();
+
+        ImportReportDto report = userImportService.importUsers(users(names).iterator(), reports::add);
+
+        // Пачки по 4: 4 + 4 + 2
+        assertThat(reports).extracting(ImportReportDto::getRead).containsExactly(4L, 8L, 10L);
+        assertThat(report.getChunks()).isEqualTo(3);
+        assertThat(report.getCreated()).isEqualTo(10);
+        assertThat(userRepository.count()).isEqualTo(10);
+    }
+
+    @Test
+    void importUsers_WithOnlyExistingUsers_ShouldNotInsert() {
+        userImportService.importUsers(users("alice").iterator(), progress -> { });
+
+        ImportReportDto report = userImportService.importUsers(users("alice").iterator(), progress -> { });
+
+        assertThat(report.getCreated()).isZero();
+        assertThat(report.getSkipped()).isEqualTo(1);
+        verify(usernameIndex, times(1)).index(anyLong(), eq("alice"));
+        verify(passwordEncoder, times(1)).encode(anyString());
+    }
+
+    @Test
+    void importUsers_UsernameRegisteredDuringChunk_ShouldSkipItAndInsertTheRest() {
+        AtomicBoolean registered = new AtomicBoolean();
+        // Регистрация фиксируется между проверкой имён и вставкой пачки
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            if (registered.compareAndSet(false, true)) {
+                User bob = users("bob").get(0);
+                bob.setPassword("registered1");
+                userRepository.save(bob);
+            }
+            return "hashed-" + invocation.getArgument(0);
+        });
+
+        ImportReportDto report = userImportService.importUsers(
+                users("alice", "bob", "carol").iterator(), progress -> { });
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getSkipped()).isEqualTo(1);
+        assertThat(userRepository.count()).isEqualTo(3);
+        assertThat(userRepository.findByUsername("bob").orElseThrow().getPassword()).isEqualTo("registered1");
+        verify(usernameIndex, never()).index(anyLong(), eq("bob"));
+    }
+
+    @Test
+    void importUsers_WithEmptyInput_ShouldReportNothing() {
+        List<ImportReportDto> reports = new ArrayList<>();
+
+        ImportReportDto report = userImportService.importUsers(List.<User>of().iterator(), reports::add);
+
+        assertThat(reports).isEmpty();
+        assertThat(report.getChunks()).isZero();
+        assertThat(report.getRead()).isZero();
+    }
+
+    @Test
+    void importUsers_FromNdjson_ShouldCreateValidLinesAndReportInvalidOnes() {
+        String ndjson = """
+                {"username": "alice", "password": "secret1"}
+
+                {"username": "a", "password": "secret1"}
+                not json
+                {"username": "bob", "password": "secret2"}
+                """;
+
+        ImportReportDto report = userImportService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getLine).containsExactly(3L, 4L);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("username: ");
+        assertThat(userRepository.findByUsername("bob").orElseThrow().getPassword()).isEqualTo("hashed-secret2");
+    }
+
+    private static List<User> users(String... usernames) {
+        List<User> users = new ArrayList<>();
+        for (String username : usernames) {
+            User user = new User();
+            user.setUserName(username);
+            user.setPassword("password");
+            users.add(user);
+        }
+        return users;
+    }
+}
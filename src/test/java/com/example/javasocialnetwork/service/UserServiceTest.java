@@ -3,11 +3,19 @@ package com.example.javasocialnetwork.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import com.example.javasocialnetwork.cache.CacheService;
+import com.example.javasocialnetwork.cache.CacheService.Absence;
+import com.example.javasocialnetwork.dto.BatchDto;
+import com.example.javasocialnetwork.dto.CursorPageDto;
+import com.example.javasocialnetwork.dto.IdCursor;
+import com.example.javasocialnetwork.dto.UserDto;
+import com.example.javasocialnetwork.dto.UserSearchPageDto;
 import com.example.javasocialnetwork.dto.UserWithPostsAndGroupsDto;
 import com.example.javasocialnetwork.entity.Group;
 import com.example.javasocialnetwork.entity.User;
@@ -16,20 +24,26 @@ import com.example.javasocialnetwork.exception.NotFoundException;
 import com.example.javasocialnetwork.exception.UserAlreadyExistException;
 import com.example.javasocialnetwork.repository.GroupRepository;
 import com.example.javasocialnetwork.repository.UserRepository;
+import com.example.javasocialnetwork.search.AutocompleteIndex;
+import com.example.javasocialnetwork.search.PostSearchIndex;
+import com.example.javasocialnetwork.search.UsernameIndex;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
 
-    private static final String USER = "user_";
     private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
 
     @Mock
@@ -41,6 +55,15 @@ class UserServiceTest {
     @Mock
     private CacheService cacheService;
 
+    @Mock
+    private PostSearchIndex postSearchIndex;
+
+    @Mock
+    private UsernameIndex usernameIndex;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
     @InjectMocks
     private UserService userService;
 
@@ -77,8 +100,9 @@ class UserServiceTest {
         assertThat(user.getGroups()).doesNotContain(group);
         // Проверяем сохранение пользователя
         verify(userRepository).save(user);
+        verify(autocompleteIndex).adjustGroupMembers(groupId, -1);
         // Проверяем очистку кэша
-        verify(cacheService).evict(USER + userId);
+        verify(cacheService).invalidateTags("user:1", "group:2");
     }
 
     @Test
@@ -115,12 +139,29 @@ class UserServiceTest {
     void findByPostContent_ShouldReturnCachedData() {
         String content = "test";
         List<UserWithPostsAndGroupsDto> expected = List.of(/*...*/);
-        when(cacheService.get("users_by_post_content_" + content)).thenReturn(Optional.of(expected));
+        when(cacheService.getOrLoad(eq("users_by_post_content_" + content), any(), any())).thenReturn(expected);
 
         List<UserWithPostsAndGroupsDto> result = userService.findByPostContent(content);
 
         assertThat(result).isEqualTo(expected);
-        verify(userRepository, never()).findAllByPostContent(any());
+        verify(postSearchIndex, never()).findUserIds(any());
+    }
+
+    @Test
+    void findByPostContent_CacheMiss_ShouldLoadOnlyIndexedUsers() {
+        User other = new User();
+        other.setId(2L);
+        other.setUserName("other");
+        when(cacheService.getOrLoad(anyString(), any(), any())).thenAnswer(invocation -> {
+            Supplier<?> loader = invocation.getArgument(1);
+            return loader.get();
+        });
+        when(postSearchIndex.findUserIds("java")).thenReturn(List.of(1L, 2L));
+        when(userRepository.findWithGroupsByIdIn(List.of(1L, 2L))).thenReturn(List.of(other, testUser));
+
+        List<UserWithPostsAndGroupsDto> result = userService.findByPostContent("java");
+
+        assertThat(result).extracting(UserWithPostsAndGroupsDto::getId).containsExactly(1L, 2L);
     }
 
     @Test
@@ -139,7 +180,7 @@ class UserServiceTest {
 
         // Assert
         verify(userRepository).save(user);
-        verify(cacheService).evict(USER + userId);
+        verify(cacheService).invalidateTags("user:1", "group:2");
     }
 
     @Test
@@ -162,55 +203,59 @@ class UserServiceTest {
     }
 
     @Test
-    void bulkCreateUsers_ShouldSaveOnlyNewUsers() {
-        User existingUser = new User();
-        existingUser.setUserName("existing");
-        User newUser = new User();
-        newUser.setUserName("newuser");
-
-        when(userRepository.existsByUsername("existing")).thenReturn(true);
-        when(userRepository.existsByUsername("newuser")).thenReturn(false);
-        when(userRepository.saveAll(List.of(newUser))).thenReturn(List.of(newUser));
+    void getMany_ShouldLoadOnlyCacheMissesAndReportUnknownIds() {
+        UserWithPostsAndGroupsDto cachedUser = new UserWithPostsAndGroupsDto();
+        cachedUser.setId(2L);
+        when(cacheService.get(anyString())).thenReturn(Optional.empty());
+        when(cacheService.get("user_2")).thenReturn(Optional.of(cachedUser));
+        when(userRepository.findWithGroupsByIdIn(List.of(1L, 3L))).thenReturn(List.of(testUser));
 
-        List<User> result = userService.bulkCreateUsers(List.of(existingUser, newUser));
+        BatchDto<UserWithPostsAndGroupsDto> result = userService.getMany(List.of(1L, 2L, 3L));
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getUsername()).isEqualTo("newuser");
-        verify(cacheService).invalidateUserCache();
+        assertThat(result.getItems()).extracting(UserWithPostsAndGroupsDto::getId).containsExactly(1L, 2L);
+        assertThat(result.getNotFound()).containsExactly(3L);
+        // Загруженный из базы пользователь попадает в кеш
+        verify(cacheService).preload(eq("user_1"), any(UserWithPostsAndGroupsDto.class), any(), any(), any(Long.class));
     }
 
     @Test
     void getOne_ShouldReturnUserFromCache() {
         UserWithPostsAndGroupsDto cachedUser = new UserWithPostsAndGroupsDto();
         cachedUser.setUsername("cachedUser");
-        when(cacheService.get("user_1")).thenReturn(Optional.of(cachedUser));
+        when(cacheService.getOrLoad(eq("user_1"), any(), any(), any(Absence.class))).thenReturn(cachedUser);
 
         UserWithPostsAndGroupsDto result = userService.getOne(1L);
 
         assertThat(result.getUsername()).isEqualTo("cachedUser");
-        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).findWithGroupsById(any());
     }
 
     @Test
     void getOne_ShouldFetchFromDbWhenCacheEmpty() {
-        when(cacheService.get("user_1")).thenReturn(Optional.empty());
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        stubCacheMiss();
+        when(userRepository.findWithGroupsById(1L)).thenReturn(Optional.of(testUser));
 
         UserWithPostsAndGroupsDto result = userService.getOne(1L);
 
         assertThat(result.getUsername()).isEqualTo("testuser");
-        verify(cacheService).put(eq("user_1"), any(UserWithPostsAndGroupsDto.class));
+        assertThat(cachedTags("user_1", result)).containsExactlyInAnyOrder("user:1", "posts:1");
     }
 
     @Test
     void delete_ExistingUser_ShouldEvictCache() throws NotFoundException {
         when(userRepository.existsById(1L)).thenReturn(true);
+        when(groupRepository.findIdsByUserId(1L)).thenReturn(List.of(2L, 3L));
 
         Long deletedId = userService.delete(1L);
 
         assertThat(deletedId).isEqualTo(1L);
         verify(userRepository).deleteById(1L);
-        verify(cacheService).evict("user_1");
+        verify(postSearchIndex).removeUser(1L);
+        verify(usernameIndex).remove(1L);
+        verify(autocompleteIndex).removeUser(1L);
+        verify(autocompleteIndex).adjustGroupMembers(2L, -1);
+        verify(autocompleteIndex).adjustGroupMembers(3L, -1);
+        verify(cacheService).invalidateTags("user:1", "posts:1");
     }
 
     @Test
@@ -230,11 +275,12 @@ class UserServiceTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(groupRepository.findById(2L)).thenReturn(Optional.of(testGroup));
 
+        userService.addUserToGroup(1L, 2L);
         userService.addUserToGroup(1L, 2L);
 
-        verify(cacheService).evict("user_1");
-        verify(cacheService).evict("group_2");
-        verify(cacheService).evictByPrefix("groups_");
+        // Повторное вступление не меняет число участников
+        verify(autocompleteIndex).adjustGroupMembers(2L, 1);
+        verify(cacheService, times(2)).invalidateTags("user:1", "group:2");
     }
 
     @Test
@@ -249,24 +295,40 @@ class UserServiceTest {
 
         assertThat(testUser.getUsername()).isEqualTo("newuser");
         assertThat(testUser.getPassword()).isEqualTo("newpassword");
-        verify(cacheService).evict("user_1");
+        verify(usernameIndex).index(1L, "newuser");
+        verify(autocompleteIndex).putUser(1L, "newuser");
+        verify(cacheService).invalidateTags("user:1");
+    }
+
+    @Test
+    void searchUsers_ShouldReturnPageFromIndex() {
+        when(usernameIndex.search("test", false, 2, 3))
+                .thenReturn(List.of(userDto(1L, "testuser1"), userDto(2L, "testuser2"), userDto(3L, "testuser3")));
+
+        UserSearchPageDto result = userService.searchUsers("test", false, 1, 2);
+
+        assertThat(result.getItems()).extracting(UserDto::getUsername).containsExactly("testuser1", "testuser2");
+        assertThat(result.isHasNext()).isTrue();
     }
 
     @Test
-    void searchUsersByUsername_ShouldReturnFilteredResults() {
-        User user1 = new User();
-        user1.setUserName("testuser1");
-        User user2 = new User();
-        user2.setUserName("testuser2");
+    void getUsers_ShouldReadOneRowPastPageForCursor() {
+        User second = new User();
+        second.setId(5L);
+        second.setUserName("second");
+        when(userRepository.findPageAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(testUser, second));
 
-        when(userRepository.findByUsernameContainingIgnoreCase("test"))
-                .thenReturn(List.of(user1, user2));
+        CursorPageDto<UserDto> page = userService.getUsers(null, 1);
 
-        List<UserWithPostsAndGroupsDto> result = userService.searchUsersByUsername("test");
+        assertThat(page.getItems()).extracting(UserDto::getUsername).containsExactly("testuser");
+        assertThat(IdCursor.decode(page.getNextCursor())).isEqualTo(IdCursor.after(1L));
 
-        assertThat(result).hasSize(2);
-        assertThat(result.get(0).getUsername()).isEqualTo("testuser1");
-        assertThat(result.get(1).getUsername()).isEqualTo("testuser2");
+        when(userRepository.findPageAfter(1L, PageRequest.of(0, 2))).thenReturn(List.of(second));
+
+        CursorPageDto<UserDto> last = userService.getUsers(page.getNextCursor(), 1);
+
+        assertThat(last.getItems()).extracting(UserDto::getId).containsExactly(5L);
+        assertThat(last.getNextCursor()).isNull();
     }
 
     @Test
@@ -284,28 +346,45 @@ class UserServiceTest {
     }
 
     @Test
-    void bulkCreateUsers_WithEmptyList_ShouldReturnEmptyList() {
-        List<User> result = userService.bulkCreateUsers(Collections.emptyList());
-        assertThat(result).isEmpty();
-    }
+    void searchUsers_WithNonExistingName_ShouldReturnEmptyLastPage() {
+        when(usernameIndex.search("unknown", true, 0, 21)).thenReturn(Collections.emptyList());
 
-    @Test
-    void searchUsersByUsername_WithNonExistingName_ShouldReturnEmpty() {
-        when(userRepository.findByUsernameContainingIgnoreCase("unknown")).thenReturn(Collections.emptyList());
+        UserSearchPageDto result = userService.searchUsers("unknown", true, 0, 20);
 
-        List<UserWithPostsAndGroupsDto> result = userService.searchUsersByUsername("unknown");
-
-        assertThat(result).isEmpty();
+        assertThat(result.getItems()).isEmpty();
+        assertThat(result.isHasNext()).isFalse();
     }
 
     @Test
     void getOne_ShouldMapUserToDtoCorrectly() {
         User user = new User();
         user.setUserName("test");
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        stubCacheMiss();
+        when(userRepository.findWithGroupsById(1L)).thenReturn(Optional.of(user));
 
         UserWithPostsAndGroupsDto dto = userService.getOne(1L);
 
         assertThat(dto.getUsername()).isEqualTo("test");
     }
-}
\ No newline at end of file
+
+    private void stubCacheMiss() {
+        when(cacheService.getOrLoad(anyString(), any(), any(), any(Absence.class))).thenAnswer(invocation -> {
+            Supplier<?> loader = invocation.getArgument(1);
+            return loader.get();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<String> cachedTags(String key, Object value) {
+        ArgumentCaptor<Function<Object, Collection<String>>> tagger = ArgumentCaptor.forClass(Function.class);
+        verify(cacheService).getOrLoad(eq(key), any(), tagger.capture(), any(Absence.class));
+        return tagger.getValue().apply(value);
+    }
+
+    private static UserDto userDto(Long id, String username) {
+        UserDto dto = new UserDto();
+        dto.setId(id);
+        dto.setUsername(username);
+        return dto;
+    }
+}